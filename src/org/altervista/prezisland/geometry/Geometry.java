@@ -25,7 +25,10 @@ package org.altervista.prezisland.geometry;
 
 import org.altervista.prezisland.geometry.shapes.Polygon;
 import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
 
 /**
  *
@@ -51,6 +54,13 @@ public final class Geometry {
             DIR_VERT = new Line(0, 0, 0, 1),
             DIR_BISECT = new Line(0, 0, 1, 1),
             DIR_BISECT_INV = new Line(0, 0, 1, -1);
+    /**
+     * Arrays and lists with at least this many points are sorted in parallel
+     * (same granularity as Arrays.parallelSort()).
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    private static final Comparator<Point2D.Double> LEXICOGRAPHIC_X
+            = Geometry::compareLexicographicallyX;
 
     ;
 
@@ -116,38 +126,36 @@ public final class Geometry {
         }
     }
 
+    /**
+     * Sort points in x-lexicographic order, in O(n log n) time. The sort is
+     * stable; large arrays are sorted in parallel.
+     *
+     * @param pts Points to sort
+     */
     public static void sortLexicographicallyX(Point2D.Double[] pts) {
-        // Bubble sort
-        for (int i = 0; i < pts.length - 1; i++) {
-            if (compareLexicographicallyX(pts[i], pts[i + 1]) > 0) {
-                Point2D.Double temp = pts[i + 1];
-                pts[i + 1] = pts[i];
-                pts[i] = temp;
-                int j = i - 1;
-                while (j >= 0 && (compareLexicographicallyX(pts[j], pts[j + 1]) > 0)) {
-                    temp = pts[j + 1];
-                    pts[j + 1] = pts[j];
-                    pts[j] = temp;
-                    j--;
-                }
-            }
+        if (pts.length < PARALLEL_THRESHOLD) {
+            Arrays.sort(pts, LEXICOGRAPHIC_X);
+        } else {
+            Arrays.parallelSort(pts, LEXICOGRAPHIC_X);
         }
     }
 
+    /**
+     * Sort points in x-lexicographic order, in O(n log n) time. The sort is
+     * stable; large lists are sorted in parallel.
+     *
+     * @param pts Points to sort
+     */
     public static void sortLexicographicallyX(List<Point2D.Double> pts) {
-        // Bubble sort
-        for (int i = 0; i < pts.size() - 1; i++) {
-            if (compareLexicographicallyX(pts.get(i), pts.get(i + 1)) > 0) {
-                Point2D.Double temp = pts.get(i + 1);
-                pts.set(i + 1, pts.get(i));
-                pts.set(i, temp);
-                int j = i - 1;
-                while (j >= 0 && (compareLexicographicallyX(pts.get(j), pts.get(j + 1)) > 0)) {
-                    temp = pts.get(j + 1);
-                    pts.set(j + 1, pts.get(j));
-                    pts.set(j, temp);
-                    j--;
-                }
+        if (pts.size() < PARALLEL_THRESHOLD) {
+            pts.sort(LEXICOGRAPHIC_X);
+        } else {
+            Point2D.Double[] a = pts.toArray(new Point2D.Double[pts.size()]);
+            Arrays.parallelSort(a, LEXICOGRAPHIC_X);
+            ListIterator<Point2D.Double> it = pts.listIterator();
+            for (Point2D.Double p : a) {
+                it.next();
+                it.set(p);
             }
         }
     }
@@ -196,6 +204,36 @@ public final class Geometry {
         return angle;
     }
 
+    /**
+     * Compares the directions of two vectors by their angle relative to the x
+     * axis, normalized in [0, 2*PI). Equivalent to comparing the results of
+     * {@link #getNormalizedAngle}, but uses only cross products.
+     *
+     * @param x1 X component of the first vector
+     * @param y1 Y component of the first vector
+     * @param x2 X component of the second vector
+     * @param y2 Y component of the second vector
+     * @return less than 0 if the first angle is smaller, 0 if they are equal,
+     * more than 0 else
+     */
+    public static int compareAngles(double x1, double y1, double x2, double y2) {
+        // Vectors in [0, PI) come before vectors in [PI, 2*PI)
+        boolean upper1 = y1 > 0 || (y1 == 0 && x1 >= 0),
+                upper2 = y2 > 0 || (y2 == 0 && x2 >= 0);
+        if (upper1 != upper2) {
+            return upper1 ? -1 : 1;
+        }
+        // Same half plane: the cross product tells which one comes first
+        double crossProduct = x1 * y2 - y1 * x2;
+        if (crossProduct > 0) {
+            return -1;
+        } else if (crossProduct < 0) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
     public static double normalizeAngle(double angle) {
         if (angle < 0) {
             return 2 * Math.PI + angle;
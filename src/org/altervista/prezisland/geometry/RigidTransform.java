@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry;
+
+/**
+ * Rigid transform of the plane: a rotation about the origin followed by a
+ * translation. The sine and cosine of the angle are cached, so that applying
+ * the transform to a point costs four multiplications.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class RigidTransform {
+
+    private double angle, cos, sin, tx, ty;
+
+    /**
+     * Create the identity transform.
+     */
+    public RigidTransform() {
+        this(0, 0, 0);
+    }
+
+    /**
+     * @param angle Rotation angle, in radians, counter-clockwise
+     * @param tx Traslation on the X axis
+     * @param ty Traslation on the Y axis
+     */
+    public RigidTransform(double angle, double tx, double ty) {
+        set(angle, tx, ty);
+    }
+
+    /**
+     * Clone constructor.
+     *
+     * @param t Transform to clone
+     */
+    public RigidTransform(RigidTransform t) {
+        angle = t.angle;
+        cos = t.cos;
+        sin = t.sin;
+        tx = t.tx;
+        ty = t.ty;
+    }
+
+    /**
+     * @param angle Rotation angle, in radians, counter-clockwise
+     * @param tx Traslation on the X axis
+     * @param ty Traslation on the Y axis
+     */
+    public void set(double angle, double tx, double ty) {
+        setAngle(angle);
+        this.tx = tx;
+        this.ty = ty;
+    }
+
+    /**
+     * @param angle Rotation angle, in radians, counter-clockwise
+     */
+    public void setAngle(double angle) {
+        this.angle = angle;
+        cos = Math.cos(angle);
+        sin = Math.sin(angle);
+    }
+
+    /**
+     * Rotate further about the translated origin, i.e. the position of the
+     * transformed shape stays the same.
+     *
+     * @param dAngle Angle to add, in radians, counter-clockwise
+     */
+    public void rotate(double dAngle) {
+        setAngle(angle + dAngle);
+    }
+
+    /**
+     * Add a traslation.
+     *
+     * @param dx Traslation on the X axis.
+     * @param dy Traslation on the Y axis.
+     */
+    public void traslate(double dx, double dy) {
+        tx += dx;
+        ty += dy;
+    }
+
+    public double getAngle() {
+        return angle;
+    }
+
+    public double getCos() {
+        return cos;
+    }
+
+    public double getSin() {
+        return sin;
+    }
+
+    public double getTraslationX() {
+        return tx;
+    }
+
+    public double getTraslationY() {
+        return ty;
+    }
+
+    /**
+     * @return The X coordinate of the transformed point (x,y)
+     */
+    public double transformX(double x, double y) {
+        return cos * x - sin * y + tx;
+    }
+
+    /**
+     * @return The Y coordinate of the transformed point (x,y)
+     */
+    public double transformY(double x, double y) {
+        return sin * x + cos * y + ty;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * A broad phase: keeps a set of polygons and finds the pairs whose bounding
+ * boxes overlap (touching counts), so that the exact tests of
+ * {@link CollisionDetection} only run on those. Polygons are identified by
+ * the handle returned by {@link #add}; handles of removed polygons may be
+ * reused.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public interface BroadPhase {
+
+    /**
+     * Add a polygon. It is taken into account from the next update.
+     *
+     * @param p Polygon to add
+     * @return The handle of the polygon
+     */
+    int add(PackedPolygon p);
+
+    /**
+     * Remove a polygon.
+     *
+     * @param handle Handle of the polygon
+     */
+    void remove(int handle);
+
+    /**
+     * @param handle Handle of a polygon
+     * @return The polygon
+     */
+    PackedPolygon getPolygon(int handle);
+
+    /**
+     * @return The number of polygons
+     */
+    int size();
+
+    /**
+     * Read the bounding boxes of the polygons again, after they moved.
+     */
+    void update();
+
+    /**
+     * Replace the content of a list with the pairs of handles of the
+     * polygons whose bounding boxes overlapped at the last update. Each pair
+     * is reported once, the smaller handle first.
+     *
+     * @param out List that receives the pairs
+     */
+    void getPairs(PairList out);
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Chan's output-sensitive convex hull, in O(n log h) time for a hull of h
+ * points. For a guess m of the hull size, the points are split into groups of
+ * m, the hull of each group is computed with the monotone chain, and the
+ * hull of the whole set is wrapped (as in Jarvis' march) for at most m steps,
+ * finding the tangent to each group's hull with a binary search. If the
+ * wrap doesn't close, m is squared and the process starts over.
+ * <p>
+ * The upper and lower chains are wrapped separately, from the leftmost to
+ * the rightmost point: the slopes from a point to the vertices of a convex
+ * chain on its right are unimodal, which keeps the tangent search a plain
+ * binary search. The result is the same as that of ConvexHull.convexHull().
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+final class ChanConvexHull {
+
+    private ChanConvexHull() {
+    }
+
+    static PackedPolygon convexHull(double[] coords, int n) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, coords[2 * i]);
+            maxX = Math.max(maxX, coords[2 * i]);
+        }
+        if (n < 3 || minX == maxX) {
+            // Degenerate: no chain goes from left to right
+            return ConvexHull.convexHull(coords, n);
+        }
+        for (int t = 1;; t++) {
+            int m = t >= 5 ? n : (int) Math.min(n, 1L << (3 << (t - 1)));
+            double[] hull = new Groups(coords, n, m).wrap(maxX);
+            if (hull != null) {
+                return new PackedPolygon(hull, hull.length / 2);
+            }
+        }
+    }
+
+    /**
+     * The points split in groups of m, and the lower and upper chains of each
+     * group's hull, both strictly increasing in x.
+     */
+    private static class Groups {
+
+        final int m, groups;
+        final double[] lower, upper;
+        final int[] lowerStart, lowerEnd, upperStart, upperEnd;
+
+        Groups(double[] coords, int n, int m) {
+            this.m = m;
+            groups = (n + m - 1) / m;
+            lower = new double[2 * n];
+            upper = new double[2 * n];
+            lowerStart = new int[groups];
+            lowerEnd = new int[groups];
+            upperStart = new int[groups];
+            upperEnd = new int[groups];
+            double[] sorted = Arrays.copyOf(coords, 2 * n), buffer = new double[2 * n];
+            int l = 0, u = 0;
+            for (int g = 0; g < groups; g++) {
+                int from = g * m, to = Math.min(n, from + m);
+                Sorting.mergeSortPoints(sorted, buffer, from, to);
+                lowerStart[g] = l;
+                upperStart[g] = u;
+                for (int i = from; i < to; i++) {
+                    double x = sorted[2 * i], y = sorted[2 * i + 1];
+                    while (l - lowerStart[g] >= 2 && cross(lower, l - 2, l - 1, x, y) <= 0) {
+                        l--;
+                    }
+                    lower[2 * l] = x;
+                    lower[2 * l + 1] = y;
+                    l++;
+                    while (u - upperStart[g] >= 2 && cross(upper, u - 2, u - 1, x, y) >= 0) {
+                        u--;
+                    }
+                    upper[2 * u] = x;
+                    upper[2 * u + 1] = y;
+                    u++;
+                }
+                // Keep one point per x: the lowest on the lower chain, the
+                // highest on the upper one
+                if (l - lowerStart[g] >= 2 && lower[2 * l - 2] == lower[2 * l - 4]) {
+                    l--;
+                }
+                if (u - upperStart[g] >= 2 && upper[2 * upperStart[g]] == upper[2 * upperStart[g] + 2]) {
+                    upperStart[g]++;
+                }
+                lowerEnd[g] = l;
+                upperEnd[g] = u;
+            }
+        }
+
+        /**
+         * Wrap the lower and upper chains of the hull.
+         *
+         * @return The packed hull, in counter-clockwise order; null if one of
+         * the chains has more than m points
+         */
+        double[] wrap(double maxX) {
+            double[] low = wrap(lower, lowerStart, lowerEnd, -1, maxX);
+            if (low == null) {
+                return null;
+            }
+            double[] up = wrap(upper, upperStart, upperEnd, 1, maxX);
+            if (up == null) {
+                return null;
+            }
+            // Lower chain, then upper chain backwards without the endpoints
+            // shared with the lower one
+            int ln = low.length / 2, un = up.length / 2;
+            int from = up[2 * un - 2] == low[2 * ln - 2] && up[2 * un - 1] == low[2 * ln - 1] ? un - 2 : un - 1,
+                    to = up[0] == low[0] && up[1] == low[1] ? 1 : 0;
+            double[] hull = Arrays.copyOf(low, 2 * (ln + Math.max(0, from - to + 1)));
+            int k = 2 * ln;
+            for (int i = from; i >= to; i--) {
+                hull[k++] = up[2 * i];
+                hull[k++] = up[2 * i + 1];
+            }
+            return hull;
+        }
+
+        /**
+         * Wrap a chain of the hull, starting from its leftmost point and
+         * taking at each step the point of maximum slope (minimum for the
+         * lower chain) on the right, the farthest one in case of ties.
+         *
+         * @param sign 1 for the upper chain, -1 for the lower one
+         * @return The packed chain; null if it has more than m points
+         */
+        private double[] wrap(double[] chain, int[] start, int[] end, int sign, double maxX) {
+            // Leftmost point of the chain
+            double px = Double.POSITIVE_INFINITY, py = 0;
+            for (int g = 0; g < groups; g++) {
+                double x = chain[2 * start[g]], y = chain[2 * start[g] + 1];
+                if (x < px || (x == px && sign * (y - py) > 0)) {
+                    px = x;
+                    py = y;
+                }
+            }
+            double[] out = new double[2 * Math.min(m, 64)];
+            int k = 0;
+            while (true) {
+                if (k == m) {
+                    return null;
+                }
+                if (2 * k == out.length) {
+                    out = Arrays.copyOf(out, Math.min(2 * m, 2 * out.length));
+                }
+                out[2 * k] = px;
+                out[2 * k + 1] = py;
+                k++;
+                if (px == maxX) {
+                    return Arrays.copyOf(out, 2 * k);
+                }
+                int best = -1;
+                for (int g = 0; g < groups; g++) {
+                    int c = tangent(chain, start[g], end[g], sign, px, py);
+                    if (c >= 0 && (best < 0 || isBetter(chain, best, c, sign, px, py))) {
+                        best = c;
+                    }
+                }
+                px = chain[2 * best];
+                py = chain[2 * best + 1];
+            }
+        }
+
+        /**
+         * @return The vertex of maximum slope from p (minimum for the lower
+         * chain) among those of chain[from, to) on the right of p, the
+         * farthest in case of ties; -1 if there is none
+         */
+        private static int tangent(double[] chain, int from, int to, int sign, double px, double py) {
+            // First vertex on the right of p
+            int lo = from, hi = to;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (chain[2 * mid] <= px) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == to) {
+                return -1;
+            }
+            // The slope increases while the next vertex isn't on the right of
+            // p->v, then decreases: find the first vertex where it decreases
+            hi = to - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sign * cross(px, py, chain, mid, mid + 1) >= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * @return Whether vertex c is a better next point than vertex best
+         */
+        private static boolean isBetter(double[] chain, int best, int c, int sign, double px, double py) {
+            double turn = sign * cross(px, py, chain, best, c);
+            return turn > 0 || (turn == 0 && chain[2 * c] > chain[2 * best]);
+        }
+    }
+
+    /**
+     * @return The cross product of (p2 - p1) and ((x, y) - p1), p1 and p2
+     * being points of c.
+     */
+    private static double cross(double[] c, int p1, int p2, double x, double y) {
+        return (c[2 * p2] - c[2 * p1]) * (y - c[2 * p1 + 1])
+                - (c[2 * p2 + 1] - c[2 * p1 + 1]) * (x - c[2 * p1]);
+    }
+
+    /**
+     * @return The cross product of (p1 - p) and (p2 - p), p1 and p2 being
+     * points of c.
+     */
+    private static double cross(double px, double py, double[] c, int p1, int p2) {
+        return (c[2 * p1] - px) * (c[2 * p2 + 1] - py)
+                - (c[2 * p1 + 1] - py) * (c[2 * p2] - px);
+    }
+}
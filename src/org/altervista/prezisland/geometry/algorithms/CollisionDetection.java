@@ -32,8 +32,13 @@ import org.altervista.prezisland.geometry.Geometry;
 import org.altervista.prezisland.geometry.Line;
 import org.altervista.prezisland.geometry.Line.Position;
 import static org.altervista.prezisland.geometry.Line.Position.*;
+import org.altervista.prezisland.geometry.RigidTransform;
 import org.altervista.prezisland.geometry.Segment;
+import org.altervista.prezisland.geometry.shapes.ConvexPolygon;
+import org.altervista.prezisland.geometry.shapes.EdgeTable;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
 import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.altervista.prezisland.geometry.shapes.TransformedPolygon;
 
 /**
  *
@@ -42,340 +47,296 @@ import org.altervista.prezisland.geometry.shapes.Polygon;
 public class CollisionDetection {
 
     final static double NEG_INFINITY = -100000;
+    private static final RigidTransform IDENTITY = new RigidTransform();
 
     public static Point2D.Double getPenetrationVector(final Polygon P1, final Polygon P2,
             Line d, boolean orient) {
-        // Duplicate polygons to avoid conflicts
-        Polygon P = new Polygon(P1), Q = new Polygon(P2);
-        P.normalizePointOrder();
-        Q.normalizePointOrder();
-        // Reference point for P
-        Point2D.Double x = P.getPoints().get(0);
-        x = new Point2D.Double(x.x, x.y);
-        // Reference point for Q
-        Point2D.Double y = Q.getPoints().get(0);
-        y = new Point2D.Double(y.x, y.y);
-
-        // Normalize polygons to the origin
-        P.traslate(-x.x, -x.y);
-        Q.traslate(-y.x, -y.y);
-
-        int i = -1, j = -1;
-        double max = 0, min = Double.MAX_VALUE;
-        for (int k = 0; k < P1.getPointsNumber(); k++) {
-            Point2D.Double p = P1.getPoints().get(k);
-            if (p.y > max) {
-                max = p.y;
-                i = k;
-            }
-            if (p.y < min) {
-                min = p.y;
-                j = k;
-            }
-        }
-        int pMin = j, pMax = i;
-
-        i = -1;
-        j = -1;
-        max = 0;
-        min = Double.MAX_VALUE;
-        for (int k = 0; k < P2.getPointsNumber(); k++) {
-            Point2D.Double p = P2.getPoints().get(k);
-            if (p.y > max) {
-                max = p.y;
-                i = k;
-            }
-            if (p.y < min) {
-                min = p.y;
-                j = k;
-            }
-        }
-        int qMin = j, qMax = i;
-
-        // Left shadow of P
-        Polygon lsP = getLeftShadow(P, pMax, pMin);
-        // Right shadow of Q (inverted)
-        Polygon rsiQ = getRightShadowInv(Q, qMax, qMin);
-        // Left shadow of Q
-        Polygon lsQ = getLeftShadow(Q, qMax, qMin);
-        // Right shadow of P (inverted)
-        Polygon rsiP = getRightShadowInv(P, pMax, pMin);
-        // w = y - x   <- the point to test the shadows' convolution against
-        // y = left shadow reference point
-        // x = right shadow reference point
-        Point2D.Double w1 = new Point2D.Double(y.x - x.x, y.y - x.y);
-        Point2D.Double w2 = new Point2D.Double(x.x - y.x, x.y - y.y);
+        Point2D.Double out = new Point2D.Double();
+        getPenetrationVector(P1, P2, d, orient, out);
+        return out;
+    }
 
-        // Translate direction lines so they touch the w vectors
-        Line d1 = new Line(d), d2 = new Line(d);
-        d1.traslate(w1);
-        d2.traslate(w2);
+    /**
+     * Compute the penetration vector of two convex polygons along a direction,
+     * writing the result into a Point supplied by the caller. The shadows are
+     * not materialized (see {@link ShadowChain}); to avoid any allocation,
+     * keep a {@link PenetrationEngine} and call it directly.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector
+     * @return True if a penetration was found, false otherwise.
+     */
+    public static boolean getPenetrationVector(final Polygon P1, final Polygon P2,
+            Line d, boolean orient, Point2D.Double out) {
+        // The shadows are views over P1 and P2: no copy is needed
+        return new PenetrationEngine().getPenetrationVector(P1, P2, d, orient, out);
+    }
 
-        if (orient) {
-            return penVect(lsP, rsiQ, w1, d1, orient);
-        } else {
-            return penVect(lsQ, rsiP, w2, d2, !orient);
-        }
+    /**
+     * Compute the penetration vector of two convex packed polygons along a
+     * direction, writing the result into a Point supplied by the caller.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector
+     * @return True if a penetration was found, false otherwise.
+     */
+    public static boolean getPenetrationVector(final PackedPolygon P1, final PackedPolygon P2,
+            Line d, boolean orient, Point2D.Double out) {
+        return new PenetrationEngine().getPenetrationVector(P1, P2, d, orient, out);
     }
 
     /**
-     * Algorithm to calculate the directional penetration depth between two
-     * convex polygons, based on an algorithm by Guibas and Stolfi.
+     * Compute the penetration vector of two transformed convex polygons along
+     * a direction, writing the result into a Point supplied by the caller.
+     * Neither polygon is copied nor moved, and the result is the same as for
+     * the polygons returned by {@link TransformedPolygon#toPolygon()} (see
+     * {@link PenetrationEngine#getPenetrationVector(TransformedPolygon, TransformedPolygon, Line, boolean, Point2D.Double)}).
+     * For the exact translation which makes the polygons stop overlapping see
+     * {@link #getExitTranslation(TransformedPolygon, TransformedPolygon, Line, boolean, Point2D.Double)}.
      *
-     * @param A Left shadow of a Polygon
-     * @param B Inverted right shadow of a Polygon
-     * @param w Position vector (difference between A and B's position vectors)
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
      * @param d Direction of penetration ( as a Line )
      * @param orient Orientation of the direction ray d
-     * @return Point representing the penetration vector
+     * @param out Point that receives the penetration vector
+     * @return True if a penetration was found, false otherwise.
      */
-    public static Point2D.Double penVect(Polygon A, Polygon B, Point2D.Double w, Line d,
-            boolean orient) {
-        // Loop until a shadow is reduced to a single vertex
-        while (A.getPointsNumber() > 1 && B.getPointsNumber() > 1) {
-            // Median point indexes
-            int i = (A.getPoints().size() - 1) / 2,
-                    j = (B.getPoints().size() - 1) / 2;
-            // Make sure not to go out of bounds
-            if (i == A.getPointsNumber() - 1) {
-                i--;
-            }
-            if (j == B.getPointsNumber() - 1) {
-                j--;
-            }
-            // Check if the segments starting from i and j are in slope order
-            if (Geometry.getNormalizedAngle(A.getPoints().get(i), A.getPoints().get(i + 1))
-                    > Geometry.getNormalizedAngle(B.getPoints().get(j), B.getPoints().get(j + 1))) {
-                int k = i;
-                i = j;
-                j = k;
-                Polygon C = A;
-                A = B;
-                B = C;
-            }
-            // Now assuming f and g are in slope order
-            // Calculate the displacement of f in the chain D: (Al*Bl -> f -> g -> Ah*Bh)
-            double f1X = A.getPoints().get(i).x + B.getPoints().get(j).x,
-                    f1Y = A.getPoints().get(i).y + B.getPoints().get(j).y;
+    public static boolean getPenetrationVector(final TransformedPolygon P1,
+            final TransformedPolygon P2, Line d, boolean orient, Point2D.Double out) {
+        return new PenetrationEngine().getPenetrationVector(P1, P2, d, orient, out);
+    }
 
-            double f2X = f1X + (A.getPoints().get(i + 1).x - A.getPoints().get(i).x),
-                    f2Y = f1Y + (A.getPoints().get(i + 1).y - A.getPoints().get(i).y);
+    /**
+     * Compute the penetration vector of two immutable convex polygons along a
+     * direction, writing the result into a Point supplied by the caller. The
+     * polygons are neither copied nor normalized: their metadata was computed
+     * when they were created, and the result is the same as for the polygons
+     * returned by {@link ConvexPolygon#toPolygon()} (see
+     * {@link PenetrationEngine#getPenetrationVector(ConvexPolygon, ConvexPolygon, Line, boolean, Point2D.Double)}).
+     * For the exact translation which makes the polygons stop overlapping see
+     * {@link #getExitTranslation(ConvexPolygon, ConvexPolygon, Line, boolean, Point2D.Double)}.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector
+     * @return True if a penetration was found, false otherwise.
+     */
+    public static boolean getPenetrationVector(final ConvexPolygon P1, final ConvexPolygon P2,
+            Line d, boolean orient, Point2D.Double out) {
+        return new PenetrationEngine().getPenetrationVector(P1, P2, d, orient, out);
+    }
 
-            // g1 == f2
-            double g2X = f2X + (B.getPoints().get(j + 1).x - B.getPoints().get(j).x),
-                    g2Y = f2Y + (B.getPoints().get(j + 1).y - B.getPoints().get(j).y);
+    /**
+     * Compute the exit translation of two intersecting transformed convex
+     * polygons along a direction: the exact translation along d after which
+     * P1 touches P2 without overlapping it, while any shorter translation
+     * along d leaves them overlapping. As for the penetration vector, the
+     * result points along d towards increasing x (increasing y if d is
+     * vertical), and P1 is moved by -out if orient is true, by out otherwise.
+     * <p>
+     * This is not the same query as
+     * {@link #getPenetrationVector(TransformedPolygon, TransformedPolygon, Line, boolean, Point2D.Double)}:
+     * that one follows the shadow construction of Guibas and Stolfi and may
+     * report a contact translation for polygons which do not intersect, while
+     * this one is a GJK ray cast through P1-P2 (see
+     * {@link Gjk#getExitTranslation(EdgeTable, RigidTransform, EdgeTable, RigidTransform, Line, boolean, Point2D.Double)})
+     * which gives false and (0,0) for disjoint polygons. For intersecting
+     * polygons the two vectors can differ.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of the translation ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the translation ((0,0) if the polygons do
+     * not intersect)
+     * @return True if the polygons intersect, false otherwise.
+     */
+    public static boolean getExitTranslation(final TransformedPolygon P1,
+            final TransformedPolygon P2, Line d, boolean orient, Point2D.Double out) {
+        return new Gjk().getExitTranslation(P1.getTable(), P1.getTransform(), P2.getTable(),
+                P2.getTransform(), d, orient, out);
+    }
 
-            Line lineF = new Line(f1X, f1Y, f2X, f2Y),
-                    lineG = new Line(f2X, f2Y, g2X, g2Y);
-            Segment segF = new Segment(f1X, f1Y, f2X, f2Y),
-                    segG = new Segment(f2X, f2Y, g2X, g2Y);
+    /**
+     * Compute the exit translation of two intersecting immutable convex
+     * polygons along a direction, see
+     * {@link #getExitTranslation(TransformedPolygon, TransformedPolygon, Line, boolean, Point2D.Double)}.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of the translation ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the translation ((0,0) if the polygons do
+     * not intersect)
+     * @return True if the polygons intersect, false otherwise.
+     */
+    public static boolean getExitTranslation(final ConvexPolygon P1, final ConvexPolygon P2,
+            Line d, boolean orient, Point2D.Double out) {
+        return new Gjk().getExitTranslation(P1.getEdgeTable(), IDENTITY, P2.getEdgeTable(),
+                IDENTITY, d, orient, out);
+    }
 
-            Point2D.Double f1 = new Point2D.Double(f1X, f1Y),
-                    f2 = new Point2D.Double(f2X, f2Y),
-                    g2 = new Point2D.Double(g2X, g2Y);
-            /*
-             ------------------------------------------------------------------
-             Check where the intersection lies
-             ------------------------------------------------------------------
-             */
-            Point2D.Double testF = lineF.testIntersection(d),
-                    testG = lineG.testIntersection(d);
-            Segment.Position posWF = (Segment.Position) segF.testAgainst(w),
-                    posWG = (Segment.Position) segG.testAgainst(w);
-            // testIntersection() returns a Point or null
-            if (testF != null) {
-                /*
-                 Check the position of the intersection point relative to edge f
-                 */
-                Segment.Position posF = (Segment.Position) segF.testAgainst(testF);
-                boolean intersectionValid = true;
-                if (testF.x < w.x || posWF == Segment.Position.RIGHT) {
-                    intersectionValid = false;
-                }
-                if ((d.isVertical() || (d.isOblique() && d.getSlope() > 0))
-                        && testF.y < w.y) {
-                    intersectionValid = false;
-                }
-                if (d.isOblique() && d.getSlope() < 0 && testF.y > w.y) {
-                    intersectionValid = false;
-                }
+    /**
+     * Compute the minimum translation vector of two convex polygons: the
+     * shortest translation that separates them, in any direction. The
+     * Minkowski difference P1-P2 is built in O(n+m) time (see
+     * {@link MinkowskiSum#minkowskiSumConvex(double[], int, double[], int, double[])}),
+     * and the vector is the point of its boundary closest to the origin.
+     *
+     * @param P1 First Polygon (the moving one), in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param out Point that receives the minimum translation vector: translating
+     * P1 by -out makes it touch P2. (0,0) if there is no penetration.
+     * @return True if a penetration was found, false otherwise.
+     */
+    public static boolean getMinimumTranslationVector(final Polygon P1, final Polygon P2,
+            Point2D.Double out) {
+        return getMinimumTranslationVector(new PackedPolygon(P1), new PackedPolygon(P2), out);
+    }
 
-                if (intersectionValid) {
-                    // Intersection is valid
-                    if (posF == Segment.Position.COLLIDES
-                            || posF == Segment.Position.COLLINEAR_BELOW) {
-                        // Intersection below f: g and Bh can be removed
-                        B = new Polygon(B.getPoints().subList(0, j + 1));
-                        continue;
-                    } else if (posF == Segment.Position.COLLINEAR_ABOVE) {
-                        // Intersection above f: f and Al can be removed
-                        // Drop Al and f
-                        A = new Polygon(A.getPoints().subList(i + 1, A.getPoints().size()));
-                        continue;
-                    }
-                } else {
-                    // Intersection generated from the line, not the ray: discard it.
-                }
+    /**
+     * Compute the minimum translation vector of two convex packed polygons,
+     * see {@link #getMinimumTranslationVector(Polygon, Polygon, Point2D.Double)}.
+     *
+     * @param P1 First Polygon (the moving one), in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param out Point that receives the minimum translation vector: translating
+     * P1 by -out makes it touch P2. (0,0) if there is no penetration.
+     * @return True if a penetration was found, false otherwise.
+     */
+    public static boolean getMinimumTranslationVector(final PackedPolygon P1,
+            final PackedPolygon P2, Point2D.Double out) {
+        int n1 = P1.getPointsNumber(), n2 = P2.getPointsNumber();
+        // -P2 is still counter-clockwise
+        double[] c2 = P2.getCoords(), reflected = new double[2 * n2];
+        for (int i = 0; i < 2 * n2; i++) {
+            reflected[i] = -c2[i];
+        }
+        double[] diff = new double[2 * (n1 + n2)];
+        int n = MinkowskiSum.mergeEdges(P1.getCoords(), null, n1, P1.getStartIndex(),
+                reflected, n2, MinkowskiSum.getStartIndex(reflected, n2), diff, 0);
+        out.setLocation(0, 0);
+        if (n < 3) {
+            return false;
+        }
+        // The polygons overlap iff the origin lies strictly inside P1-P2; its
+        // nearest boundary point is the foot of the perpendicular on the
+        // nearest edge line
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            double x0 = diff[2 * i], y0 = diff[2 * i + 1];
+            double ex = diff[2 * j] - x0, ey = diff[2 * j + 1] - y0;
+            double len2 = ex * ex + ey * ey;
+            if (len2 == 0) {
+                continue;
             }
-            if (testG != null) {
-                /*
-                 Check the position of the intersection point relative to edge g
-                 */
-                Segment.Position posG = (Segment.Position) segG.testAgainst(testG);
-                boolean intersectionValid = true;
-                if (testG.x < w.x || posWG == Segment.Position.RIGHT) {
-                    intersectionValid = false;
-                }
-                if ((d.isVertical() || (d.isOblique() && d.getSlope() > 0))
-                        && testG.y < w.y) {
-                    intersectionValid = false;
-                }
-                if (d.isOblique() && d.getSlope() < 0 && testG.y > w.y) {
-                    intersectionValid = false;
-                }
-
-                if (intersectionValid) {
-                    // Intersection is valid
-                    if (posG == Segment.Position.COLLIDES
-                            || posG == Segment.Position.COLLINEAR_ABOVE) {
-                        // Intersection above g: f and Al can be removed
-                        // Drop Al and f
-                        A = new Polygon(A.getPoints().subList(i + 1, A.getPoints().size()));
-                        continue;
-                    } else if (posG == Segment.Position.COLLINEAR_BELOW) {
-                        // Intersection below g: g and Bh can be removed
-                        B = new Polygon(B.getPoints().subList(0, j + 1));
-                        continue;
-                    }
-                } else {
-                    // Intersection generated from the line, not the ray: discard it.
-                }
+            // Cross product of the edge and the origin, relative to the edge
+            double cross = ey * x0 - ex * y0;
+            if (cross <= 0) {
+                out.setLocation(0, 0);
+                return false;
             }
-
-            // No valid intersection
-            // Use information on d to choose what to drop
-            if (d.isVertical()) {
-                if (orient) {
-                    // Drop Al and f
-                    A = new Polygon(A.getPoints().subList(i + 1, A.getPoints().size()));
-                    continue;
-                } else {
-                    B = new Polygon(B.getPoints().subList(0, j + 1));
-                    continue;
-                }
-            } else if (d.isHorizontal()) {
-                if (d.calculateY(0) > f1.y) {
-                    A = new Polygon(A.getPoints().subList(i + 1, A.getPoints().size()));
-                    continue;
-                } else {
-                    // Drop Bh and g
-                    B = new Polygon(B.getPoints().subList(0, j + 1));
-                    continue;
-                }
-            } else {
-                // d is oblique
-                if (d.getSlope() > 0) {
-                    // Drop Al and f
-                    A = new Polygon(A.getPoints().subList(i + 1, A.getPoints().size()));
-                    continue;
-                } else {
-                    // Drop Bh and g
-                    B = new Polygon(B.getPoints().subList(0, j + 1));
-                    continue;
-                }
+            double dist = cross * cross / len2;
+            if (dist < best) {
+                best = dist;
+                out.setLocation(cross * ey / len2, -cross * ex / len2);
             }
+        }
+        return true;
+    }
 
-        }// End while loop
+    /**
+     * Test whether two convex polygons intersect (touching counts), using the
+     * GJK algorithm (see {@link Gjk}). Much cheaper than computing a
+     * penetration vector.
+     *
+     * @param P1 First Polygon, in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @return Whether P1 and P2 intersect
+     */
+    public static boolean intersects(final Polygon P1, final Polygon P2) {
+        return new Gjk().intersects(P1, P2);
+    }
 
-        // One shadow is reduced to one vertex v, check the other one against w-v
-        if (A.getPointsNumber() == 1) {
-            w.setLocation(w.x - A.getPoints().get(0).x, w.y - A.getPoints().get(0).y);
-            A = B;
-        } else if (B.getPointsNumber() == 1) {
-            w.setLocation(w.x - B.getPoints().get(0).x, w.y - B.getPoints().get(0).y);
-        } else {
-            throw new RuntimeException("Impossible? Shadows not reduced to one vertex.");
-        }
-        d.traslate(w);
+    /**
+     * Compute the distance between two convex polygons, using the GJK
+     * algorithm (see {@link Gjk}).
+     *
+     * @param P1 First Polygon, in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @return The distance between P1 and P2, 0 if they intersect
+     */
+    public static double distance(final Polygon P1, final Polygon P2) {
+        return new Gjk().distance(P1, P2, null);
+    }
 
-        // Binary search in the remaining shadow
-        int i;
-        // Make sure not to go out of bounds        
-        while (A.getPointsNumber() >= 2) {
-            i = (A.getPointsNumber() - 1) / 2;
-            if (i == A.getPointsNumber() - 1) {
-                i--;
-            }
-            Point2D.Double e1 = A.getPoints().get(i), e2 = A.getPoints().get(i + 1);
-            Line l = new Line(e1, e2);
-            Segment e = new Segment(e1, e2);
+    /**
+     * Test whether two transformed convex polygons intersect (touching
+     * counts), using the GJK algorithm (see {@link Gjk}).
+     *
+     * @param P1 First Polygon
+     * @param P2 Second Polygon
+     * @return Whether P1 and P2 intersect
+     */
+    public static boolean intersects(final TransformedPolygon P1, final TransformedPolygon P2) {
+        return new Gjk().intersects(P1, P2);
+    }
 
-            Point2D.Double testE = l.testIntersection(d);
-            Segment.Position posE = (Segment.Position) e.testAgainst(testE),
-                    posWE = (Segment.Position) e.testAgainst(w);
+    /**
+     * Test whether two immutable convex polygons intersect (touching counts),
+     * using the GJK algorithm (see {@link Gjk}).
+     *
+     * @param P1 First Polygon
+     * @param P2 Second Polygon
+     * @return Whether P1 and P2 intersect
+     */
+    public static boolean intersects(final ConvexPolygon P1, final ConvexPolygon P2) {
+        return new Gjk().intersects(P1, P2);
+    }
 
-            boolean intersectionValid = true;
-            if (testE.x < w.x || posWE == Segment.Position.RIGHT) {
-                intersectionValid = false;
-            }
-            if ((d.isVertical() || (d.isOblique() && d.getSlope() > 0))
-                    && testE.y < w.y) {
-                intersectionValid = false;
-            }
-            if (d.isOblique() && d.getSlope() < 0 && testE.y > w.y) {
-                intersectionValid = false;
-            }
-            if (intersectionValid) {
-                if (posE == Segment.Position.COLLIDES) {
-                    Point2D.Double out = new Point2D.Double(testE.x - w.x, testE.y - w.y);
-                    return out;
-                } else if (posE == Segment.Position.COLLINEAR_BELOW) {
-                    A = new Polygon(A.getPoints().subList(0, i));
-                    i = A.getPointsNumber() / 2;
-                } else if (posE == Segment.Position.COLLINEAR_ABOVE) {
-                    A = new Polygon(A.getPoints().subList(i, A.getPointsNumber() - 1));
-                    i = A.getPointsNumber() / 2;
-                } else {
-                    System.err.println("Anomalous state: position = " + posE);
-                }
-            } else {
-                // Intersection for e invalid.
-                // Use info on d to choose what to drop
-                if (d.isVertical()) {
-                    if (orient) {
-                        A = new Polygon(A.getPoints().subList(i, A.getPointsNumber() - 1));
-                        i = A.getPointsNumber() / 2;
-                    } else {
-                        A = new Polygon(A.getPoints().subList(0, i));
-                        i = A.getPointsNumber() / 2;
-                    }
-                } else if (d.isHorizontal()) {
-                    if (d.calculateY(0) > e1.y) {
-                        A = new Polygon(A.getPoints().subList(i, A.getPointsNumber() - 1));
-                        i = A.getPointsNumber() / 2;
-                    } else {
-                        // Drop Bh and g
-                        A = new Polygon(A.getPoints().subList(0, i));
-                        i = A.getPointsNumber() / 2;
-                    }
-                } else {
-                    // d is oblique
-                    if (d.getSlope() > 0) {
-                        // Drop Al and f
-                        A = new Polygon(A.getPoints().subList(i, A.getPointsNumber() - 1));
-                        i = A.getPointsNumber() / 2;
-                    } else {
-                        // Drop Bh and g
-                        A = new Polygon(A.getPoints().subList(0, i));
-                        i = A.getPointsNumber() / 2;
-                    }
-                }
-            }
-        }
+    /**
+     * Compute the time of impact of two convex polygons, using a ray cast
+     * against their Minkowski difference (see {@link Gjk}).
+     *
+     * @param P1 Moving Polygon, in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param dx X component of the displacement of P1 relative to P2
+     * @param dy Y component of the displacement of P1 relative to P2
+     * @return The earliest t in [0,1] such that P1 translated by t*(dx,dy)
+     * touches P2, 0 if they intersect, -1 if they do not touch
+     */
+    public static double getTimeOfImpact(final Polygon P1, final Polygon P2, double dx,
+            double dy) {
+        return new Gjk().timeOfImpact(P1, P2, dx, dy);
+    }
 
-        // None of the above cases triggered
-        // No intersection: null penetration.
-        return new Point2D.Double(0, 0);
+    /**
+     * Algorithm to calculate the directional penetration depth between two
+     * convex polygons, based on an algorithm by Guibas and Stolfi. The
+     * computation is carried out by a {@link PenetrationEngine}; the arguments
+     * are not modified.
+     *
+     * @param A Left shadow of a Polygon
+     * @param B Inverted right shadow of a Polygon
+     * @param w Position vector (difference between A and B's position vectors)
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @return Point representing the penetration vector
+     */
+    public static Point2D.Double penVect(Polygon A, Polygon B, Point2D.Double w, Line d,
+            boolean orient) {
+        Point2D.Double out = new Point2D.Double();
+        new PenetrationEngine().penetrationVector(A, B, w, d, orient, out);
+        return out;
     }
 
     public static void step(GeomGUI gui) {
@@ -1297,6 +1258,16 @@ public class CollisionDetection {
         //     return 0;
     }
 
+    /**
+     * Build the left shadow of a Polygon as a new Polygon. This costs O(n)
+     * time and memory and is meant for drawing; queries use
+     * {@link ShadowChain} views instead.
+     *
+     * @param P Polygon, translated so that its reference point is the origin
+     * @param max Index of the vertex with maximum y
+     * @param min Index of the vertex with minimum y
+     * @return The left shadow of P
+     */
     public static Polygon getLeftShadow(Polygon P, int max, int min) {
         // use the Polygon constructor to clone the points
         Polygon P2 = new Polygon(P);
@@ -1321,6 +1292,16 @@ public class CollisionDetection {
         return new Polygon(ptsR);
     }
 
+    /**
+     * Build the inverted right shadow of a Polygon as a new Polygon. This
+     * costs O(n) time and memory and is meant for drawing; queries use
+     * {@link ShadowChain} views instead.
+     *
+     * @param P Polygon, translated so that its reference point is the origin
+     * @param max Index of the vertex with maximum y
+     * @param min Index of the vertex with minimum y
+     * @return The inverted right shadow of P
+     */
     public static Polygon getRightShadowInv(Polygon P, int max, int min) {
         // use the Polygon constructor to clone the points      
         Polygon P2 = new Polygon(P);
@@ -0,0 +1,300 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+
+/**
+ * Decomposition of simple polygons into convex pieces. The polygon is
+ * triangulated by ear clipping, in O(n^2) time, and the diagonals of the
+ * triangulation are then removed whenever the two pieces they separate
+ * merge into a convex one (Hertel-Mehlhorn): the result has at most four
+ * times the minimum number of pieces.
+ * <p>
+ * Decompositions of Polygons are cached by identity, since Polygon doesn't
+ * override equals(): a polygon that is modified (e.g. translated) must be
+ * invalidated.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class ConvexDecomposition {
+
+    private static final Map<Polygon, List<PackedPolygon>> CACHE
+            = Collections.synchronizedMap(new WeakHashMap<Polygon, List<PackedPolygon>>());
+
+    private ConvexDecomposition() {
+    }
+
+    /**
+     * Get the convex pieces of a polygon, from the cache if it has already
+     * been decomposed.
+     *
+     * @param p Simple polygon
+     * @return Convex polygons, in counter-clockwise order, covering p; the
+     * list must not be modified
+     */
+    public static List<PackedPolygon> getDecomposition(Polygon p) {
+        List<PackedPolygon> pieces = CACHE.get(p);
+        if (pieces == null) {
+            PackedPolygon packed = new PackedPolygon(p);
+            pieces = Collections.unmodifiableList(decompose(packed.getCoords(), packed.getPointsNumber()));
+            CACHE.put(p, pieces);
+        }
+        return pieces;
+    }
+
+    /**
+     * Remove a polygon from the cache, after it has been modified.
+     *
+     * @param p A polygon
+     */
+    public static void invalidate(Polygon p) {
+        CACHE.remove(p);
+    }
+
+    /**
+     * Decompose a simple polygon given as packed coordinates (x0, y0, x1,
+     * y1, ...) into convex pieces. Clockwise polygons are accepted too.
+     *
+     * @param coords Coordinates of the polygon
+     * @param n Number of vertices
+     * @return Convex polygons, in counter-clockwise order, covering the
+     * polygon
+     */
+    public static List<PackedPolygon> decompose(double[] coords, int n) {
+        double[] c = coords;
+        if (signedArea(coords, n) < 0) {
+            c = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                c[2 * i] = coords[2 * (n - 1 - i)];
+                c[2 * i + 1] = coords[2 * (n - 1 - i) + 1];
+            }
+        }
+        if (n < 4) {
+            List<PackedPolygon> result = new ArrayList<>(1);
+            result.add(new PackedPolygon(Arrays.copyOf(c, 2 * n)));
+            return result;
+        }
+        List<int[]> triangles = new ArrayList<>();
+        List<int[]> diagonals = new ArrayList<>();
+        triangulate(c, n, triangles, diagonals);
+        List<List<Integer>> pieces = merge(c, triangles, diagonals);
+
+        List<PackedPolygon> result = new ArrayList<>(pieces.size());
+        for (List<Integer> piece : pieces) {
+            double[] pc = new double[2 * piece.size()];
+            for (int i = 0; i < piece.size(); i++) {
+                pc[2 * i] = c[2 * piece.get(i)];
+                pc[2 * i + 1] = c[2 * piece.get(i) + 1];
+            }
+            result.add(new PackedPolygon(pc));
+        }
+        return result;
+    }
+
+    /**
+     * Ear clipping of a counter-clockwise polygon. Each clipped ear
+     * (prev, i, next) is a triangle, and (prev, next) a diagonal, except for
+     * the last one.
+     */
+    private static void triangulate(double[] c, int n, List<int[]> triangles, List<int[]> diagonals) {
+        int[] prev = new int[n], next = new int[n];
+        for (int i = 0; i < n; i++) {
+            prev[i] = i == 0 ? n - 1 : i - 1;
+            next[i] = i == n - 1 ? 0 : i + 1;
+        }
+        int remaining = n, i = 0, failures = 0;
+        while (remaining > 3) {
+            int a = prev[i], b = next[i];
+            double turn = cross(c, a, i, b);
+            boolean clip = turn > 0 && isEar(c, prev, next, a, i, b);
+            if (!clip && failures > remaining) {
+                // No ear left: drop a collinear vertex, or give up on a
+                // non-simple polygon and clip anyway
+                clip = turn <= 0 || failures > 2 * remaining;
+            }
+            if (clip) {
+                if (turn != 0) {
+                    triangles.add(new int[]{a, i, b});
+                    diagonals.add(new int[]{a, b});
+                }
+                next[a] = b;
+                prev[b] = a;
+                remaining--;
+                failures = 0;
+                i = a;
+            } else {
+                failures++;
+                i = b;
+            }
+        }
+        if (cross(c, prev[i], i, next[i]) != 0) {
+            triangles.add(new int[]{prev[i], i, next[i]});
+        } else if (!diagonals.isEmpty()) {
+            // The last diagonal doesn't separate two triangles
+            diagonals.remove(diagonals.size() - 1);
+        }
+    }
+
+    /**
+     * @return Whether no other vertex of the polygon lies inside or on the
+     * triangle (a, i, b).
+     */
+    private static boolean isEar(double[] c, int[] prev, int[] next, int a, int i, int b) {
+        for (int j = next[b]; j != a; j = next[j]) {
+            // Only reflex vertices can be inside an ear
+            if (cross(c, prev[j], j, next[j]) > 0) {
+                continue;
+            }
+            if (sameCoords(c, j, a) || sameCoords(c, j, i) || sameCoords(c, j, b)) {
+                continue;
+            }
+            if (cross(c, a, i, j) >= 0 && cross(c, i, b, j) >= 0 && cross(c, b, a, j) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hertel-Mehlhorn: remove the diagonals whose endpoints stay convex in
+     * the merged piece.
+     */
+    private static List<List<Integer>> merge(double[] c, List<int[]> triangles, List<int[]> diagonals) {
+        int t = triangles.size();
+        List<List<Integer>> pieces = new ArrayList<>(t);
+        int[] parent = new int[t];
+        // Piece on the left of each directed edge, as a triangle index
+        Map<Long, Integer> edgeOwner = new HashMap<>();
+        for (int k = 0; k < t; k++) {
+            int[] tri = triangles.get(k);
+            List<Integer> piece = new ArrayList<>(3);
+            for (int v = 0; v < 3; v++) {
+                piece.add(tri[v]);
+                edgeOwner.put(edgeKey(tri[v], tri[(v + 1) % 3]), k);
+            }
+            pieces.add(piece);
+            parent[k] = k;
+        }
+        for (int[] d : diagonals) {
+            Integer pi = edgeOwner.get(edgeKey(d[0], d[1])), qi = edgeOwner.get(edgeKey(d[1], d[0]));
+            if (pi == null || qi == null) {
+                continue;
+            }
+            int p = find(parent, pi), q = find(parent, qi);
+            if (p == q) {
+                continue;
+            }
+            List<Integer> merged = join(pieces.get(p), pieces.get(q), d[0], d[1]);
+            if (merged != null && isConvex(c, merged)) {
+                parent[q] = p;
+                pieces.set(p, merged);
+                pieces.set(q, null);
+            }
+        }
+        List<List<Integer>> result = new ArrayList<>();
+        for (List<Integer> piece : pieces) {
+            if (piece != null) {
+                result.add(piece);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Join two pieces sharing the edge a-b (a->b in p, b->a in q).
+     *
+     * @return The merged piece, in counter-clockwise order; null if the edge
+     * isn't shared
+     */
+    private static List<Integer> join(List<Integer> p, List<Integer> q, int a, int b) {
+        int pa = p.indexOf(a), qb = q.indexOf(b);
+        if (pa < 0 || qb < 0 || p.get((pa + 1) % p.size()) != b || q.get((qb + 1) % q.size()) != a) {
+            return null;
+        }
+        List<Integer> merged = new ArrayList<>(p.size() + q.size() - 2);
+        // p from b around to a, then q strictly between a and b
+        for (int k = 1; k <= p.size(); k++) {
+            merged.add(p.get((pa + k) % p.size()));
+        }
+        for (int k = 2; k < q.size(); k++) {
+            merged.add(q.get((qb + k) % q.size()));
+        }
+        return merged;
+    }
+
+    private static boolean isConvex(double[] c, List<Integer> piece) {
+        int m = piece.size();
+        for (int k = 0; k < m; k++) {
+            if (cross(c, piece.get((k + m - 1) % m), piece.get(k), piece.get((k + 1) % m)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int find(int[] parent, int k) {
+        while (parent[k] != k) {
+            parent[k] = parent[parent[k]];
+            k = parent[k];
+        }
+        return k;
+    }
+
+    private static long edgeKey(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    private static boolean sameCoords(double[] c, int i, int j) {
+        return c[2 * i] == c[2 * j] && c[2 * i + 1] == c[2 * j + 1];
+    }
+
+    /**
+     * @return Twice the signed area of the polygon, positive if it is
+     * counter-clockwise.
+     */
+    static double signedArea(double[] c, int n) {
+        double area = 0;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += c[2 * j] * c[2 * i + 1] - c[2 * i] * c[2 * j + 1];
+        }
+        return area;
+    }
+
+    /**
+     * Same as ConvexHull.isLeftTurn(), returning the cross product.
+     */
+    private static double cross(double[] c, int p1, int p2, int p3) {
+        return (c[2 * p2] - c[2 * p1]) * (c[2 * p3 + 1] - c[2 * p1 + 1])
+                - (c[2 * p2 + 1] - c[2 * p1 + 1]) * (c[2 * p3] - c[2 * p1]);
+    }
+}
@@ -25,95 +25,481 @@ package org.altervista.prezisland.geometry.algorithms;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import org.altervista.prezisland.geometry.Geometry;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
 
 /**
+ * Convex hull algorithms. Hulls are computed with Andrew's monotone chain
+ * algorithm, a variant of Graham's scan working on x-sorted points, and are
+ * returned in counter-clockwise order starting from the x-lexicographically
+ * smallest point. Collinear points are not part of the hull.
+ * <p>
+ * Packed inputs can also be handled by other algorithms, all giving the same
+ * result; they are available as {@link HullStrategy} constants.
  *
  * @author EPresident <prez_enquiry@hotmail.com>
  */
 public class ConvexHull {
 
+    /**
+     * Monotone chain on all the points, in O(n log n) time.
+     */
+    public static final HullStrategy MONOTONE_CHAIN = ConvexHull::convexHull;
+    /**
+     * Monotone chain after the Akl-Toussaint prefilter, see
+     * {@link #discardInteriorPoints}.
+     */
+    public static final HullStrategy AKL_TOUSSAINT = (coords, n) -> convexHull(coords, n, true);
+    /**
+     * Divide and conquer on the common ForkJoinPool, see
+     * {@link #parallelConvexHull(double[], int)}.
+     */
+    public static final HullStrategy PARALLEL = ConvexHull::parallelConvexHull;
+    /**
+     * Chan's algorithm, in O(n log h) time, see
+     * {@link #chanConvexHull(double[], int)}.
+     */
+    public static final HullStrategy CHAN = ConvexHull::chanConvexHull;
+    /**
+     * The strategy chosen by {@link #selectStrategy(double[], int)}.
+     */
+    public static final HullStrategy AUTO = (coords, n) -> selectStrategy(coords, n).convexHull(coords, n);
+    /**
+     * Inputs smaller than this are always handled with MONOTONE_CHAIN.
+     */
+    static final int SMALL_INPUT = 1 << 12;
+    /**
+     * Number of points sampled by selectStrategy().
+     */
+    static final int SAMPLE_SIZE = 1 << 10;
+
+    /**
+     * Receives the steps of a hull computation, for tracing and debugging.
+     * Indices refer to the sorted input points.
+     */
+    public interface HullListener {
+
+        /**
+         * A point has been pushed on the hull.
+         *
+         * @param index Index of the point
+         * @param size Size of the hull after the push
+         */
+        void pointAdded(int index, int size);
+
+        /**
+         * A point has been popped from the hull.
+         *
+         * @param index Index of the point
+         * @param size Size of the hull after the pop
+         */
+        void pointRemoved(int index, int size);
+    }
+
+    /**
+     * Compute the convex hull of a list of points. The list is sorted in
+     * x-lexicographic order as a side effect.
+     *
+     * @param pts Set of points
+     * @return The points of the hull, in counter-clockwise order; an empty
+     * list if there are less than 3 points.
+     */
     public static ArrayList<Point2D.Double> grahamConvexHull(List<Point2D.Double> pts) {
+        return grahamConvexHull(pts, null);
+    }
+
+    /**
+     * Compute the convex hull of a list of points, reporting each step to a
+     * listener. The list is sorted in x-lexicographic order as a side effect.
+     *
+     * @param pts Set of points
+     * @param listener Listener, or null
+     * @return The points of the hull, in counter-clockwise order; an empty
+     * list if there are less than 3 points.
+     */
+    public static ArrayList<Point2D.Double> grahamConvexHull(List<Point2D.Double> pts,
+            HullListener listener) {
         if (pts.size() < 3) {
             return new ArrayList<>();
         }
         Geometry.sortLexicographicallyX(pts);
-        System.out.println("pts");
+        int n = pts.size();
+        double[] coords = new double[2 * n];
+        int k = 0;
         for (Point2D.Double p : pts) {
-            System.out.print(p + ";");
+            coords[k++] = p.x;
+            coords[k++] = p.y;
         }
-        System.out.println("");
-        // FIXME error check
-        for (int i = 1; i < pts.size(); i++) {
-            if (pts.get(i - 1).x > pts.get(i).x) {
-                System.err.println("Lexico sort error.");
-            }
+        int[] indices = new int[n + 1];
+        int size = monotoneChain(coords, n, indices, listener);
+        ArrayList<Point2D.Double> hull = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hull.add(pts.get(indices[i]));
         }
-        ArrayList<Point2D.Double> hull = new ArrayList<>();
+        return hull;
+    }
 
-        lowerHull(pts, hull);
-        System.out.println("lh");
-        for (Point2D.Double p : hull) {
-            System.out.print(p + ";");
+    /**
+     * Compute the convex hull of a list of points, optionally discarding the
+     * points inside the Akl-Toussaint octagon first (see
+     * {@link #discardInteriorPoints}). With the prefilter, only the surviving
+     * points are sorted and pts is not modified.
+     *
+     * @param pts Set of points
+     * @param prefilter Whether to discard interior points before sorting
+     * @return The points of the hull, in counter-clockwise order; an empty
+     * list if there are less than 3 points.
+     */
+    public static ArrayList<Point2D.Double> grahamConvexHull(List<Point2D.Double> pts,
+            boolean prefilter) {
+        if (!prefilter || pts.size() < 3) {
+            return grahamConvexHull(pts, null);
+        }
+        double[] coords = new double[2 * pts.size()];
+        int k = 0;
+        for (Point2D.Double p : pts) {
+            coords[k++] = p.x;
+            coords[k++] = p.y;
         }
-        System.out.println("");
-        upperHull(pts, hull);
-        System.out.println("uh");
-        for (Point2D.Double p : hull) {
-            System.out.print(p + ";");
+        double[] octagon = octagon(coords, pts.size());
+        ArrayList<Point2D.Double> survivors = new ArrayList<>();
+        for (Point2D.Double p : pts) {
+            if (!isInside(octagon, p.x, p.y)) {
+                survivors.add(p);
+            }
         }
-        System.out.println("");
-        return hull;
+        return grahamConvexHull(survivors, null);
     }
 
-    private static void lowerHull(List<Point2D.Double> pts, ArrayList<Point2D.Double> hull) {
-        int n = pts.size();
+    /**
+     * Compute the convex hull of the vertices of a packed polygon.
+     *
+     * @param pts Set of points
+     * @return The convex hull of pts, in counter-clockwise order
+     */
+    public static PackedPolygon grahamConvexHull(PackedPolygon pts) {
+        return convexHull(pts.getCoords(), pts.getPointsNumber());
+    }
+
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...). The
+     * input array is not modified.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @return The convex hull, in counter-clockwise order
+     */
+    public static PackedPolygon convexHull(double[] coords, int n) {
+        double[] sorted = Arrays.copyOf(coords, 2 * n);
+        int[] indices = new int[n + 1];
+        int size = convexHull(sorted, n, indices);
+        return new PackedPolygon(gather(sorted, indices, size), size);
+    }
 
-        hull.add(pts.get(0));
-        hull.add(pts.get(1));
-        System.out.println("lh1");
-        for (Point2D.Double p : hull) {
-            System.out.print(p + ";");
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...),
+     * optionally discarding the points inside the Akl-Toussaint octagon first
+     * (see {@link #discardInteriorPoints}). The input array is not modified.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @param prefilter Whether to discard interior points before sorting
+     * @return The convex hull, in counter-clockwise order
+     */
+    public static PackedPolygon convexHull(double[] coords, int n, boolean prefilter) {
+        double[] sorted = Arrays.copyOf(coords, 2 * n);
+        if (prefilter) {
+            n = discardInteriorPoints(sorted, n);
         }
-        System.out.println("");
-        for (int i = 2; i < n; i++) {
+        int[] indices = new int[n + 1];
+        int size = convexHull(sorted, n, indices);
+        return new PackedPolygon(gather(sorted, indices, size), size);
+    }
 
-            int j = hull.size() - 1;
+    /**
+     * Akl-Toussaint heuristic: find the extreme points of the set along x, y,
+     * x+y and x-y, and discard every point strictly inside the octagon they
+     * form, since it cannot be a vertex of the hull. On uniform or clustered
+     * data this removes most of the points in a single linear pass, before the
+     * O(n log n) sort.
+     * <p>
+     * The surviving points are moved to the front of the array, keeping their
+     * relative order.
+     *
+     * @param coords Coordinates of the points, compacted as a side effect
+     * @param n Number of points
+     * @return The number of surviving points
+     */
+    public static int discardInteriorPoints(double[] coords, int n) {
+        if (n < 3) {
+            return n;
+        }
+        double[] octagon = octagon(coords, n);
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            double x = coords[2 * i], y = coords[2 * i + 1];
+            if (!isInside(octagon, x, y)) {
+                coords[2 * m] = x;
+                coords[2 * m + 1] = y;
+                m++;
+            }
+        }
+        return m;
+    }
 
-            while ((j > 0) && !Geometry.isLeftTurn(hull.get(j - 1), hull.get(j), pts.get(i))) {
-                hull.remove(j);
-                j = j - 1;
-                System.out.println("lh1_rem");
-                for (Point2D.Double p : hull) {
-                    System.out.print(p + ";");
-                }
-                System.out.println("");
+    /**
+     * Compute the Akl-Toussaint octagon of a set of points: its vertices are
+     * the extreme points along x, y, x+y and x-y, in counter-clockwise order
+     * and without repetitions. Each edge is stored as its origin and direction
+     * (x, y, dx, dy); the array length gives the number of edges.
+     */
+    static double[] octagon(double[] c, int n) {
+        // Extremes in counter-clockwise order: min x, min x+y, min y,
+        // max x-y, max x, max x+y, max y, min x-y
+        int[] ext = new int[8];
+        for (int i = 1; i < n; i++) {
+            double x = c[2 * i], y = c[2 * i + 1];
+            if (x < c[2 * ext[0]]) {
+                ext[0] = i;
+            }
+            if (x + y < c[2 * ext[1]] + c[2 * ext[1] + 1]) {
+                ext[1] = i;
+            }
+            if (y < c[2 * ext[2] + 1]) {
+                ext[2] = i;
+            }
+            if (x - y > c[2 * ext[3]] - c[2 * ext[3] + 1]) {
+                ext[3] = i;
+            }
+            if (x > c[2 * ext[4]]) {
+                ext[4] = i;
+            }
+            if (x + y > c[2 * ext[5]] + c[2 * ext[5] + 1]) {
+                ext[5] = i;
+            }
+            if (y > c[2 * ext[6] + 1]) {
+                ext[6] = i;
             }
-            hull.add(pts.get(i));
-            System.out.println("lh1_add");
-            for (Point2D.Double p : hull) {
-                System.out.print(p + ";");
+            if (x - y < c[2 * ext[7]] - c[2 * ext[7] + 1]) {
+                ext[7] = i;
             }
-            System.out.println("");
         }
+        double[] vertices = new double[16];
+        int m = 0;
+        for (int e = 0; e < 8; e++) {
+            double x = c[2 * ext[e]], y = c[2 * ext[e] + 1];
+            if (m == 0 || x != vertices[2 * m - 2] || y != vertices[2 * m - 1]) {
+                vertices[2 * m] = x;
+                vertices[2 * m + 1] = y;
+                m++;
+            }
+        }
+        // The last extreme may coincide with the first one
+        if (m > 1 && vertices[0] == vertices[2 * m - 2] && vertices[1] == vertices[2 * m - 1]) {
+            m--;
+        }
+        double[] edges = new double[4 * m];
+        for (int i = 0; i < m; i++) {
+            int j = (i + 1) % m;
+            edges[4 * i] = vertices[2 * i];
+            edges[4 * i + 1] = vertices[2 * i + 1];
+            edges[4 * i + 2] = vertices[2 * j] - vertices[2 * i];
+            edges[4 * i + 3] = vertices[2 * j + 1] - vertices[2 * i + 1];
+        }
+        return edges;
+    }
+
+    /**
+     * @return Whether the point is strictly on the left of every edge of the
+     * octagon, using the same cross product as isLeftTurn(). A degenerate
+     * octagon (less than 3 vertices) has no inside.
+     */
+    static boolean isInside(double[] octagon, double x, double y) {
+        if (octagon.length < 12) {
+            return false;
+        }
+        for (int i = 0; i < octagon.length; i += 4) {
+            if (octagon[i + 2] * (y - octagon[i + 1]) - octagon[i + 3] * (x - octagon[i]) <= 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static void upperHull(List<Point2D.Double> pts, ArrayList<Point2D.Double> hull) {
-        int n = pts.size(), k = hull.size() - 1;
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...) in place:
+     * the points are sorted in x-lexicographic order, and the indices of the
+     * hull's points in the sorted array are stored in hull.
+     *
+     * @param coords Coordinates of the points, sorted as a side effect
+     * @param n Number of points
+     * @param hull Receives the indices of the hull's points, in
+     * counter-clockwise order; must hold at least n+1 values
+     * @return The number of points of the hull
+     */
+    public static int convexHull(double[] coords, int n, int[] hull) {
+        Sorting.sortLexicographicallyX(coords, n);
+        return monotoneChain(coords, n, hull, null);
+    }
 
-        hull.add(pts.get(n - 1));
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...) on the
+     * common ForkJoinPool, see {@link ParallelConvexHull}. The input array is
+     * not modified.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @return The convex hull, in counter-clockwise order
+     */
+    public static PackedPolygon parallelConvexHull(double[] coords, int n) {
+        return ParallelConvexHull.convexHull(coords, n,
+                ParallelConvexHull.DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
 
-        for (int i = n - 3; i >= 0; i--) {
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...) on a
+     * given pool, see {@link ParallelConvexHull}. The input array is not
+     * modified.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @param threshold Inputs with at most this many points are not split
+     * @param pool Pool running the computation
+     * @return The convex hull, in counter-clockwise order
+     */
+    public static PackedPolygon parallelConvexHull(double[] coords, int n,
+            int threshold, ForkJoinPool pool) {
+        return ParallelConvexHull.convexHull(coords, n, threshold, pool);
+    }
 
-            int j = hull.size() - 1;
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...) with
+     * Chan's algorithm, see {@link ChanConvexHull}. It runs in O(n log h) time,
+     * which beats sorting all the points when the hull has a few dozens of
+     * vertices and the points can't be prefiltered. The input array is not
+     * modified.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @return The convex hull, in counter-clockwise order
+     */
+    public static PackedPolygon chanConvexHull(double[] coords, int n) {
+        return ChanConvexHull.convexHull(coords, n);
+    }
 
-            while ((j > k) && !Geometry.isLeftTurn(hull.get(j - 1), hull.get(j), pts.get(i))) {
-                hull.remove(j);
-                j = j - 1;
+    /**
+     * Choose a strategy for computing the hull of a set of points. Small
+     * inputs are sorted right away; for the others a sample of SAMPLE_SIZE
+     * points estimates how many points the Akl-Toussaint prefilter would keep
+     * and how large the hull is:
+     * <ul>
+     * <li>if the prefilter discards at least a quarter of the sample,
+     * AKL_TOUSSAINT, which is the fastest in most cases;</li>
+     * <li>else, if many sampled points lie on their hull, the points are close
+     * to convex position and only sorting them all helps: PARALLEL if the
+     * input is large enough to be split and there is more than one core,
+     * MONOTONE_CHAIN otherwise;</li>
+     * <li>else, if the hull is small, CHAN;</li>
+     * <li>MONOTONE_CHAIN otherwise.</li>
+     * </ul>
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @return The strategy to use
+     */
+    public static HullStrategy selectStrategy(double[] coords, int n) {
+        if (n < SMALL_INPUT) {
+            return MONOTONE_CHAIN;
+        }
+        double[] sample = new double[2 * SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            int j = (int) ((long) i * n / SAMPLE_SIZE);
+            sample[2 * i] = coords[2 * j];
+            sample[2 * i + 1] = coords[2 * j + 1];
+        }
+        int survivors = discardInteriorPoints(sample, SAMPLE_SIZE);
+        int hull = convexHull(sample, survivors, new int[survivors + 1]);
+        if (survivors <= SAMPLE_SIZE / 4 * 3) {
+            return AKL_TOUSSAINT;
+        } else if (hull > SAMPLE_SIZE / 8) {
+            return n >= 2 * ParallelConvexHull.DEFAULT_THRESHOLD
+                    && ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL : MONOTONE_CHAIN;
+        } else if (hull <= 32) {
+            return CHAN;
+        }
+        return MONOTONE_CHAIN;
+    }
+
+    /**
+     * Andrew's monotone chain on x-lexicographically sorted packed points. The
+     * hull is built as a stack of indices: no point is copied.
+     *
+     * @param c Sorted coordinates of the points
+     * @param n Number of points
+     * @param hull Receives the indices of the hull's points, in
+     * counter-clockwise order; must hold at least n+1 values
+     * @param listener Listener, or null
+     * @return The number of points of the hull
+     */
+    static int monotoneChain(double[] c, int n, int[] hull, HullListener listener) {
+        if (n < 2) {
+            for (int i = 0; i < n; i++) {
+                hull[i] = i;
+            }
+            return n;
+        }
+        int k = 0;
+        // Lower hull
+        for (int i = 0; i < n; i++) {
+            while (k >= 2 && !isLeftTurn(c, hull[k - 2], hull[k - 1], i)) {
+                k--;
+                if (listener != null) {
+                    listener.pointRemoved(hull[k], k);
+                }
+            }
+            hull[k++] = i;
+            if (listener != null) {
+                listener.pointAdded(i, k);
             }
-            hull.add(pts.get(i));
         }
-        hull.remove(hull.size() - 1);
+        // Upper hull
+        for (int i = n - 2, lower = k + 1; i >= 0; i--) {
+            while (k >= lower && !isLeftTurn(c, hull[k - 2], hull[k - 1], i)) {
+                k--;
+                if (listener != null) {
+                    listener.pointRemoved(hull[k], k);
+                }
+            }
+            hull[k++] = i;
+            if (listener != null) {
+                listener.pointAdded(i, k);
+            }
+        }
+        // The first point has been added twice
+        return k - 1;
+    }
+
+    /**
+     * @return The coordinates of the selected points, packed.
+     */
+    static double[] gather(double[] c, int[] indices, int size) {
+        double[] out = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            out[2 * i] = c[2 * indices[i]];
+            out[2 * i + 1] = c[2 * indices[i] + 1];
+        }
+        return out;
+    }
+
+    /**
+     * Same as Geometry.isLeftTurn(), on packed points.
+     */
+    static boolean isLeftTurn(double[] c, int p1, int p2, int p3) {
+        double crossProduct = (c[2 * p2] - c[2 * p1]) * (c[2 * p3 + 1] - c[2 * p1 + 1])
+                - (c[2 * p2 + 1] - c[2 * p1 + 1]) * (c[2 * p3] - c[2 * p1]);
+        return crossProduct > 0;
     }
 }
@@ -0,0 +1,636 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Dynamic bounding volume hierarchy broad phase: a binary tree of
+ * axis-aligned boxes, with one leaf per polygon. Besides the overlapping
+ * pairs (see {@link BroadPhase}) it answers region queries and ray casts in
+ * logarithmic time, and it suits scenes where most polygons are static.
+ * <p>
+ * Each leaf holds the bounding box of its polygon enlarged by a margin. At
+ * each {@link #update()} a polygon whose box is still inside its leaf's box
+ * costs nothing; only the others are removed and inserted again, and only
+ * their pairs are looked for again. When the moving polygons are known, such
+ * as a few agents among static walls, {@link #update(int)} refits them alone.
+ * Leaves are inserted next to the sibling that enlarges the tree the least
+ * (by perimeter), and the tree is kept balanced by rotations, like an AVL
+ * tree.
+ * <p>
+ * Nodes are stored in primitive arrays and recycled through a free list, so
+ * moving polygons does not allocate. Polygons are identified by the handle
+ * returned by {@link #add}. Instances are not thread-safe.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class DynamicAabbTree implements BroadPhase {
+
+    /**
+     * Margin added to the leaves' boxes by the default constructor
+     */
+    public static final double DEFAULT_MARGIN = 2;
+
+    /**
+     * Called for each polygon found by a query.
+     */
+    public interface Visitor {
+
+        /**
+         * @param handle Handle of a polygon
+         * @return False to stop the query
+         */
+        boolean visit(int handle);
+    }
+
+    private static final int NULL = -1;
+
+    private final double margin;
+
+    // Nodes: box, links, height (0 for leaves), polygon of the leaves
+    private double[] box = new double[4 * 16];
+    private int[] parent = new int[16], left = new int[16], right = new int[16],
+            height = new int[16], leafHandle = new int[16];
+    private int root = NULL, nodes, freeNode = NULL;
+
+    // Per handle: polygon, bounding box, leaf (NULL if not in the tree yet)
+    private PackedPolygon[] shapes = new PackedPolygon[16];
+    private double[] bounds = new double[4 * 16];
+    private int[] leafOf = new int[16];
+    private boolean[] moved = new boolean[16], removed = new boolean[16];
+    private int[] free = new int[16], dropped = new int[16], movedHandles = new int[16];
+    private int freeCount, droppedCount, movedCount, handles, count;
+
+    // Pairs of polygons whose leaves overlap
+    private final PairSet pairs = new PairSet();
+    private final PairSet.Filter unmovedOrOverlapping = this::unmovedOrOverlapping,
+            boundsOverlap = this::boundsOverlap;
+    private int[] stack = new int[64];
+
+    public DynamicAabbTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * @param margin Margin added to the bounding boxes of the polygons: a
+     * polygon moving less than that costs nothing
+     */
+    public DynamicAabbTree(double margin) {
+        if (!(margin >= 0)) {
+            throw new IllegalArgumentException("Margin must not be negative: " + margin);
+        }
+        this.margin = margin;
+    }
+
+    @Override
+    public int add(PackedPolygon p) {
+        int h;
+        if (freeCount > 0) {
+            h = free[--freeCount];
+        } else {
+            h = handles++;
+            if (h == shapes.length) {
+                shapes = Arrays.copyOf(shapes, 2 * h);
+                bounds = Arrays.copyOf(bounds, 8 * h);
+                leafOf = Arrays.copyOf(leafOf, 2 * h);
+                moved = Arrays.copyOf(moved, 2 * h);
+                removed = Arrays.copyOf(removed, 2 * h);
+            }
+        }
+        shapes[h] = p;
+        leafOf[h] = NULL;
+        count++;
+        return h;
+    }
+
+    /**
+     * Remove a polygon. It is dropped from the tree at once, and from the
+     * pairs at the next query.
+     *
+     * @param handle Handle of the polygon
+     */
+    @Override
+    public void remove(int handle) {
+        if (handle < 0 || handle >= handles || shapes[handle] == null) {
+            throw new IllegalArgumentException("Invalid handle: " + handle);
+        }
+        if (leafOf[handle] != NULL) {
+            removeLeaf(leafOf[handle]);
+            freeNode(leafOf[handle]);
+            leafOf[handle] = NULL;
+        }
+        shapes[handle] = null;
+        removed[handle] = true;
+        if (droppedCount == dropped.length) {
+            dropped = Arrays.copyOf(dropped, 2 * droppedCount);
+        }
+        dropped[droppedCount++] = handle;
+        count--;
+    }
+
+    @Override
+    public PackedPolygon getPolygon(int handle) {
+        return shapes[handle];
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The height of the tree, 0 if it has a single leaf (-1 if it is
+     * empty)
+     */
+    public int getHeight() {
+        return root == NULL ? -1 : height[root];
+    }
+
+    /**
+     * Read the bounding boxes of the polygons again; refit the leaves of the
+     * polygons that left their box, and look for their pairs again.
+     */
+    @Override
+    public void update() {
+        for (int h = 0; h < handles; h++) {
+            if (shapes[h] != null) {
+                refit(h);
+            }
+        }
+        updatePairs();
+    }
+
+    /**
+     * Read the bounding box of one polygon again, and refit its leaf if the
+     * polygon left it. When only a few polygons move, calling this for each
+     * of them costs O(log n) per moved polygon, while {@link #update()}
+     * reads every polygon. The pairs are updated by the next query.
+     *
+     * @param handle Handle of the polygon
+     */
+    public void update(int handle) {
+        if (handle < 0 || handle >= handles || shapes[handle] == null) {
+            throw new IllegalArgumentException("Invalid handle: " + handle);
+        }
+        refit(handle);
+    }
+
+    @Override
+    public void getPairs(PairList out) {
+        updatePairs();
+        out.clear();
+        // The leaves overlap, but the polygons' boxes may not
+        pairs.addTo(out, boundsOverlap);
+    }
+
+    /**
+     * Find the polygons whose bounding boxes overlap a region (touching
+     * counts), as of the last update. They are visited in no particular order.
+     *
+     * @param minX Minimum x of the region
+     * @param minY Minimum y of the region
+     * @param maxX Maximum x of the region
+     * @param maxY Maximum y of the region
+     * @param visitor Visitor of the polygons found
+     */
+    public void query(double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        updatePairs();
+        if (root == NULL) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (box[4 * node] > maxX || box[4 * node + 2] < minX
+                    || box[4 * node + 1] > maxY || box[4 * node + 3] < minY) {
+                continue;
+            }
+            if (height[node] == 0) {
+                int h = leafHandle[node];
+                if (bounds[4 * h] <= maxX && minX <= bounds[4 * h + 2]
+                        && bounds[4 * h + 1] <= maxY && minY <= bounds[4 * h + 3]
+                        && !visitor.visit(h)) {
+                    return;
+                }
+            } else {
+                top = push(top, left[node], right[node]);
+            }
+        }
+    }
+
+    /**
+     * Find the polygons whose bounding boxes are crossed by a segment, from
+     * (x, y) to (x + dx * maxT, y + dy * maxT), as of the last update. They
+     * are visited in no particular order.
+     *
+     * @param x X of the origin of the ray
+     * @param y Y of the origin of the ray
+     * @param dx X component of the direction of the ray
+     * @param dy Y component of the direction of the ray
+     * @param maxT Length of the segment, in multiples of (dx, dy)
+     * @param visitor Visitor of the polygons found
+     */
+    public void rayCast(double x, double y, double dx, double dy, double maxT,
+            Visitor visitor) {
+        updatePairs();
+        if (root == NULL) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!crosses(box, 4 * node, x, y, dx, dy, maxT)) {
+                continue;
+            }
+            if (height[node] == 0) {
+                int h = leafHandle[node];
+                if (crosses(bounds, 4 * h, x, y, dx, dy, maxT) && !visitor.visit(h)) {
+                    return;
+                }
+            } else {
+                top = push(top, left[node], right[node]);
+            }
+        }
+    }
+
+    /**
+     * Find the polygons whose bounding boxes are crossed by a ray along a
+     * direction, e.g. the candidates for a penetration along d (see
+     * {@link CollisionDetection#getPenetrationVector}).
+     *
+     * @param origin Origin of the ray
+     * @param d Direction of the ray ( as a Line ): from its first point to
+     * its second one
+     * @param orient True to follow d, false for the opposite direction
+     * @param length Length of the ray
+     * @param visitor Visitor of the polygons found
+     */
+    public void rayCast(Point2D.Double origin, Line d, boolean orient, double length,
+            Visitor visitor) {
+        // (b, -a) is the vector between the points defining the line
+        double dx = d.getB(), dy = -d.getA();
+        double scale = (orient ? 1 : -1) / Math.sqrt(dx * dx + dy * dy);
+        rayCast(origin.x, origin.y, dx * scale, dy * scale, length, visitor);
+    }
+
+    /**
+     * Read the bounding box of a polygon, and insert its leaf again if the
+     * polygon left it (or if it is new).
+     */
+    private void refit(int h) {
+        PackedPolygon p = shapes[h];
+        double x0 = p.getMinX(), y0 = p.getMinY(), x1 = p.getMaxX(), y1 = p.getMaxY();
+        bounds[4 * h] = x0;
+        bounds[4 * h + 1] = y0;
+        bounds[4 * h + 2] = x1;
+        bounds[4 * h + 3] = y1;
+        int leaf = leafOf[h];
+        if (leaf != NULL) {
+            if (box[4 * leaf] <= x0 && box[4 * leaf + 1] <= y0
+                    && x1 <= box[4 * leaf + 2] && y1 <= box[4 * leaf + 3]) {
+                return;
+            }
+            removeLeaf(leaf);
+        } else {
+            leaf = allocateNode();
+            leafHandle[leaf] = h;
+            leafOf[h] = leaf;
+        }
+        box[4 * leaf] = x0 - margin;
+        box[4 * leaf + 1] = y0 - margin;
+        box[4 * leaf + 2] = x1 + margin;
+        box[4 * leaf + 3] = y1 + margin;
+        insertLeaf(leaf);
+        if (!moved[h]) {
+            moved[h] = true;
+            if (movedCount == movedHandles.length) {
+                movedHandles = Arrays.copyOf(movedHandles, 2 * movedCount);
+            }
+            movedHandles[movedCount++] = h;
+        }
+    }
+
+    /**
+     * Drop the pairs of the removed polygons and of the leaves that moved
+     * apart, and add the new pairs of the moved leaves.
+     */
+    private void updatePairs() {
+        if (droppedCount > 0) {
+            pairs.removeAll(removed);
+            for (int i = 0; i < droppedCount; i++) {
+                removed[dropped[i]] = false;
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, 2 * freeCount);
+                }
+                free[freeCount++] = dropped[i];
+            }
+            droppedCount = 0;
+        }
+        if (movedCount == 0) {
+            return;
+        }
+        pairs.retainAll(unmovedOrOverlapping);
+        for (int i = 0; i < movedCount; i++) {
+            int h = movedHandles[i];
+            // A polygon may have been removed after moving
+            if (shapes[h] != null) {
+                int leaf = leafOf[h];
+                collectPairs(h, box[4 * leaf], box[4 * leaf + 1], box[4 * leaf + 2],
+                        box[4 * leaf + 3]);
+            }
+        }
+        for (int i = 0; i < movedCount; i++) {
+            moved[movedHandles[i]] = false;
+        }
+        movedCount = 0;
+    }
+
+    /**
+     * Slab test of a segment against a box stored at offset i of an array.
+     */
+    private static boolean crosses(double[] b, int i, double x, double y, double dx,
+            double dy, double maxT) {
+        double tMin = 0, tMax = maxT;
+        for (int axis = 0; axis < 2; axis++) {
+            double o = axis == 0 ? x : y, d = axis == 0 ? dx : dy;
+            double lo = b[i + axis], hi = b[i + 2 + axis];
+            if (d == 0) {
+                if (o < lo || o > hi) {
+                    return false;
+                }
+            } else {
+                double t1 = (lo - o) / d, t2 = (hi - o) / d;
+                tMin = Math.max(tMin, Math.min(t1, t2));
+                tMax = Math.min(tMax, Math.max(t1, t2));
+                if (tMin > tMax) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the pairs of polygon h with the leaves overlapping its leaf.
+     */
+    private void collectPairs(int h, double minX, double minY, double maxX, double maxY) {
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (box[4 * node] > maxX || box[4 * node + 2] < minX
+                    || box[4 * node + 1] > maxY || box[4 * node + 3] < minY) {
+                continue;
+            }
+            if (height[node] == 0) {
+                if (leafHandle[node] != h) {
+                    pairs.add(h, leafHandle[node]);
+                }
+            } else {
+                top = push(top, left[node], right[node]);
+            }
+        }
+    }
+
+    private int push(int top, int a, int b) {
+        if (top + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, 2 * stack.length);
+        }
+        stack[top++] = a;
+        stack[top++] = b;
+        return top;
+    }
+
+    private boolean unmovedOrOverlapping(int a, int b) {
+        if (!moved[a] && !moved[b]) {
+            return true;
+        }
+        int i = 4 * leafOf[a], j = 4 * leafOf[b];
+        return box[i] <= box[j + 2] && box[j] <= box[i + 2]
+                && box[i + 1] <= box[j + 3] && box[j + 1] <= box[i + 3];
+    }
+
+    private boolean boundsOverlap(int a, int b) {
+        return shapes[a] != null && shapes[b] != null
+                && bounds[4 * a] <= bounds[4 * b + 2] && bounds[4 * b] <= bounds[4 * a + 2]
+                && bounds[4 * a + 1] <= bounds[4 * b + 3] && bounds[4 * b + 1] <= bounds[4 * a + 3];
+    }
+
+    private int allocateNode() {
+        int node;
+        if (freeNode != NULL) {
+            node = freeNode;
+            freeNode = parent[node];
+        } else {
+            node = nodes++;
+            if (node == parent.length) {
+                int capacity = 2 * node;
+                box = Arrays.copyOf(box, 4 * capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                height = Arrays.copyOf(height, capacity);
+                leafHandle = Arrays.copyOf(leafHandle, capacity);
+            }
+        }
+        parent[node] = NULL;
+        left[node] = NULL;
+        right[node] = NULL;
+        height[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        parent[node] = freeNode;
+        height[node] = -1;
+        freeNode = node;
+    }
+
+    /**
+     * @return Perimeter of the union of the boxes of two nodes
+     */
+    private double unionPerimeter(int a, int b) {
+        double w = Math.max(box[4 * a + 2], box[4 * b + 2]) - Math.min(box[4 * a], box[4 * b]),
+                h = Math.max(box[4 * a + 3], box[4 * b + 3])
+                - Math.min(box[4 * a + 1], box[4 * b + 1]);
+        return 2 * (w + h);
+    }
+
+    private double perimeter(int a) {
+        return 2 * (box[4 * a + 2] - box[4 * a] + box[4 * a + 3] - box[4 * a + 1]);
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+        // Descend to the sibling that costs the least, by perimeter
+        int index = root;
+        while (height[index] > 0) {
+            double area = perimeter(index), combined = unionPerimeter(index, leaf);
+            // Cost of pairing the leaf with this node
+            double cost = 2 * combined;
+            // Cost of pushing the leaf further down
+            double inheritance = 2 * (combined - area);
+            double cost1 = descentCost(left[index], leaf) + inheritance,
+                    cost2 = descentCost(right[index], leaf) + inheritance;
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+            index = cost1 < cost2 ? left[index] : right[index];
+        }
+        int sibling = index, oldParent = parent[sibling], newParent = allocateNode();
+        parent[newParent] = oldParent;
+        setUnion(newParent, sibling, leaf);
+        height[newParent] = height[sibling] + 1;
+        if (oldParent != NULL) {
+            if (left[oldParent] == sibling) {
+                left[oldParent] = newParent;
+            } else {
+                right[oldParent] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        left[newParent] = sibling;
+        right[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+        refitAncestors(parent[leaf]);
+    }
+
+    private double descentCost(int child, int leaf) {
+        double cost = unionPerimeter(child, leaf);
+        return height[child] == 0 ? cost : cost - perimeter(child);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+        int p = parent[leaf], grandParent = parent[p];
+        int sibling = left[p] == leaf ? right[p] : left[p];
+        if (grandParent != NULL) {
+            if (left[grandParent] == p) {
+                left[grandParent] = sibling;
+            } else {
+                right[grandParent] = sibling;
+            }
+            parent[sibling] = grandParent;
+            freeNode(p);
+            refitAncestors(grandParent);
+        } else {
+            root = sibling;
+            parent[sibling] = NULL;
+            freeNode(p);
+        }
+    }
+
+    /**
+     * Rebalance and refit the ancestors of a node, from the node up.
+     */
+    private void refitAncestors(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            height[index] = 1 + Math.max(height[left[index]], height[right[index]]);
+            setUnion(index, left[index], right[index]);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * If the subtrees of node a differ in height by more than one, rotate the
+     * higher child up.
+     *
+     * @return The root of the subtree
+     */
+    private int balance(int a) {
+        if (height[a] < 2) {
+            return a;
+        }
+        int b = left[a], c = right[a];
+        int diff = height[c] - height[b];
+        if (diff > 1) {
+            rotateUp(a, c, b, true);
+            return c;
+        }
+        if (diff < -1) {
+            rotateUp(a, b, c, false);
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * Rotate child c of node a in place of a; a keeps its other child b and
+     * takes the lower child of c.
+     *
+     * @param cIsRight Whether c is the right child of a
+     */
+    private void rotateUp(int a, int c, int b, boolean cIsRight) {
+        int f = left[c], g = right[c];
+        // c takes the place of a
+        left[c] = a;
+        parent[c] = parent[a];
+        parent[a] = c;
+        if (parent[c] != NULL) {
+            if (left[parent[c]] == a) {
+                left[parent[c]] = c;
+            } else {
+                right[parent[c]] = c;
+            }
+        } else {
+            root = c;
+        }
+        // The higher child of c stays with c, the other goes to a
+        int high = height[f] > height[g] ? f : g, low = high == f ? g : f;
+        right[c] = high;
+        if (cIsRight) {
+            right[a] = low;
+        } else {
+            left[a] = low;
+        }
+        parent[low] = a;
+        setUnion(a, b, low);
+        height[a] = 1 + Math.max(height[b], height[low]);
+        setUnion(c, a, high);
+        height[c] = 1 + Math.max(height[a], height[high]);
+    }
+
+    private void setUnion(int node, int a, int b) {
+        box[4 * node] = Math.min(box[4 * a], box[4 * b]);
+        box[4 * node + 1] = Math.min(box[4 * a + 1], box[4 * b + 1]);
+        box[4 * node + 2] = Math.max(box[4 * a + 2], box[4 * b + 2]);
+        box[4 * node + 3] = Math.max(box[4 * a + 3], box[4 * b + 3]);
+    }
+}
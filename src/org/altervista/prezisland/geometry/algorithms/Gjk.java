@@ -0,0 +1,716 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.RigidTransform;
+import org.altervista.prezisland.geometry.shapes.ConvexPolygon;
+import org.altervista.prezisland.geometry.shapes.EdgeTable;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.altervista.prezisland.geometry.shapes.TransformedPolygon;
+
+/**
+ * Gilbert-Johnson-Keerthi intersection, distance and time of impact queries
+ * between convex polygons. All queries work on the Minkowski difference A-B,
+ * which is never built: its extreme point along a direction is the
+ * difference of the extreme points of A and B, found by hill-climbing from
+ * the vertex found by the previous lookup, so that each iteration costs O(1)
+ * amortized.
+ * <p>
+ * Polygons given as {@link EdgeTable}s with a {@link RigidTransform} are
+ * never moved: the direction is rotated into the local space of the table,
+ * the extreme vertex is found there by binary search, and only that vertex
+ * is transformed.
+ * <p>
+ * Instances hold scratch state and are not thread-safe; use one per thread.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class Gjk {
+
+    /**
+     * Relative tolerance used to stop the distance iteration.
+     */
+    private static final double EPSILON = 1e-10;
+    /**
+     * Squared distance, relative to the size of the simplex, at which the
+     * time of impact query considers the polygons in contact.
+     */
+    private static final double CONTACT_TOLERANCE = 1e-20;
+    /**
+     * Transform of polygons which do not move; never modified.
+     */
+    private static final RigidTransform IDENTITY = new RigidTransform();
+
+    // Vertices of the two polygons: either a list, packed coordinates or an
+    // edge table and its transform
+    private List<Point2D.Double> listA, listB;
+    private double[] coordsA, coordsB;
+    private EdgeTable tableA, tableB;
+    private RigidTransform transformA, transformB;
+    private int nA, nB;
+    // Last support vertices, where the next hill-climb starts
+    private int hintA, hintB;
+    // Last support point of A-B
+    private double sx, sy;
+    // Simplex: up to three points of A-B
+    private final double[] px = new double[3], py = new double[3];
+    private int size;
+    // Closest point to the origin found by the distance query
+    private double vx, vy;
+
+    /**
+     * Test whether two convex polygons intersect (touching counts).
+     *
+     * @param A Convex polygon, in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(Polygon A, Polygon B) {
+        set(A.getPoints(), null, A.getPointsNumber(), B.getPoints(), null, B.getPointsNumber());
+        return intersects();
+    }
+
+    /**
+     * Test whether two convex packed polygons intersect (touching counts).
+     *
+     * @param A Convex polygon, in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(PackedPolygon A, PackedPolygon B) {
+        set(null, A.getCoords(), A.getPointsNumber(), null, B.getCoords(), B.getPointsNumber());
+        return intersects();
+    }
+
+    /**
+     * Compute the distance between two convex polygons.
+     *
+     * @param A Convex polygon, in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @param out If not null, receives the point of A-B closest to the origin:
+     * translating A by -out makes it touch B. (0,0) if they intersect.
+     * @return The distance between A and B, 0 if they intersect
+     */
+    public double distance(Polygon A, Polygon B, Point2D.Double out) {
+        set(A.getPoints(), null, A.getPointsNumber(), B.getPoints(), null, B.getPointsNumber());
+        return distance(out);
+    }
+
+    /**
+     * Compute the distance between two convex packed polygons.
+     *
+     * @param A Convex polygon, in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @param out If not null, receives the point of A-B closest to the origin:
+     * translating A by -out makes it touch B. (0,0) if they intersect.
+     * @return The distance between A and B, 0 if they intersect
+     */
+    public double distance(PackedPolygon A, PackedPolygon B, Point2D.Double out) {
+        set(null, A.getCoords(), A.getPointsNumber(), null, B.getCoords(), B.getPointsNumber());
+        return distance(out);
+    }
+
+    /**
+     * Compute the time of impact of two convex polygons: the first instant
+     * of a motion at which they touch. A moves by (dx, dy) relative to B over
+     * the motion, as for a frame of a simulation; the earliest t in [0, 1]
+     * such that A translated by t*(dx, dy) touches B is returned.
+     *
+     * @param A Convex polygon (the moving one), in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @param dx X component of the displacement of A relative to B
+     * @param dy Y component of the displacement of A relative to B
+     * @return The time of impact, 0 if they already intersect, -1 if they do
+     * not touch during the motion
+     */
+    public double timeOfImpact(Polygon A, Polygon B, double dx, double dy) {
+        set(A.getPoints(), null, A.getPointsNumber(), B.getPoints(), null, B.getPointsNumber());
+        // A+t*(dx, dy) touches B when -t*(dx, dy) lies in A-B
+        return rayCast(0, 0, -dx, -dy);
+    }
+
+    /**
+     * Compute the time of impact of two convex packed polygons, see
+     * {@link #timeOfImpact(Polygon, Polygon, double, double)}.
+     *
+     * @param A Convex polygon (the moving one), in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @param dx X component of the displacement of A relative to B
+     * @param dy Y component of the displacement of A relative to B
+     * @return The time of impact, 0 if they already intersect, -1 if they do
+     * not touch during the motion
+     */
+    public double timeOfImpact(PackedPolygon A, PackedPolygon B, double dx, double dy) {
+        set(null, A.getCoords(), A.getPointsNumber(), null, B.getCoords(), B.getPointsNumber());
+        // A+t*(dx, dy) touches B when -t*(dx, dy) lies in A-B
+        return rayCast(0, 0, -dx, -dy);
+    }
+
+    /**
+     * Test whether two transformed convex polygons intersect (touching
+     * counts).
+     *
+     * @param A Edge table of the first polygon
+     * @param tA Transform placing A
+     * @param B Edge table of the second polygon
+     * @param tB Transform placing B
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(EdgeTable A, RigidTransform tA, EdgeTable B, RigidTransform tB) {
+        set(A, tA, B, tB);
+        return intersects();
+    }
+
+    /**
+     * Compute the distance between two transformed convex polygons.
+     *
+     * @param A Edge table of the first polygon
+     * @param tA Transform placing A
+     * @param B Edge table of the second polygon
+     * @param tB Transform placing B
+     * @param out If not null, receives the point of A-B closest to the origin:
+     * translating A by -out makes it touch B. (0,0) if they intersect.
+     * @return The distance between A and B, 0 if they intersect
+     */
+    public double distance(EdgeTable A, RigidTransform tA, EdgeTable B, RigidTransform tB,
+            Point2D.Double out) {
+        set(A, tA, B, tB);
+        return distance(out);
+    }
+
+    /**
+     * Compute the time of impact of two transformed convex polygons, see
+     * {@link #timeOfImpact(Polygon, Polygon, double, double)}.
+     *
+     * @param A Edge table of the first polygon (the moving one)
+     * @param tA Transform placing A
+     * @param B Edge table of the second polygon
+     * @param tB Transform placing B
+     * @param dx X component of the displacement of A relative to B
+     * @param dy Y component of the displacement of A relative to B
+     * @return The time of impact, 0 if they already intersect, -1 if they do
+     * not touch during the motion
+     */
+    public double timeOfImpact(EdgeTable A, RigidTransform tA, EdgeTable B, RigidTransform tB,
+            double dx, double dy) {
+        set(A, tA, B, tB);
+        return rayCast(0, 0, -dx, -dy);
+    }
+
+    /**
+     * Compute the exit translation of two intersecting transformed convex
+     * polygons along a direction: the exact translation along d after which A
+     * touches B without overlapping it, found as the exit point of a ray cast
+     * through A-B. Only extreme vertex lookups are performed. This backs
+     * {@link CollisionDetection#getExitTranslation(TransformedPolygon, TransformedPolygon, Line, boolean, Point2D.Double)},
+     * which documents its conventions and how it differs from the
+     * penetration vector.
+     *
+     * @param A Edge table of the first polygon (the moving one)
+     * @param tA Transform placing A
+     * @param B Edge table of the second polygon
+     * @param tB Transform placing B
+     * @param d Direction of the translation ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the translation ((0,0) if the polygons do
+     * not intersect)
+     * @return True if the polygons intersect, false otherwise.
+     */
+    public boolean getExitTranslation(EdgeTable A, RigidTransform tA, EdgeTable B,
+            RigidTransform tB, Line d, boolean orient, Point2D.Double out) {
+        set(A, tA, B, tB);
+        out.setLocation(0, 0);
+        if (!intersects()) {
+            return false;
+        }
+        // Unit vector along d, pointing right (up if d is vertical)
+        double cx = d.getB(), cy = -d.getA();
+        if (cx < 0 || (cx == 0 && cy < 0)) {
+            cx = -cx;
+            cy = -cy;
+        }
+        double len = Math.sqrt(cx * cx + cy * cy);
+        cx /= len;
+        cy /= len;
+        // A moves along u, and overlaps B as long as -s*u lies in A-B
+        double ux = orient ? -cx : cx, uy = orient ? -cy : cy;
+        support(-ux, -uy);
+        // -l*u is beyond the support line of A-B along -u: cast back to the origin
+        double l = -(ux * sx + uy * sy) + 1;
+        double t = rayCast(-l * ux, -l * uy, l * ux, l * uy);
+        if (t < 0) {
+            return false;
+        }
+        double depth = l * (1 - t);
+        out.setLocation(depth * cx, depth * cy);
+        return true;
+    }
+
+    /**
+     * Test whether two transformed convex polygons intersect (touching
+     * counts).
+     *
+     * @param A Convex polygon
+     * @param B Convex polygon
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(TransformedPolygon A, TransformedPolygon B) {
+        return intersects(A.getTable(), A.getTransform(), B.getTable(), B.getTransform());
+    }
+
+    /**
+     * Compute the distance between two transformed convex polygons.
+     *
+     * @param A Convex polygon
+     * @param B Convex polygon
+     * @param out If not null, receives the point of A-B closest to the origin:
+     * translating A by -out makes it touch B. (0,0) if they intersect.
+     * @return The distance between A and B, 0 if they intersect
+     */
+    public double distance(TransformedPolygon A, TransformedPolygon B, Point2D.Double out) {
+        return distance(A.getTable(), A.getTransform(), B.getTable(), B.getTransform(), out);
+    }
+
+    /**
+     * Compute the time of impact of two transformed convex polygons, see
+     * {@link #timeOfImpact(Polygon, Polygon, double, double)}.
+     *
+     * @param A Convex polygon (the moving one)
+     * @param B Convex polygon
+     * @param dx X component of the displacement of A relative to B
+     * @param dy Y component of the displacement of A relative to B
+     * @return The time of impact, 0 if they already intersect, -1 if they do
+     * not touch during the motion
+     */
+    public double timeOfImpact(TransformedPolygon A, TransformedPolygon B, double dx, double dy) {
+        return timeOfImpact(A.getTable(), A.getTransform(), B.getTable(), B.getTransform(),
+                dx, dy);
+    }
+
+
+    /**
+     * Test whether two immutable convex polygons intersect (touching counts).
+     *
+     * @param A Convex polygon
+     * @param B Convex polygon
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(ConvexPolygon A, ConvexPolygon B) {
+        return intersects(A.getEdgeTable(), IDENTITY, B.getEdgeTable(), IDENTITY);
+    }
+
+    /**
+     * Compute the distance between two immutable convex polygons.
+     *
+     * @param A Convex polygon
+     * @param B Convex polygon
+     * @param out If not null, receives the point of A-B closest to the origin:
+     * translating A by -out makes it touch B. (0,0) if they intersect.
+     * @return The distance between A and B, 0 if they intersect
+     */
+    public double distance(ConvexPolygon A, ConvexPolygon B, Point2D.Double out) {
+        return distance(A.getEdgeTable(), IDENTITY, B.getEdgeTable(), IDENTITY, out);
+    }
+
+    /**
+     * Compute the time of impact of two immutable convex polygons, see
+     * {@link #timeOfImpact(Polygon, Polygon, double, double)}.
+     *
+     * @param A Convex polygon (the moving one)
+     * @param B Convex polygon
+     * @param dx X component of the displacement of A relative to B
+     * @param dy Y component of the displacement of A relative to B
+     * @return The time of impact, 0 if they already intersect, -1 if they do
+     * not touch during the motion
+     */
+    public double timeOfImpact(ConvexPolygon A, ConvexPolygon B, double dx, double dy) {
+        return timeOfImpact(A.getEdgeTable(), IDENTITY, B.getEdgeTable(), IDENTITY, dx, dy);
+    }
+
+
+    private void set(EdgeTable A, RigidTransform tA, EdgeTable B, RigidTransform tB) {
+        set(null, null, A.getPointsNumber(), null, null, B.getPointsNumber());
+        tableA = A;
+        transformA = tA;
+        tableB = B;
+        transformB = tB;
+        hintA = -1;
+        hintB = -1;
+    }
+
+    private void set(List<Point2D.Double> lA, double[] cA, int nA,
+            List<Point2D.Double> lB, double[] cB, int nB) {
+        listA = lA;
+        coordsA = cA;
+        listB = lB;
+        coordsB = cB;
+        tableA = null;
+        tableB = null;
+        this.nA = nA;
+        this.nB = nB;
+        hintA = 0;
+        hintB = 0;
+    }
+
+    private boolean intersects() {
+        // Start along the difference of two vertices
+        double dx = xA(0) - xB(0), dy = yA(0) - yB(0);
+        if (dx == 0 && dy == 0) {
+            return true;
+        }
+        support(dx, dy);
+        px[0] = sx;
+        py[0] = sy;
+        size = 1;
+        dx = -sx;
+        dy = -sy;
+        for (int iter = 0, max = 2 * (nA + nB) + 8; iter < max; iter++) {
+            if (dx == 0 && dy == 0) {
+                // The origin lies on the simplex
+                return true;
+            }
+            support(dx, dy);
+            if (sx * dx + sy * dy < 0) {
+                // The origin is beyond the farthest point along d
+                return false;
+            }
+            px[size] = sx;
+            py[size] = sy;
+            size++;
+            if (size == 2) {
+                // Segment b-a, a being the new point
+                double ax = px[1], ay = py[1], abx = px[0] - ax, aby = py[0] - ay;
+                double cross = abx * -ay - aby * -ax;
+                if (abx * -ax + aby * -ay > 0) {
+                    // Perpendicular to ab, towards the origin
+                    dx = -aby * cross;
+                    dy = abx * cross;
+                    if (cross == 0) {
+                        // The origin is on the segment
+                        return true;
+                    }
+                } else {
+                    px[0] = ax;
+                    py[0] = ay;
+                    size = 1;
+                    dx = -ax;
+                    dy = -ay;
+                }
+            } else {
+                // Triangle c-b-a, a being the new point
+                double ax = px[2], ay = py[2];
+                double abx = px[1] - ax, aby = py[1] - ay, acx = px[0] - ax, acy = py[0] - ay;
+                double orientation = abx * acy - aby * acx;
+                // Outward normals of the edges ab and ac
+                double abnx, abny, acnx, acny;
+                if (orientation > 0) {
+                    abnx = aby;
+                    abny = -abx;
+                    acnx = -acy;
+                    acny = acx;
+                } else {
+                    abnx = -aby;
+                    abny = abx;
+                    acnx = acy;
+                    acny = -acx;
+                }
+                if (abnx * -ax + abny * -ay > 0) {
+                    // Beyond ab: drop c
+                    px[0] = px[1];
+                    py[0] = py[1];
+                    px[1] = ax;
+                    py[1] = ay;
+                    size = 2;
+                    dx = abnx;
+                    dy = abny;
+                } else if (acnx * -ax + acny * -ay > 0) {
+                    // Beyond ac: drop b
+                    px[1] = ax;
+                    py[1] = ay;
+                    size = 2;
+                    dx = acnx;
+                    dy = acny;
+                } else {
+                    return true;
+                }
+            }
+        }
+        // No progress: the origin is on the boundary, up to rounding
+        return true;
+    }
+
+    private double distance(Point2D.Double out) {
+        support(xA(0) - xB(0), yA(0) - yB(0));
+        px[0] = sx;
+        py[0] = sy;
+        size = 1;
+        vx = sx;
+        vy = sy;
+        for (int iter = 0, max = 2 * (nA + nB) + 8; iter < max; iter++) {
+            double vv = vx * vx + vy * vy;
+            if (vv == 0) {
+                break;
+            }
+            support(-vx, -vy);
+            // Stop when the new point doesn't get closer to the origin
+            if (vv - (vx * sx + vy * sy) <= EPSILON * vv) {
+                break;
+            }
+            px[size] = sx;
+            py[size] = sy;
+            size++;
+            if (!closestPoint()) {
+                // The origin is inside the simplex
+                vx = 0;
+                vy = 0;
+                break;
+            }
+        }
+        if (out != null) {
+            out.setLocation(vx, vy);
+        }
+        return Math.sqrt(vx * vx + vy * vy);
+    }
+
+    /**
+     * Ray cast against A-B (G. van den Bergen, "Ray Casting against General
+     * Convex Objects with Application to Continuous Collision Detection"):
+     * find the first t in [0, 1] such that (ox, oy) + t*(rx, ry) lies in A-B.
+     * The simplex is kept relative to the current point of the ray, and the
+     * point is advanced past every support plane that separates it from A-B.
+     *
+     * @return The first t, -1 if the ray segment misses A-B
+     */
+    private double rayCast(double ox, double oy, double rx, double ry) {
+        double t = 0;
+        support(xA(0) - xB(0), yA(0) - yB(0));
+        vx = sx - ox;
+        vy = sy - oy;
+        size = 0;
+        for (int iter = 0, max = 4 * (nA + nB) + 16; iter < max; iter++) {
+            double vv = vx * vx + vy * vy, scale = 0;
+            for (int i = 0; i < size; i++) {
+                scale = Math.max(scale, px[i] * px[i] + py[i] * py[i]);
+            }
+            if (vv <= CONTACT_TOLERANCE * scale || vv == 0) {
+                // The point touches A-B
+                return t;
+            }
+            support(-vx, -vy);
+            // Support point relative to the point of the ray
+            double qx = sx - ox, qy = sy - oy;
+            double vq = vx * qx + vy * qy;
+            if (vq > 0) {
+                // The support plane separates the point from A-B: advance
+                double vr = vx * rx + vy * ry;
+                if (vr <= 0) {
+                    return -1;
+                }
+                double step = vq / vr;
+                t += step;
+                if (t > 1) {
+                    return -1;
+                }
+                double sdx = step * rx, sdy = step * ry;
+                ox += sdx;
+                oy += sdy;
+                qx -= sdx;
+                qy -= sdy;
+                for (int i = 0; i < size; i++) {
+                    px[i] -= sdx;
+                    py[i] -= sdy;
+                }
+            }
+            px[size] = qx;
+            py[size] = qy;
+            size++;
+            if (size == 1) {
+                vx = qx;
+                vy = qy;
+            } else if (!closestPoint()) {
+                // The point is inside A-B
+                return t;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Set v to the point of the simplex closest to the origin, and reduce the
+     * simplex to the points needed to express it.
+     *
+     * @return False if the origin is inside the simplex
+     */
+    private boolean closestPoint() {
+        if (size == 2) {
+            closestOnSegment(0, 1);
+            return true;
+        }
+        double ax = px[0], ay = py[0], bx = px[1], by = py[1], cx = px[2], cy = py[2];
+        double d1 = (bx - ax) * -ay - (by - ay) * -ax,
+                d2 = (cx - bx) * -by - (cy - by) * -bx,
+                d3 = (ax - cx) * -cy - (ay - cy) * -cx;
+        double area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        // A degenerate triangle has no inside: fall back to its edges
+        if (area != 0 && ((d1 >= 0 && d2 >= 0 && d3 >= 0)
+                || (d1 <= 0 && d2 <= 0 && d3 <= 0))) {
+            return false;
+        }
+        // Closest point on the edges touching the new point c, or on ab
+        double bestX, bestY, best;
+        int keep;
+        closestOnSegment(0, 2);
+        bestX = vx;
+        bestY = vy;
+        best = vx * vx + vy * vy;
+        keep = 0;
+        closestOnSegment(1, 2);
+        if (vx * vx + vy * vy < best) {
+            bestX = vx;
+            bestY = vy;
+            best = vx * vx + vy * vy;
+            keep = 1;
+        }
+        closestOnSegment(0, 1);
+        if (vx * vx + vy * vy < best) {
+            bestX = vx;
+            bestY = vy;
+            keep = 2;
+        }
+        vx = bestX;
+        vy = bestY;
+        // Drop the point not on the closest edge
+        if (keep == 0) {
+            px[1] = cx;
+            py[1] = cy;
+        } else if (keep == 1) {
+            px[0] = cx;
+            py[0] = cy;
+        }
+        size = 2;
+        return true;
+    }
+
+    /**
+     * Set v to the point of the segment between simplex points i and j
+     * closest to the origin.
+     */
+    private void closestOnSegment(int i, int j) {
+        double ex = px[j] - px[i], ey = py[j] - py[i];
+        double ee = ex * ex + ey * ey;
+        double t = ee == 0 ? 0 : -(px[i] * ex + py[i] * ey) / ee;
+        t = Math.max(0, Math.min(1, t));
+        vx = px[i] + t * ex;
+        vy = py[i] + t * ey;
+    }
+
+    /**
+     * Find the extreme point of A-B along (dx, dy), setting sx, sy.
+     */
+    private void support(double dx, double dy) {
+        hintA = tableA != null ? extreme(tableA, transformA, hintA, dx, dy)
+                : climb(true, hintA, dx, dy);
+        hintB = tableB != null ? extreme(tableB, transformB, hintB, -dx, -dy)
+                : climb(false, hintB, -dx, -dy);
+        sx = xA(hintA) - xB(hintB);
+        sy = yA(hintA) - yB(hintB);
+    }
+
+    /**
+     * Find the vertex of a transformed edge table farthest along (dx, dy),
+     * looking up the direction rotated into the local space of the table:
+     * by binary search for the first lookup of a query, then by climbing
+     * from the previous vertex.
+     */
+    private static int extreme(EdgeTable table, RigidTransform t, int hint, double dx,
+            double dy) {
+        double cos = t.getCos(), sin = t.getSin();
+        return table.getExtremeIndex(cos * dx + sin * dy, cos * dy - sin * dx, hint);
+    }
+
+    /**
+     * Hill-climb the vertices of a convex polygon to the one farthest along
+     * (dx, dy), starting from vertex i.
+     */
+    private int climb(boolean a, int i, double dx, double dy) {
+        int n = a ? nA : nB;
+        double best = dot(a, i, dx, dy);
+        int next = i + 1 == n ? 0 : i + 1;
+        double d = dot(a, next, dx, dy);
+        if (d > best) {
+            do {
+                i = next;
+                best = d;
+                next = i + 1 == n ? 0 : i + 1;
+                d = dot(a, next, dx, dy);
+            } while (d > best && next != i);
+            return i;
+        }
+        int prev = i == 0 ? n - 1 : i - 1;
+        d = dot(a, prev, dx, dy);
+        while (d > best) {
+            i = prev;
+            best = d;
+            prev = i == 0 ? n - 1 : i - 1;
+            d = dot(a, prev, dx, dy);
+        }
+        return i;
+    }
+
+    private double dot(boolean a, int i, double dx, double dy) {
+        return a ? xA(i) * dx + yA(i) * dy : xB(i) * dx + yB(i) * dy;
+    }
+
+    private double xA(int i) {
+        if (tableA != null) {
+            return transformA.transformX(tableA.getX(i), tableA.getY(i));
+        }
+        return listA != null ? listA.get(i).x : coordsA[2 * i];
+    }
+
+    private double yA(int i) {
+        if (tableA != null) {
+            return transformA.transformY(tableA.getX(i), tableA.getY(i));
+        }
+        return listA != null ? listA.get(i).y : coordsA[2 * i + 1];
+    }
+
+    private double xB(int i) {
+        if (tableB != null) {
+            return transformB.transformX(tableB.getX(i), tableB.getY(i));
+        }
+        return listB != null ? listB.get(i).x : coordsB[2 * i];
+    }
+
+    private double yB(int i) {
+        if (tableB != null) {
+            return transformB.transformY(tableB.getX(i), tableB.getY(i));
+        }
+        return listB != null ? listB.get(i).y : coordsB[2 * i + 1];
+    }
+}
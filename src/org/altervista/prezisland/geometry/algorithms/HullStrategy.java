@@ -0,0 +1,47 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * An algorithm computing the convex hull of packed points. The available
+ * strategies are constants of ConvexHull; ConvexHull.AUTO picks one from the
+ * size of the input and an estimate of the size of the hull.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public interface HullStrategy {
+
+    /**
+     * Compute the convex hull of packed points (x0, y0, x1, y1, ...). The
+     * input array is not modified.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @return The convex hull, in counter-clockwise order starting from the
+     * x-lexicographically smallest point
+     */
+    PackedPolygon convexHull(double[] coords, int n);
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+
+/**
+ * Convex hull of a stream of points, maintained under insertions. The hull
+ * is kept as a lower and an upper chain, each one a TreeMap from x to the
+ * chain's point at that x; inserting a point costs O(log h) amortized, h
+ * being the size of the hull.
+ * <p>
+ * Like ConvexHull, collinear points are not part of the hull. Instances are
+ * not thread-safe.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class IncrementalHull {
+
+    private final Chain lower = new Chain(1), upper = new Chain(-1);
+    private Polygon snapshot;
+
+    /**
+     * Add a point to the set.
+     *
+     * @param x X coordinate of the point
+     * @param y Y coordinate of the point
+     * @return Whether the hull has changed
+     */
+    public boolean add(double x, double y) {
+        // Both chains must see the point
+        boolean changed = lower.add(x, y);
+        changed |= upper.add(x, y);
+        if (changed) {
+            snapshot = null;
+        }
+        return changed;
+    }
+
+    /**
+     * Add a point to the set.
+     *
+     * @param p The point
+     * @return Whether the hull has changed
+     */
+    public boolean add(Point2D.Double p) {
+        return add(p.x, p.y);
+    }
+
+    /**
+     * Add a collection of points to the set.
+     *
+     * @param pts The points
+     * @return Whether the hull has changed
+     */
+    public boolean addAll(Iterable<Point2D.Double> pts) {
+        boolean changed = false;
+        for (Point2D.Double p : pts) {
+            changed |= add(p.x, p.y);
+        }
+        return changed;
+    }
+
+    /**
+     * @return Whether no point has been added yet.
+     */
+    public boolean isEmpty() {
+        return lower.points.isEmpty();
+    }
+
+    /**
+     * @return The number of points of the hull.
+     */
+    public int size() {
+        if (isEmpty()) {
+            return 0;
+        }
+        // The endpoints of the upper chain may be shared with the lower one
+        int shared = 0;
+        if (lower.points.firstEntry().getValue().equals(upper.points.firstEntry().getValue())) {
+            shared++;
+        }
+        if (lower.points.lastEntry().getValue().equals(upper.points.lastEntry().getValue())) {
+            shared++;
+        }
+        return lower.points.size() + Math.max(0, upper.points.size() - shared);
+    }
+
+    /**
+     * Get the current hull, in counter-clockwise order starting from the
+     * x-lexicographically smallest point, as ConvexHull does. The polygon is
+     * built once per change of the hull and then shared between calls: it
+     * must not be modified.
+     *
+     * @return The current hull
+     */
+    public Polygon getPolygon() {
+        if (snapshot == null) {
+            ArrayList<Point2D.Double> pts = new ArrayList<>(size());
+            pts.addAll(lower.points.values());
+            if (!isEmpty()) {
+                ArrayList<Point2D.Double> up = new ArrayList<>(upper.points.descendingMap().values());
+                int from = up.get(0).equals(pts.get(pts.size() - 1)) ? 1 : 0,
+                        to = up.get(up.size() - 1).equals(pts.get(0)) ? up.size() - 1 : up.size();
+                for (int i = from; i < to; i++) {
+                    pts.add(up.get(i));
+                }
+            }
+            snapshot = new Polygon(pts);
+        }
+        return snapshot;
+    }
+
+    /**
+     * One of the two monotone chains of the hull, sorted by x. The lower chain
+     * only makes left turns; the upper chain is handled as the lower chain of
+     * the points mirrored on the x axis, by multiplying y offsets by sign.
+     */
+    private static class Chain {
+
+        final TreeMap<Double, Point2D.Double> points = new TreeMap<>();
+        final double sign;
+
+        Chain(double sign) {
+            this.sign = sign;
+        }
+
+        boolean add(double x, double y) {
+            // -0.0 and 0.0 would be distinct keys
+            double key = x + 0.0;
+            Point2D.Double old = points.get(key);
+            if (old != null && sign * (y - old.y) >= 0) {
+                // Not below (above, for the upper chain) the point at this x
+                return false;
+            }
+            if (old == null) {
+                Map.Entry<Double, Point2D.Double> prev = points.lowerEntry(key),
+                        next = points.higherEntry(key);
+                if (prev != null && next != null
+                        && turn(prev.getValue(), next.getValue(), x, y) >= 0) {
+                    // On or above the chain
+                    return false;
+                }
+            }
+            Point2D.Double p = new Point2D.Double(x, y);
+            points.put(key, p);
+            // Remove the points that are no longer convex on both sides
+            Map.Entry<Double, Point2D.Double> a = points.lowerEntry(key);
+            while (a != null) {
+                Map.Entry<Double, Point2D.Double> b = points.lowerEntry(a.getKey());
+                if (b == null || turn(b.getValue(), a.getValue(), x, y) > 0) {
+                    break;
+                }
+                points.remove(a.getKey());
+                a = b;
+            }
+            a = points.higherEntry(key);
+            while (a != null) {
+                Map.Entry<Double, Point2D.Double> b = points.higherEntry(a.getKey());
+                if (b == null || turn(p, a.getValue(), b.getValue().x, b.getValue().y) > 0) {
+                    break;
+                }
+                points.remove(a.getKey());
+                a = b;
+            }
+            return true;
+        }
+
+        /**
+         * @return The cross product of (p2 - p1) and ((x, y) - p1), positive
+         * for a left turn of the chain.
+         */
+        double turn(Point2D.Double p1, Point2D.Double p2, double x, double y) {
+            return sign * ((p2.x - p1.x) * (y - p1.y) - (p2.y - p1.y) * (x - p1.x));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+
+/**
+ * Minkowski sums of one convex polygon (the robot) with many convex
+ * obstacles. The robot is prepared once: optionally reflected about the
+ * origin, as needed for configuration space obstacles, rotated so that its
+ * start vertex comes first, and with its edge vectors precomputed. Each
+ * obstacle then costs only the O(n+m) merge of MinkowskiSum, and the results
+ * are written into a reusable {@link Arena}.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class MinkowskiBatch {
+
+    /**
+     * Number of obstacles under which a parallel batch is not split further.
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private final int n;
+    private final double[] coords, edges;
+
+    /**
+     * Prepare a robot.
+     *
+     * @param robot Convex polygon, in counter-clockwise order
+     * @param reflect Whether to sum the obstacles with the robot reflected
+     * about the origin, -robot, instead of the robot itself
+     */
+    public MinkowskiBatch(PackedPolygon robot, boolean reflect) {
+        n = robot.getPointsNumber();
+        double[] c = Arrays.copyOf(robot.getCoords(), 2 * n);
+        if (reflect) {
+            // A point reflection keeps the counter-clockwise order
+            for (int i = 0; i < 2 * n; i++) {
+                c[i] = -c[i];
+            }
+        }
+        int start = MinkowskiSum.getStartIndex(c, n);
+        coords = new double[2 * n];
+        edges = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            int u = (start + i) % n, v = (start + i + 1) % n;
+            coords[2 * i] = c[2 * u];
+            coords[2 * i + 1] = c[2 * u + 1];
+            edges[2 * i] = c[2 * v] - c[2 * u];
+            edges[2 * i + 1] = c[2 * v + 1] - c[2 * u + 1];
+        }
+    }
+
+    /**
+     * Prepare a robot.
+     *
+     * @param robot Convex polygon, in counter-clockwise order
+     * @param reflect Whether to sum the obstacles with -robot instead of the
+     * robot itself
+     */
+    public MinkowskiBatch(Polygon robot, boolean reflect) {
+        this(new PackedPolygon(robot), reflect);
+    }
+
+    /**
+     * @return The number of vertices of the robot.
+     */
+    public int getPointsNumber() {
+        return n;
+    }
+
+    /**
+     * Compute the Minkowski sum of the prepared robot with an obstacle.
+     *
+     * @param obstacle Convex polygon, in counter-clockwise order
+     * @return The sum, starting from the sum of the vertices with minimum y
+     */
+    public PackedPolygon sum(PackedPolygon obstacle) {
+        double[] out = new double[2 * (n + obstacle.getPointsNumber())];
+        int size = sum(obstacle.getCoords(), obstacle.getPointsNumber(),
+                obstacle.getStartIndex(), out, 0);
+        return new PackedPolygon(out, size);
+    }
+
+    /**
+     * Compute the Minkowski sum of the prepared robot with an obstacle given
+     * as packed coordinates (x0, y0, x1, y1, ...). Nothing is allocated.
+     *
+     * @param c Coordinates of the obstacle, in counter-clockwise order
+     * @param m Number of vertices of the obstacle
+     * @param start Index of the vertex of the obstacle with minimum y (and
+     * minimum x, in case of ties)
+     * @param out Receives the coordinates of the sum
+     * @param offset Index of the first point written in out; out must hold at
+     * least 2*(offset+n+m) values
+     * @return The number of vertices of the sum
+     */
+    public int sum(double[] c, int m, int start, double[] out, int offset) {
+        return MinkowskiSum.mergeEdges(coords, edges, n, 0, c, m, start, out, offset);
+    }
+
+    /**
+     * Compute the Minkowski sums of the prepared robot with a batch of
+     * obstacles. The arena is reset and receives one sum per obstacle, in
+     * order.
+     *
+     * @param obstacles Convex polygons, in counter-clockwise order
+     * @param arena Receives the sums
+     */
+    public void sumAll(PackedPolygon[] obstacles, Arena arena) {
+        arena.reset(this, obstacles);
+        sumRange(obstacles, arena, 0, obstacles.length);
+    }
+
+    /**
+     * Compute the Minkowski sums of the prepared robot with a batch of
+     * obstacles, in parallel on the given pool. The arena is reset and
+     * receives one sum per obstacle, in order; each task writes its own
+     * region of it.
+     *
+     * @param obstacles Convex polygons, in counter-clockwise order
+     * @param arena Receives the sums
+     * @param pool Pool running the computation
+     */
+    public void sumAll(PackedPolygon[] obstacles, Arena arena, ForkJoinPool pool) {
+        arena.reset(this, obstacles);
+        pool.invoke(new SumTask(obstacles, arena, 0, obstacles.length));
+    }
+
+    private void sumRange(PackedPolygon[] obstacles, Arena arena, int from, int to) {
+        for (int i = from; i < to; i++) {
+            PackedPolygon o = obstacles[i];
+            arena.sizes[i] = sum(o.getCoords(), o.getPointsNumber(), o.getStartIndex(),
+                    arena.coords, arena.offsets[i]);
+        }
+    }
+
+    private class SumTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final PackedPolygon[] obstacles;
+        private final Arena arena;
+        private final int from, to;
+
+        SumTask(PackedPolygon[] obstacles, Arena arena, int from, int to) {
+            this.obstacles = obstacles;
+            this.arena = arena;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                sumRange(obstacles, arena, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SumTask(obstacles, arena, from, mid),
+                    new SumTask(obstacles, arena, mid, to));
+        }
+    }
+
+    /**
+     * Reusable storage for the results of a batch: the sums are packed one
+     * after the other in a single coordinate array, which only grows.
+     * Instances are not thread-safe, except for the disjoint writes of a
+     * parallel batch.
+     */
+    public static final class Arena {
+
+        private double[] coords = new double[0];
+        private int[] offsets = new int[0], sizes = new int[0];
+        private int count;
+
+        /**
+         * Make room for the sums of a batch. Each sum has at most n+m
+         * vertices, so its region of the arena is known in advance.
+         */
+        void reset(MinkowskiBatch batch, PackedPolygon[] obstacles) {
+            count = obstacles.length;
+            if (offsets.length < count) {
+                offsets = new int[count];
+                sizes = new int[count];
+            }
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                offsets[i] = total;
+                total += batch.n + obstacles[i].getPointsNumber();
+            }
+            if (coords.length < 2 * total) {
+                coords = new double[2 * total];
+            }
+        }
+
+        /**
+         * @return The number of sums in the arena.
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @param i Index of a sum
+         * @return The number of vertices of the i-th sum
+         */
+        public int getPointsNumber(int i) {
+            return sizes[i];
+        }
+
+        /**
+         * @param i Index of a sum
+         * @return The index in getCoords() of the first point of the i-th sum
+         */
+        public int getOffset(int i) {
+            return offsets[i];
+        }
+
+        /**
+         * The coordinates of all the sums; the i-th sum's points start at
+         * getOffset(i). The array is reused by the next batch.
+         *
+         * @return The packed coordinates
+         */
+        public double[] getCoords() {
+            return coords;
+        }
+
+        /**
+         * @param i Index of a sum
+         * @return A copy of the i-th sum
+         */
+        public PackedPolygon getPolygon(int i) {
+            return new PackedPolygon(Arrays.copyOfRange(coords, 2 * offsets[i],
+                    2 * (offsets[i] + sizes[i])), sizes[i]);
+        }
+    }
+}
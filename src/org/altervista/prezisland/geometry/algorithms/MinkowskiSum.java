@@ -23,10 +23,16 @@
  */
 package org.altervista.prezisland.geometry.algorithms;
 
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import org.altervista.prezisland.geometry.Geometry;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
 import org.altervista.prezisland.geometry.shapes.Polygon;
 
 /**
@@ -42,126 +48,258 @@ public class MinkowskiSum {
 
     }
 
+    /**
+     * Compute the Minkowski sum of two convex polygons, in O(n+m) time.
+     *
+     * @param s1 Convex polygon, in counter-clockwise order
+     * @param s2 Convex polygon, in counter-clockwise order
+     * @return The Minkowski sum of s1 and s2, starting from the sum of their
+     * vertices with minimum y
+     */
     public static Polygon minkowskiSumConvex(Polygon s1, Polygon s2) {
-        return INSTANCE.minkowskiSumConvex_private(s1, s2);
+        return minkowskiSumConvex(new PackedPolygon(s1), new PackedPolygon(s2)).toPolygon();
     }
 
-    private Polygon minkowskiSumConvex_private(Polygon s1, Polygon s2) {
-        ArrayList<Point2D.Double> pts1 = new ArrayList(s1.getPoints()),
-                pts2 = new ArrayList(s2.getPoints());
-        LinkedList<Point2D.Double> pts12 = new LinkedList<>();
+    /**
+     * Compute the Minkowski sum of two convex polygons given as packed
+     * coordinates (x0, y0, x1, y1, ...), into a caller-supplied buffer. Edges
+     * are merged by comparing their directions with cross products, and
+     * nothing is allocated.
+     *
+     * @param c1 Coordinates of the first polygon, in counter-clockwise order
+     * @param n1 Number of vertices of the first polygon
+     * @param c2 Coordinates of the second polygon, in counter-clockwise order
+     * @param n2 Number of vertices of the second polygon
+     * @param out Receives the coordinates of the sum, starting from the sum of
+     * the vertices with minimum y; must hold at least 2*(n1+n2) values
+     * @return The number of vertices of the sum
+     */
+    public static int minkowskiSumConvex(double[] c1, int n1, double[] c2, int n2, double[] out) {
+        return mergeEdges(c1, null, n1, getStartIndex(c1, n1), c2, n2, getStartIndex(c2, n2),
+                out, 0);
+    }
 
-        minkowskiSumConvex_checkInput(pts1);
-        minkowskiSumConvex_checkInput(pts2);
-     /*   for (Point2D.Double p : pts1) {
-            System.out.print("(" + p.x + "," + p.y + ");");
-        }
-        System.out.println();
-        for (Point2D.Double p : pts2) {
-            System.out.print("(" + p.x + "," + p.y + ");");
-        }
-        System.out.println();*/
-
-        /*
-         Algorithm from "Computational Geometry, Algorithms and Applications",
-         page 295, adapted.
-         Running time: O(n+m), where n = # points of s1 and m = # points of s2
-         */
-        pts1.add(pts1.get(0));
-        pts1.add(pts1.get(1));
-        pts2.add(pts2.get(0));
-        pts2.add(pts2.get(1));
-        int i = 0, j = 0;
+    /**
+     * Compute the Minkowski sum of two convex packed polygons. The inputs are
+     * neither copied nor re-normalized: their cached start vertices are used.
+     *
+     * @param s1 Convex polygon, in counter-clockwise order
+     * @param s2 Convex polygon, in counter-clockwise order
+     * @return The Minkowski sum of s1 and s2
+     */
+    public static PackedPolygon minkowskiSumConvex(PackedPolygon s1, PackedPolygon s2) {
+        double[] out = new double[2 * (s1.getPointsNumber() + s2.getPointsNumber())];
+        int n = mergeEdges(s1.getCoords(), null, s1.getPointsNumber(), s1.getStartIndex(),
+                s2.getCoords(), s2.getPointsNumber(), s2.getStartIndex(), out, 0);
+        return new PackedPolygon(out, n);
+    }
+
+    /**
+     * Merge the edges of two convex polygons given as packed coordinates
+     * (x0, y0, x1, y1, ...), writing the vertices of their Minkowski sum.
+     * Edges are ordered by cross products instead of angles, and when two
+     * edges have the same direction both polygons advance, so that the sum
+     * has no collinear vertices they did not have. The edge vectors of the
+     * first polygon can be supplied precomputed.
+     *
+     * @param c1 Coordinates of the first polygon
+     * @param e1 Edge vectors of the first polygon: (e1[2*u], e1[2*u+1]) goes
+     * from vertex u to vertex u+1; null to compute them from c1
+     * @param n1 Number of vertices of the first polygon
+     * @param s1 Index of the vertex of the first polygon with minimum y
+     * @param c2 Coordinates of the second polygon
+     * @param n2 Number of vertices of the second polygon
+     * @param s2 Index of the vertex of the second polygon with minimum y
+     * @param out Receives the coordinates of the sum
+     * @param offset Index of the first point written in out; out must hold at
+     * least 2*(offset+n1+n2) values
+     * @return The number of vertices of the sum
+     */
+    static int mergeEdges(double[] c1, double[] e1, int n1, int s1,
+            double[] c2, int n2, int s2, double[] out, int offset) {
+        int i = 0, j = 0, k = 2 * offset;
+        // Current vertices of the two polygons
+        int u = s1, v = s2;
         do {
-            /*  System.out.println("-----------\ni:" + i + ",j:" + j);
-             System.out.println("i:" + pts1.get(i) + "," + pts1.get(i + 1));
-             System.out.println("j:" + pts2.get(j) + "," + pts2.get(j + 1));*/
-            pts12.add(new Point2D.Double(pts1.get(i).x + pts2.get(j).x,
-                    pts1.get(i).y + pts2.get(j).y));
-
-            double angle1, angle2;
-            if (i != pts1.size() - 2) {
-                angle1 = normalizeAngle(Geometry.getAngle(pts1.get(i), pts1.get(i + 1)));
-            } else {
-                angle1 = 9;
-            }
-            if (j != pts2.size() - 2) {
-                angle2 = normalizeAngle(Geometry.getAngle(pts2.get(j), pts2.get(j + 1)));
+            out[k++] = c1[2 * u] + c2[2 * v];
+            out[k++] = c1[2 * u + 1] + c2[2 * v + 1];
+            int uNext = u + 1 == n1 ? 0 : u + 1, vNext = v + 1 == n2 ? 0 : v + 1;
+            int cmp;
+            if (i == n1) {
+                // All the edges of the first polygon have been used
+                cmp = 1;
+            } else if (j == n2) {
+                cmp = -1;
+            } else if (e1 == null) {
+                cmp = Geometry.compareAngles(c1[2 * uNext] - c1[2 * u], c1[2 * uNext + 1] - c1[2 * u + 1],
+                        c2[2 * vNext] - c2[2 * v], c2[2 * vNext + 1] - c2[2 * v + 1]);
             } else {
-                angle2 = 9;
+                cmp = Geometry.compareAngles(e1[2 * u], e1[2 * u + 1],
+                        c2[2 * vNext] - c2[2 * v], c2[2 * vNext + 1] - c2[2 * v + 1]);
             }
-
-            // System.out.println("angleI: " + (angle1 * 360 / 2 / Math.PI) + ", angleJ= " + angle2 * 360 / 2 / Math.PI);
-            if (angle1 < angle2) {
-                i++;
-            } else if (angle1 > angle2) {
-                j++;
-            } else {
+            if (cmp <= 0) {
                 i++;
+                u = uNext;
+            }
+            if (cmp >= 0) {
                 j++;
+                v = vNext;
             }
+        } while (i != n1 || j != n2);
+        return k / 2 - offset;
+    }
 
-        } while (i != pts1.size() - 2 || j != pts2.size() - 2);
+    /**
+     * Compute the Minkowski sum of two simple, possibly non-convex polygons on
+     * the common ForkJoinPool, see
+     * {@link #minkowskiSum(Polygon, Polygon, ForkJoinPool)}.
+     *
+     * @param s1 Simple polygon
+     * @param s2 Simple polygon
+     * @return The Minkowski sum of s1 and s2
+     */
+    public static Area minkowskiSum(Polygon s1, Polygon s2) {
+        return minkowskiSum(s1, s2, ForkJoinPool.commonPool());
+    }
 
-        /* for (Point2D.Double p : pts12) {
-         System.out.print("(" + p.x + "," + p.y + ");");
-         }
-         System.out.println();*/
-        return new Polygon(pts12);
+    /**
+     * Compute the Minkowski sum of two simple, possibly non-convex polygons.
+     * Both are decomposed into convex pieces (see {@link ConvexDecomposition},
+     * which caches the decompositions), the pieces are summed pairwise with
+     * the O(n+m) convex algorithm and the sums are united; sums and unions are
+     * split among the tasks of the pool. The result may have holes, hence it
+     * is returned as an Area.
+     *
+     * @param s1 Simple polygon
+     * @param s2 Simple polygon
+     * @param pool Pool running the computation
+     * @return The Minkowski sum of s1 and s2
+     */
+    public static Area minkowskiSum(Polygon s1, Polygon s2, ForkJoinPool pool) {
+        List<PackedPolygon> pieces1 = ConvexDecomposition.getDecomposition(s1),
+                pieces2 = ConvexDecomposition.getDecomposition(s2);
+        return pool.invoke(new UnionTask(pieces1, pieces2, 0, pieces1.size() * pieces2.size()));
     }
 
-    private static void minkowskiSumConvex_checkInput(ArrayList<Point2D.Double> pts) {
-        // Make sure the first vertex has minimum y
-        // Maximizing Y due to Java Swing coordinate system (FIXME)
-        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY=-1;
-        int i = 0, index = -1;
-        for (Point2D.Double p : pts) {
-           // if (p.y > maxY || (p.y == maxY && p.x < minX)) {
-            if (p.y < minY || (p.y == minY && p.x < minX)) {
-                minX = p.x;
-           //     maxY = p.y;
-                minY = p.y;
-                index = i;
+    /**
+     * Convert the outline of an Area, as returned by minkowskiSum(), to
+     * polygons: one for each closed boundary, holes included.
+     *
+     * @param area An area bounded by line segments
+     * @return The boundaries of the area
+     */
+    public static List<Polygon> toPolygons(Area area) {
+        List<Polygon> polygons = new ArrayList<>();
+        ArrayList<Point2D.Double> pts = new ArrayList<>();
+        double[] seg = new double[6];
+        for (PathIterator it = area.getPathIterator(null); !it.isDone(); it.next()) {
+            switch (it.currentSegment(seg)) {
+                case PathIterator.SEG_MOVETO:
+                    pts.clear();
+                    pts.add(new Point2D.Double(seg[0], seg[1]));
+                    break;
+                case PathIterator.SEG_LINETO:
+                    pts.add(new Point2D.Double(seg[0], seg[1]));
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    polygons.add(new Polygon(pts));
+                    pts.clear();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Curved outline");
             }
-            i++;
         }
-        if (index != 0) {
-            /*  System.out.println("original:");
-             for (Point2D.Double p : pts) {
-             System.out.print("(" + p.x + "," + p.y + ");");
-             }
-             System.out.println();*/
-            // shift vertices
-            for (int j = 0; j < index; j++) {
-                pts.add(pts.get(0));
-                pts.remove(0);
-            }
+        return polygons;
+    }
+
+    /**
+     * Sums the pairs of convex pieces in [from, to), pair k being made of
+     * piece k / pieces2.size() of the first polygon and piece
+     * k % pieces2.size() of the second one, and unites the sums.
+     */
+    private static class UnionTask extends RecursiveTask<Area> {
+
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 8;
+        private final List<PackedPolygon> pieces1, pieces2;
+        private final int from, to;
+
+        UnionTask(List<PackedPolygon> pieces1, List<PackedPolygon> pieces2, int from, int to) {
+            this.pieces1 = pieces1;
+            this.pieces2 = pieces2;
+            this.from = from;
+            this.to = to;
         }
 
-        /*    for (Point2D.Double p : pts) {
-         System.out.print("(" + p.x + "," + p.y + ");");
-         }
-         System.out.println();*/
+        @Override
+        protected Area compute() {
+            if (to - from <= THRESHOLD) {
+                Area area = new Area();
+                for (int k = from; k < to; k++) {
+                    PackedPolygon sum = minkowskiSumConvex(pieces1.get(k / pieces2.size()),
+                            pieces2.get(k % pieces2.size()));
+                    Path2D.Double path = new Path2D.Double();
+                    path.moveTo(sum.getX(0), sum.getY(0));
+                    for (int i = 1; i < sum.getPointsNumber(); i++) {
+                        path.lineTo(sum.getX(i), sum.getY(i));
+                    }
+                    path.closePath();
+                    area.add(new Area(path));
+                }
+                return area;
+            }
+            int mid = (from + to) >>> 1;
+            UnionTask left = new UnionTask(pieces1, pieces2, from, mid);
+            left.fork();
+            Area area = new UnionTask(pieces1, pieces2, mid, to).compute();
+            area.add(left.join());
+            return area;
+        }
     }
 
-    private static double normalizeAngle(double angle) {
-        if (angle < 0) {
-            // System.out.println("norm angle: " + angle + "(" + (angle * 360 / 2 / Math.PI) + ")");
-            return 2 * Math.PI + angle;
+    /**
+     * @return The index of the vertex with minimum y (and minimum x, in case
+     * of ties), where the merge of the edges starts.
+     */
+    static int getStartIndex(double[] c, int n) {
+        int start = 0;
+        for (int i = 1; i < n; i++) {
+            if (c[2 * i + 1] < c[2 * start + 1]
+                    || (c[2 * i + 1] == c[2 * start + 1] && c[2 * i] < c[2 * start])) {
+                start = i;
+            }
         }
-        return angle;
+        return start;
     }
 
+    /**
+     * Compute the Minkowski sum of the convex hulls of two sets of points,
+     * which need not be in any order: the fallback for inputs whose vertex
+     * order can't be trusted. Since hull(A+B) = hull(A) + hull(B), each input
+     * is first replaced by its hull, in O(n log n + m log m) time, and the
+     * hulls are then merged in O(n+m); the n*m pairwise sums are never
+     * generated.
+     *
+     * @param s1 Set of points
+     * @param s2 Set of points
+     * @return The convex hull of the sums of the points of s1 and s2, in
+     * counter-clockwise order starting from the x-lexicographically smallest
+     * point, as ConvexHull.grahamConvexHull() returns it; an empty polygon if
+     * there are less than 3 sums.
+     */
     public static Polygon bruteMinkowskiSumConvex(Polygon s1, Polygon s2) {
-        //return INSTANCE.bruteMinkowskiSumConvex_private(s1, s2);
-        ArrayList<Point2D.Double> pts1 = new ArrayList<>(s1.getPoints()),
-                pts2 = new ArrayList<>(s2.getPoints()), ptsn = new ArrayList<>();
-        for (Point2D.Double p1 : pts1) {
-            for (Point2D.Double p2 : pts2) {
-                ptsn.add(new Point2D.Double(p1.x + p2.x, p1.y + p2.y));
-            }
+        // Fewer than 3 sums (e.g. an empty operand) have no hull
+        if (s1.getPointsNumber() * s2.getPointsNumber() < 3) {
+            return new Polygon(new Point2D.Double[0]);
         }
-        return new Polygon(ConvexHull.grahamConvexHull(ptsn));
+        PackedPolygon h1 = ConvexHull.grahamConvexHull(new PackedPolygon(s1)),
+                h2 = ConvexHull.grahamConvexHull(new PackedPolygon(s2));
+        double[] out = new double[2 * (h1.getPointsNumber() + h2.getPointsNumber())];
+        int n = mergeEdges(h1.getCoords(), null, h1.getPointsNumber(), h1.getStartIndex(),
+                h2.getCoords(), h2.getPointsNumber(), h2.getStartIndex(), out, 0);
+        // Hulling the O(n+m) merged points gives the same start vertex and
+        // the same handling of degenerate sums as hulling all the n*m sums
+        return ConvexHull.convexHull(out, n).toPolygon();
     }
 
     /**
@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Runs the directional penetration test (see {@link PenetrationEngine}) on
+ * the candidate pairs found by a {@link BroadPhase}, in parallel.
+ * <p>
+ * The pairs are split among the tasks of a ForkJoinPool, whose idle workers
+ * steal the halves not yet started. Each worker thread has its own engine,
+ * so that no scratch state is shared, and each pair writes its result into
+ * its own slots of primitive arrays supplied by the caller. The direction and
+ * the polygons are only read, so a dispatcher can be shared by any number of
+ * threads. The times of impact of moving polygons over a frame are computed
+ * the same way.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class NarrowPhase {
+
+    /**
+     * Number of pairs below which a task does not split
+     */
+    static final int PARALLEL_THRESHOLD = 256;
+
+    private static final ThreadLocal<Gjk> GJK = ThreadLocal.withInitial(Gjk::new);
+
+    private final Line d;
+    private final boolean orient;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param earlyOut Whether to skip the disjoint pairs with an intersection
+     * test first (see {@link PenetrationEngine#setEarlyOut})
+     */
+    public NarrowPhase(Line d, boolean orient, boolean earlyOut) {
+        this.d = d;
+        this.orient = orient;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(earlyOut));
+    }
+
+    /**
+     * Compute the penetration vectors of the pairs found by a broad phase, on
+     * the common ForkJoinPool. The first polygon of each pair is the moving
+     * one.
+     *
+     * @param broadPhase Broad phase holding the polygons
+     * @param pairs Pairs of handles of the broad phase
+     * @param vectors Receives the penetration vector of pair i at 2*i and
+     * 2*i+1
+     * @param found Receives at i whether a penetration was found for pair i
+     * @return The number of pairs for which a penetration was found
+     */
+    public int getPenetrationVectors(BroadPhase broadPhase, PairList pairs, double[] vectors,
+            boolean[] found) {
+        return getPenetrationVectors(broadPhase, pairs, vectors, found, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the penetration vectors of the pairs found by a broad phase.
+     * The first polygon of each pair is the moving one.
+     *
+     * @param broadPhase Broad phase holding the polygons
+     * @param pairs Pairs of handles of the broad phase
+     * @param vectors Receives the penetration vector of pair i at 2*i and
+     * 2*i+1
+     * @param found Receives at i whether a penetration was found for pair i
+     * @param pool Pool running the computation
+     * @return The number of pairs for which a penetration was found
+     */
+    public int getPenetrationVectors(BroadPhase broadPhase, PairList pairs, double[] vectors,
+            boolean[] found, ForkJoinPool pool) {
+        return dispatch(broadPhase::getPolygon, pairs, vectors, found, pool);
+    }
+
+    /**
+     * Compute the penetration vectors of pairs of polygons. The first polygon
+     * of each pair is the moving one.
+     *
+     * @param polygons Convex polygons, in counter-clockwise order
+     * @param pairs Pairs of indices in polygons
+     * @param vectors Receives the penetration vector of pair i at 2*i and
+     * 2*i+1
+     * @param found Receives at i whether a penetration was found for pair i
+     * @param pool Pool running the computation
+     * @return The number of pairs for which a penetration was found
+     */
+    public int getPenetrationVectors(PackedPolygon[] polygons, PairList pairs, double[] vectors,
+            boolean[] found, ForkJoinPool pool) {
+        return dispatch(i -> polygons[i], pairs, vectors, found, pool);
+    }
+
+    private int dispatch(IntFunction<PackedPolygon> polygons, PairList pairs, double[] vectors,
+            boolean[] found, ForkJoinPool pool) {
+        int n = pairs.size();
+        if (vectors.length < 2 * n || found.length < n) {
+            throw new IllegalArgumentException("Result arrays too small for " + n + " pairs");
+        }
+        return run((from, to) -> solveRange(polygons, pairs, vectors, found, from, to), n, pool);
+    }
+
+    /**
+     * Compute the times of impact of pairs of moving polygons over a frame
+     * (see {@link Gjk#timeOfImpact(PackedPolygon, PackedPolygon, double, double)}).
+     * Pairs which already intersect get 0, pairs which do not touch during
+     * the frame get -1.
+     *
+     * @param polygons Convex polygons at the start of the frame, in
+     * counter-clockwise order
+     * @param displacements Displacement of polygon i over the frame at 2*i
+     * and 2*i+1
+     * @param pairs Pairs of indices in polygons
+     * @param times Receives the time of impact of pair i at i
+     * @param pool Pool running the computation
+     * @return The number of pairs which touch during the frame
+     */
+    public static int getTimesOfImpact(PackedPolygon[] polygons, double[] displacements,
+            PairList pairs, double[] times, ForkJoinPool pool) {
+        int n = pairs.size();
+        if (times.length < n) {
+            throw new IllegalArgumentException("Result array too small for " + n + " pairs");
+        }
+        return run((from, to) -> solveImpacts(polygons, displacements, pairs, times, from, to),
+                n, pool);
+    }
+
+    private static int run(RangeSolver solver, int n, ForkJoinPool pool) {
+        if (n <= PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            return solver.solve(0, n);
+        }
+        return pool.invoke(new PairTask(solver, 0, n));
+    }
+
+    private int solveRange(IntFunction<PackedPolygon> polygons, PairList pairs,
+            double[] vectors, boolean[] found, int from, int to) {
+        Scratch s = scratch.get();
+        int hits = 0;
+        for (int i = from; i < to; i++) {
+            boolean hit = s.engine.getPenetrationVector(polygons.apply(pairs.getFirst(i)),
+                    polygons.apply(pairs.getSecond(i)), d, orient, s.out);
+            vectors[2 * i] = s.out.x;
+            vectors[2 * i + 1] = s.out.y;
+            found[i] = hit;
+            if (hit) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static int solveImpacts(PackedPolygon[] polygons, double[] displacements,
+            PairList pairs, double[] times, int from, int to) {
+        Gjk gjk = GJK.get();
+        int hits = 0;
+        for (int i = from; i < to; i++) {
+            int a = pairs.getFirst(i), b = pairs.getSecond(i);
+            double t = gjk.timeOfImpact(polygons[a], polygons[b],
+                    displacements[2 * a] - displacements[2 * b],
+                    displacements[2 * a + 1] - displacements[2 * b + 1]);
+            times[i] = t;
+            if (t >= 0) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Solves the pairs in a range of indices, returning the number of hits.
+     */
+    private interface RangeSolver {
+
+        int solve(int from, int to);
+    }
+
+    /**
+     * Scratch state of a thread.
+     */
+    private static final class Scratch {
+
+        final PenetrationEngine engine = new PenetrationEngine();
+        final Point2D.Double out = new Point2D.Double();
+
+        Scratch(boolean earlyOut) {
+            engine.setEarlyOut(earlyOut);
+        }
+    }
+
+    private static final class PairTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+        private final RangeSolver solver;
+        private final int from, to;
+
+        PairTask(RangeSolver solver, int from, int to) {
+            this.solver = solver;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return solver.solve(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            PairTask high = new PairTask(solver, mid, to);
+            high.fork();
+            int low = new PairTask(solver, from, mid).compute();
+            return low + high.join();
+        }
+    }
+}
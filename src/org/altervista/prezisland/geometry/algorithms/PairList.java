@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of pairs of ints, such as the candidate pairs found by a
+ * broad phase. Pairs are packed into a single array, so filling the list
+ * again after {@link #clear()} does not allocate.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class PairList {
+
+    private int[] pairs = new int[32];
+    private int size;
+
+    /**
+     * Append a pair.
+     *
+     * @param first First element of the pair
+     * @param second Second element of the pair
+     */
+    public void add(int first, int second) {
+        if (2 * size == pairs.length) {
+            pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+        }
+        pairs[2 * size] = first;
+        pairs[2 * size + 1] = second;
+        size++;
+    }
+
+    /**
+     * @return The number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i Index of a pair
+     * @return The first element of the i-th pair
+     */
+    public int getFirst(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+        return pairs[2 * i];
+    }
+
+    /**
+     * @param i Index of a pair
+     * @return The second element of the i-th pair
+     */
+    public int getSecond(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+        return pairs[2 * i + 1];
+    }
+
+    /**
+     * Remove all the pairs, keeping the allocated memory.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Set of unordered pairs of non-negative ints, in an open-addressing hash
+ * table of longs with linear probing. Used by the broad phases to keep
+ * their pairs without boxing them.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+final class PairSet {
+
+    private static final long EMPTY = -1;
+
+    private long[] table = new long[64];
+    private int size;
+
+    PairSet() {
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * @return Whether the pair was added, false if it was already there
+     */
+    boolean add(int a, int b) {
+        if (2 * (size + 1) > table.length) {
+            grow();
+        }
+        long key = key(a, b);
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            if (table[i] == key) {
+                return false;
+            }
+            if (table[i] == EMPTY) {
+                table[i] = key;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return Whether the pair was removed, false if it was not there
+     */
+    boolean remove(int a, int b) {
+        long key = key(a, b);
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] != key) {
+            if (table[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Shift back the following keys of the cluster, instead of leaving
+        // a tombstone
+        for (int j = (i + 1) & mask; table[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(table[j]) & mask;
+            // Move the key if its home is not in (i, j]
+            if ((j > i && (home <= i || home > j)) || (j < i && home <= i && home > j)) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = EMPTY;
+        size--;
+        return true;
+    }
+
+    boolean contains(int a, int b) {
+        long key = key(a, b);
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Append all the pairs to a list, the smaller element first.
+     */
+    void addTo(PairList out) {
+        for (long key : table) {
+            if (key != EMPTY) {
+                out.add((int) (key >>> 32), (int) key);
+            }
+        }
+    }
+
+    /**
+     * Append the pairs accepted by a filter to a list, the smaller element
+     * first.
+     */
+    void addTo(PairList out, Filter filter) {
+        for (long key : table) {
+            if (key != EMPTY && filter.accept((int) (key >>> 32), (int) key)) {
+                out.add((int) (key >>> 32), (int) key);
+            }
+        }
+    }
+
+    /**
+     * Remove the pairs rejected by a filter, in one pass over the table.
+     */
+    void retainAll(Filter filter) {
+        for (int i = 0; i < table.length; i++) {
+            long key = table[i];
+            if (key != EMPTY && !filter.accept((int) (key >>> 32), (int) key)
+                    && remove((int) (key >>> 32), (int) key)) {
+                // A key may have been shifted into slot i
+                i--;
+            }
+        }
+    }
+
+    /**
+     * Remove all the pairs with a marked element, in one pass over the table.
+     */
+    void removeAll(boolean[] marked) {
+        for (int i = 0; i < table.length; i++) {
+            long key = table[i];
+            if (key != EMPTY && (marked[(int) (key >>> 32)] || marked[(int) key])
+                    && remove((int) (key >>> 32), (int) key)) {
+                // A key may have been shifted into slot i
+                i--;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[2 * old.length];
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        for (long key : old) {
+            if (key != EMPTY) {
+                add((int) (key >>> 32), (int) key);
+            }
+        }
+    }
+
+    /**
+     * Predicate on the pairs of a set.
+     */
+    interface Filter {
+
+        boolean accept(int a, int b);
+    }
+
+    private static long key(int a, int b) {
+        return a < b ? (long) a << 32 | b : (long) b << 32 | a;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Divide and conquer convex hull for very large point sets. The points are
+ * sorted, the sorted array is split into slabs, the hulls of the slabs are
+ * computed in parallel on a ForkJoinPool and adjacent hulls are merged by
+ * finding their upper and lower tangents (bridges).
+ * <p>
+ * Each hull is kept as a lower and an upper chain, both sorted by x; merging
+ * two of them takes time linear in their size, and the result is the same as
+ * that of ConvexHull.convexHull().
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+final class ParallelConvexHull {
+
+    /**
+     * Default number of points under which a slab is not split further.
+     */
+    static final int DEFAULT_THRESHOLD = 1 << 15;
+
+    private ParallelConvexHull() {
+    }
+
+    static PackedPolygon convexHull(double[] coords, int n, int threshold, ForkJoinPool pool) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        }
+        double[] sorted = Arrays.copyOf(coords, 2 * n);
+        Sorting.sortLexicographicallyX(sorted, n, pool);
+        if (n < 2) {
+            return new PackedPolygon(sorted, n);
+        }
+        Chains chains = pool.invoke(new HullTask(sorted, 0, n, threshold));
+        // Lower chain, then upper chain backwards without its endpoints
+        int size = chains.lowerSize + chains.upperSize - 2;
+        double[] out = new double[2 * size];
+        int k = 0;
+        for (int i = 0; i < chains.lowerSize; i++) {
+            out[k++] = sorted[2 * chains.lower[i]];
+            out[k++] = sorted[2 * chains.lower[i] + 1];
+        }
+        for (int i = chains.upperSize - 2; i > 0; i--) {
+            out[k++] = sorted[2 * chains.upper[i]];
+            out[k++] = sorted[2 * chains.upper[i] + 1];
+        }
+        return new PackedPolygon(out, size);
+    }
+
+    /**
+     * Lower and upper hull of a slab, as indices into the sorted points, both
+     * in increasing x order.
+     */
+    private static class Chains {
+
+        final int[] lower, upper;
+        final int lowerSize, upperSize;
+
+        Chains(int[] lower, int lowerSize, int[] upper, int upperSize) {
+            this.lower = lower;
+            this.lowerSize = lowerSize;
+            this.upper = upper;
+            this.upperSize = upperSize;
+        }
+    }
+
+    private static class HullTask extends RecursiveTask<Chains> {
+
+        private static final long serialVersionUID = 1L;
+        private final double[] c;
+        private final int lo, hi, threshold;
+
+        HullTask(double[] c, int lo, int hi, int threshold) {
+            this.c = c;
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Chains compute() {
+            if (hi - lo <= threshold) {
+                return hull(c, lo, hi);
+            }
+            int mid = (lo + hi) >>> 1;
+            HullTask left = new HullTask(c, lo, mid, threshold);
+            left.fork();
+            Chains right = new HullTask(c, mid, hi, threshold).compute();
+            return merge(c, left.join(), right);
+        }
+    }
+
+    /**
+     * Monotone chain on the sorted points in [lo, hi).
+     */
+    private static Chains hull(double[] c, int lo, int hi) {
+        int n = hi - lo;
+        int[] lower = new int[n], upper = new int[n];
+        int l = 0, u = 0;
+        for (int i = lo; i < hi; i++) {
+            while (l >= 2 && cross(c, lower[l - 2], lower[l - 1], i) <= 0) {
+                l--;
+            }
+            lower[l++] = i;
+            while (u >= 2 && cross(c, upper[u - 2], upper[u - 1], i) >= 0) {
+                u--;
+            }
+            upper[u++] = i;
+        }
+        return new Chains(lower, l, upper, u);
+    }
+
+    /**
+     * Merge the hulls of two adjacent slabs, a being on the left of b.
+     */
+    private static Chains merge(double[] c, Chains a, Chains b) {
+        // Lower bridge: the turns at its endpoints must be left turns
+        int i = a.lowerSize - 1, j = 0;
+        boolean moved;
+        do {
+            moved = false;
+            while (i > 0 && cross(c, a.lower[i - 1], a.lower[i], b.lower[j]) <= 0) {
+                i--;
+                moved = true;
+            }
+            while (j < b.lowerSize - 1 && cross(c, a.lower[i], b.lower[j], b.lower[j + 1]) <= 0) {
+                j++;
+                moved = true;
+            }
+        } while (moved);
+        int[] lower = concat(a.lower, i + 1, b.lower, j, b.lowerSize);
+        int lowerSize = i + 1 + b.lowerSize - j;
+
+        // Upper bridge: the turns at its endpoints must be right turns
+        i = a.upperSize - 1;
+        j = 0;
+        do {
+            moved = false;
+            while (i > 0 && cross(c, a.upper[i - 1], a.upper[i], b.upper[j]) >= 0) {
+                i--;
+                moved = true;
+            }
+            while (j < b.upperSize - 1 && cross(c, a.upper[i], b.upper[j], b.upper[j + 1]) >= 0) {
+                j++;
+                moved = true;
+            }
+        } while (moved);
+        int[] upper = concat(a.upper, i + 1, b.upper, j, b.upperSize);
+        int upperSize = i + 1 + b.upperSize - j;
+        return new Chains(lower, lowerSize, upper, upperSize);
+    }
+
+    /**
+     * @return a[0, aEnd) followed by b[bStart, bEnd)
+     */
+    private static int[] concat(int[] a, int aEnd, int[] b, int bStart, int bEnd) {
+        int[] r = new int[aEnd + bEnd - bStart];
+        System.arraycopy(a, 0, r, 0, aEnd);
+        System.arraycopy(b, bStart, r, aEnd, bEnd - bStart);
+        return r;
+    }
+
+    /**
+     * @return The cross product of (p2 - p1) and (p3 - p1), positive for left
+     * turns.
+     */
+    private static double cross(double[] c, int p1, int p2, int p3) {
+        return (c[2 * p2] - c[2 * p1]) * (c[2 * p3 + 1] - c[2 * p1 + 1])
+                - (c[2 * p2 + 1] - c[2 * p1 + 1]) * (c[2 * p3] - c[2 * p1]);
+    }
+}
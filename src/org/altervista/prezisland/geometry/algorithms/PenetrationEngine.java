@@ -0,0 +1,580 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import org.altervista.prezisland.geometry.Geometry;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.ConvexPolygon;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.altervista.prezisland.geometry.shapes.TransformedPolygon;
+
+/**
+ * Allocation-free implementation of the directional penetration algorithm by
+ * Guibas and Stolfi (see {@link CollisionDetection#penVect}).
+ * <p>
+ * The shadows are never copied: they are {@link ShadowChain} views over the
+ * source polygons, each one is pruned by moving a pair of cursors (first
+ * vertex and number of vertices) over the chain, and every geometric test is
+ * carried out on primitive doubles. The result is written into a Point
+ * supplied by the caller, so a query does not touch the heap.
+ * <p>
+ * Instances hold scratch state and are not thread-safe; use one engine per
+ * thread.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class PenetrationEngine {
+
+    /*
+     Positions relative to a directed segment, mirroring Segment.Position
+     */
+    private static final int LEFT = 0, RIGHT = 1, COLLIDES = 2,
+            COLLINEAR_ABOVE = 3, COLLINEAR_BELOW = 4;
+    /**
+     * Same tollerance used by Segment.testAgainst()
+     */
+    private static final double TOLLERANCE = 0.001;
+
+    // Direction of penetration
+    private boolean vertical, horizontal;
+    private double slope;
+    // Scratch: last computed intersection point
+    private double ix, iy;
+    // Scratch: shadow views
+    private final ShadowChain shadowA = new ShadowChain(), shadowB = new ShadowChain();
+    // Intersection pre-test, null if disabled
+    private Gjk gjk;
+
+    /**
+     * Enable or disable the intersection pre-test. When enabled, the polygons
+     * are first tested with {@link Gjk#intersects}, and if they are disjoint
+     * the query returns false with a (0,0) vector without building the
+     * shadows. This is much cheaper on mostly separated pairs, but note that
+     * without the pre-test the algorithm also reports, for disjoint polygons,
+     * the translation along d that brings them into contact.
+     * <p>
+     * Disabled by default.
+     *
+     * @param earlyOut Whether to test for intersection first
+     */
+    public void setEarlyOut(boolean earlyOut) {
+        gjk = earlyOut ? new Gjk() : null;
+    }
+
+    /**
+     * @return Whether the intersection pre-test is enabled
+     */
+    public boolean isEarlyOut() {
+        return gjk != null;
+    }
+
+    /**
+     * Compute the penetration vector of two convex polygons along a direction.
+     * The polygons are not copied nor modified.
+     *
+     * @param P1 First Polygon (the moving one), in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean getPenetrationVector(Polygon P1, Polygon P2, Line d,
+            boolean orient, Point2D.Double out) {
+        if (gjk != null && !gjk.intersects(P1, P2)) {
+            out.setLocation(0, 0);
+            return false;
+        }
+        List<Point2D.Double> P = P1.getPoints(), Q = P2.getPoints();
+        // Reference points of P and Q
+        int x = getReferenceIndex(P), y = getReferenceIndex(Q);
+        int pMax = getMaxIndex(P, x), qMax = getMaxIndex(Q, y);
+        // w = y - x   <- the point to test the shadows' convolution against
+        // y = left shadow reference point
+        // x = right shadow reference point
+        double wx = Q.get(y).x - P.get(x).x, wy = Q.get(y).y - P.get(x).y;
+        if (orient) {
+            // Left shadow of P, right shadow of Q (inverted)
+            return penetrationVector(shadowA.setLeftShadow(P, x, pMax),
+                    shadowB.setRightShadowInv(Q, y, qMax), wx, wy, d, orient, out);
+        } else {
+            // Left shadow of Q, right shadow of P (inverted)
+            return penetrationVector(shadowA.setLeftShadow(Q, y, qMax),
+                    shadowB.setRightShadowInv(P, x, pMax), -wx, -wy, d, !orient, out);
+        }
+    }
+
+    /**
+     * Compute the penetration vector of two convex packed polygons along a
+     * direction. The reference points and extreme vertices cached by the
+     * polygons are used, so no vertex is scanned: the query runs in
+     * logarithmic time.
+     *
+     * @param P1 First Polygon (the moving one), in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean getPenetrationVector(PackedPolygon P1, PackedPolygon P2, Line d,
+            boolean orient, Point2D.Double out) {
+        if (gjk != null && !gjk.intersects(P1, P2)) {
+            out.setLocation(0, 0);
+            return false;
+        }
+        int x = P1.getStartIndex(), y = P2.getStartIndex();
+        double wx = P2.getX(y) - P1.getX(x), wy = P2.getY(y) - P1.getY(x);
+        if (orient) {
+            return penetrationVector(shadowA.setLeftShadow(P1),
+                    shadowB.setRightShadowInv(P2), wx, wy, d, orient, out);
+        } else {
+            return penetrationVector(shadowA.setLeftShadow(P2),
+                    shadowB.setRightShadowInv(P1), -wx, -wy, d, !orient, out);
+        }
+    }
+
+    /**
+     * Compute the penetration vector of two immutable convex polygons along a
+     * direction. The reference points and the vertices with maximum y were
+     * found when the polygons were created, so no vertex is scanned and the
+     * result is the same as for the polygons returned by
+     * {@link ConvexPolygon#toPolygon()}.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean getPenetrationVector(ConvexPolygon P1, ConvexPolygon P2, Line d,
+            boolean orient, Point2D.Double out) {
+        if (gjk != null && !gjk.intersects(P1, P2)) {
+            out.setLocation(0, 0);
+            return false;
+        }
+        int x = P1.getStartIndex(), y = P2.getStartIndex();
+        double wx = P2.getX(y) - P1.getX(x), wy = P2.getY(y) - P1.getY(x);
+        if (orient) {
+            return penetrationVector(shadowA.setLeftShadow(P1),
+                    shadowB.setRightShadowInv(P2), wx, wy, d, orient, out);
+        } else {
+            return penetrationVector(shadowA.setLeftShadow(P2),
+                    shadowB.setRightShadowInv(P1), -wx, -wy, d, !orient, out);
+        }
+    }
+
+    /**
+     * Compute the penetration vector of two transformed convex polygons along
+     * a direction. The polygons are not materialized: the reference points
+     * and the vertices with maximum y are looked up in their edge tables, and
+     * the shadows transform only the vertices they visit. The result is the
+     * same as for the polygons returned by
+     * {@link TransformedPolygon#toPolygon()}.
+     *
+     * @param P1 First Polygon (the moving one)
+     * @param P2 Second Polygon
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean getPenetrationVector(TransformedPolygon P1, TransformedPolygon P2, Line d,
+            boolean orient, Point2D.Double out) {
+        if (gjk != null && !gjk.intersects(P1, P2)) {
+            out.setLocation(0, 0);
+            return false;
+        }
+        int x = P1.getStartIndex(), y = P2.getStartIndex();
+        int pMax = P1.getMaxYIndex(x), qMax = P2.getMaxYIndex(y);
+        double wx = P2.getX(y) - P1.getX(x), wy = P2.getY(y) - P1.getY(x);
+        if (orient) {
+            return penetrationVector(shadowA.setLeftShadow(P1, x, pMax),
+                    shadowB.setRightShadowInv(P2, y, qMax), wx, wy, d, orient, out);
+        } else {
+            return penetrationVector(shadowA.setLeftShadow(P2, y, qMax),
+                    shadowB.setRightShadowInv(P1, x, pMax), -wx, -wy, d, !orient, out);
+        }
+    }
+
+    /**
+     * Compute the penetration vector between a left shadow and an inverted
+     * right shadow. Neither the shadows, nor w, nor d are modified.
+     *
+     * @param A Left shadow of a Polygon
+     * @param B Inverted right shadow of a Polygon
+     * @param w Position vector (difference between A and B's position vectors)
+     * @param d Direction of penetration ( as a Line ), its position is ignored
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean penetrationVector(Polygon A, Polygon B, Point2D.Double w,
+            Line d, boolean orient, Point2D.Double out) {
+        return penetrationVector(shadowA.setChain(A.getPoints()),
+                shadowB.setChain(B.getPoints()), w.x, w.y, d, orient, out);
+    }
+
+    /**
+     * Compute the penetration vector between a left shadow and an inverted
+     * right shadow.
+     *
+     * @param A Left shadow of a Polygon
+     * @param B Inverted right shadow of a Polygon
+     * @param wx X coordinate of the position vector
+     * @param wy Y coordinate of the position vector
+     * @param d Direction of penetration ( as a Line ), its position is ignored
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean penetrationVector(ShadowChain A, ShadowChain B,
+            double wx, double wy, Line d, boolean orient, Point2D.Double out) {
+        vertical = d.isVertical();
+        horizontal = d.isHorizontal();
+        slope = d.getSlope();
+
+        // Cursors: first vertex and number of vertices of each shadow
+        int aLo = 0, aN = A.size(), bLo = 0, bN = B.size();
+
+        // Loop until a shadow is reduced to a single vertex
+        while (aN > 1 && bN > 1) {
+            // Median point indexes
+            int i = aLo + (aN - 1) / 2, j = bLo + (bN - 1) / 2;
+            double a1X = A.x(i), a1Y = A.y(i), a2X = A.x(i + 1), a2Y = A.y(i + 1),
+                    b1X = B.x(j), b1Y = B.y(j), b2X = B.x(j + 1), b2Y = B.y(j + 1);
+            // Check if the segments starting from i and j are in slope order
+            if (Geometry.compareAngles(a2X - a1X, a2Y - a1Y, b2X - b1X, b2Y - b1Y) > 0) {
+                ShadowChain C = A;
+                A = B;
+                B = C;
+                int k = i;
+                i = j;
+                j = k;
+                k = aLo;
+                aLo = bLo;
+                bLo = k;
+                k = aN;
+                aN = bN;
+                bN = k;
+                double t = a1X;
+                a1X = b1X;
+                b1X = t;
+                t = a1Y;
+                a1Y = b1Y;
+                b1Y = t;
+                t = a2X;
+                a2X = b2X;
+                b2X = t;
+                t = a2Y;
+                a2Y = b2Y;
+                b2Y = t;
+            }
+            // Now assuming f and g are in slope order
+            // Calculate the displacement of f in the chain D: (Al*Bl -> f -> g -> Ah*Bh)
+            double f1X = a1X + b1X, f1Y = a1Y + b1Y;
+            double f2X = f1X + (a2X - a1X), f2Y = f1Y + (a2Y - a1Y);
+            // g1 == f2
+            double g2X = f2X + (b2X - b1X), g2Y = f2Y + (b2Y - b1Y);
+
+            if (intersect(f1X, f1Y, f2X, f2Y, wx, wy)
+                    && isValid(f1X, f1Y, f2X, f2Y, wx, wy)) {
+                int posF = position(f1X, f1Y, f2X, f2Y, ix, iy);
+                if (posF == COLLIDES || posF == COLLINEAR_BELOW) {
+                    // Intersection below f: g and Bh can be removed
+                    bN = j - bLo + 1;
+                    continue;
+                } else if (posF == COLLINEAR_ABOVE) {
+                    // Intersection above f: f and Al can be removed
+                    aN -= i - aLo + 1;
+                    aLo = i + 1;
+                    continue;
+                }
+            }
+            if (intersect(f2X, f2Y, g2X, g2Y, wx, wy)
+                    && isValid(f2X, f2Y, g2X, g2Y, wx, wy)) {
+                int posG = position(f2X, f2Y, g2X, g2Y, ix, iy);
+                if (posG == COLLIDES || posG == COLLINEAR_ABOVE) {
+                    // Intersection above g: f and Al can be removed
+                    aN -= i - aLo + 1;
+                    aLo = i + 1;
+                    continue;
+                } else if (posG == COLLINEAR_BELOW) {
+                    // Intersection below g: g and Bh can be removed
+                    bN = j - bLo + 1;
+                    continue;
+                }
+            }
+
+            // No valid intersection
+            // Use information on d to choose what to drop
+            if (dropLow(orient, wy, f1Y)) {
+                // Drop Al and f
+                aN -= i - aLo + 1;
+                aLo = i + 1;
+            } else {
+                // Drop Bh and g
+                bN = j - bLo + 1;
+            }
+        }// End while loop
+
+        // One shadow is reduced to one vertex v, check the other one against w-v
+        if (aN == 1) {
+            wx -= A.x(aLo);
+            wy -= A.y(aLo);
+            A = B;
+            aLo = bLo;
+            aN = bN;
+        } else if (bN == 1) {
+            wx -= B.x(bLo);
+            wy -= B.y(bLo);
+        } else {
+            throw new RuntimeException("Impossible? Shadows not reduced to one vertex.");
+        }
+
+        // Binary search in the remaining shadow
+        while (aN >= 2) {
+            int i = (aN - 1) / 2;
+            double e1X = A.x(aLo + i), e1Y = A.y(aLo + i),
+                    e2X = A.x(aLo + i + 1), e2Y = A.y(aLo + i + 1);
+            boolean dropLow;
+            if (intersect(e1X, e1Y, e2X, e2Y, wx, wy)
+                    && isValid(e1X, e1Y, e2X, e2Y, wx, wy)) {
+                int posE = position(e1X, e1Y, e2X, e2Y, ix, iy);
+                if (posE == COLLIDES) {
+                    out.setLocation(ix - wx, iy - wy);
+                    return true;
+                } else if (posE == COLLINEAR_BELOW) {
+                    dropLow = false;
+                } else if (posE == COLLINEAR_ABOVE) {
+                    dropLow = true;
+                } else {
+                    // Anomalous state: the intersection is not on the edge's line
+                    break;
+                }
+            } else {
+                // Intersection for e invalid.
+                // Use info on d to choose what to drop
+                dropLow = dropLow(orient, wy, e1Y);
+            }
+            if (dropLow) {
+                aLo += i;
+                aN -= i + 1;
+            } else {
+                aN = i;
+            }
+        }
+
+        // No intersection: null penetration.
+        out.setLocation(0, 0);
+        return false;
+    }
+
+    /**
+     * @param pts Vertices of a polygon
+     * @return The index of the vertex with minimum y (and minimum x among
+     * those), the same chosen by Polygon.normalizePointOrder().
+     */
+    static int getReferenceIndex(List<Point2D.Double> pts) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        int index = -1;
+        for (int i = 0; i < pts.size(); i++) {
+            Point2D.Double p = pts.get(i);
+            if (p.y < minY || (p.y == minY && p.x < minX)) {
+                minX = p.x;
+                minY = p.y;
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param pts Vertices of a polygon
+     * @param start Index of the reference point
+     * @return The index of the first vertex with maximum y, counting
+     * counter-clockwise from the reference point.
+     */
+    static int getMaxIndex(List<Point2D.Double> pts, int start) {
+        int n = pts.size(), index = start;
+        double max = pts.get(start).y;
+        for (int k = 1; k < n; k++) {
+            int i = start + k < n ? start + k : start + k - n;
+            if (pts.get(i).y > max) {
+                max = pts.get(i).y;
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * When no valid intersection is found, use the direction of d to choose
+     * which part of the chains to drop.
+     *
+     * @return True if the lower part must be dropped, false for the higher one.
+     */
+    private boolean dropLow(boolean orient, double wy, double y) {
+        if (vertical) {
+            return orient;
+        } else if (horizontal) {
+            return wy > y;
+        } else {
+            // d is oblique
+            return slope > 0;
+        }
+    }
+
+    /**
+     * Check whether the last intersection point, found on the line through
+     * p1 and p2, lies on the ray d starting from w.
+     */
+    private boolean isValid(double p1X, double p1Y, double p2X, double p2Y,
+            double wx, double wy) {
+        if (ix < wx || position(p1X, p1Y, p2X, p2Y, wx, wy) == RIGHT) {
+            return false;
+        }
+        if ((vertical || (!horizontal && slope > 0)) && iy < wy) {
+            return false;
+        }
+        return !(!vertical && !horizontal && slope < 0 && iy > wy);
+    }
+
+    /**
+     * Intersect the line through p1 and p2 with the direction line passing
+     * through w, as Line.testIntersection() does. The result is stored in
+     * (ix, iy).
+     *
+     * @return False if the lines are parallel and distinct, true otherwise.
+     */
+    private boolean intersect(double p1X, double p1Y, double p2X, double p2Y,
+            double wx, double wy) {
+        // Equation: a*x + b*y + c = 0
+        double a = p1Y - p2Y, b = p2X - p1X,
+                c = p1Y * (p1X - p2X) + p1X * (p2Y - p1Y);
+        if (vertical) {
+            if (b == 0) {
+                // Parallel lines: if they are the same line use a witness point
+                ix = -c / a;
+                iy = 0;
+                return ix == wx;
+            }
+            ix = wx;
+            iy = a == 0 ? -c / b : ix * (-a / b) + (-c / b);
+        } else if (horizontal) {
+            if (a == 0) {
+                ix = 0;
+                iy = -c / b;
+                return iy == wy;
+            }
+            iy = wy;
+            ix = b == 0 ? -c / a : (-b / a) * iy + (-c / a);
+        } else if (b == 0) {
+            // d oblique, edge vertical
+            ix = -c / a;
+            iy = slope * (ix - wx) + wy;
+        } else if (a == 0) {
+            // d oblique, edge horizontal
+            iy = -c / b;
+            ix = (iy - wy) / slope + wx;
+        } else {
+            double eSlope = -a / b, eIntercept = -c / b;
+            if (eSlope == slope) {
+                ix = 0;
+                iy = eIntercept;
+                return eIntercept == wy - slope * wx;
+            }
+            ix = ((wy - slope * wx) - eIntercept) / (eSlope - slope);
+            iy = ix * eSlope + eIntercept;
+        }
+        return true;
+    }
+
+    /**
+     * Position of a point relative to the segment p1-p2, computed as in
+     * Segment.testAgainst().
+     *
+     * @return One of LEFT, RIGHT, COLLIDES, COLLINEAR_ABOVE, COLLINEAR_BELOW
+     */
+    private static int position(double p1X, double p1Y, double p2X, double p2Y,
+            double px, double py) {
+        double a = p1Y - p2Y, b = p2X - p1X,
+                c = p1Y * (p1X - p2X) + p1X * (p2Y - p1Y);
+        if (a == 0) {
+            // Horizontal segment
+            boolean direction = p1X < p2X;
+            if (py < -(c / b) - TOLLERANCE) {
+                return direction ? RIGHT : LEFT;
+            } else if (py > -(c / b) + TOLLERANCE) {
+                return direction ? LEFT : RIGHT;
+            }
+            return collinear(direction, direction ? p1X : p2X, direction ? p2X : p1X, px);
+        } else if (b == 0) {
+            // Vertical segment
+            boolean direction = p1Y < p2Y;
+            if (px < -(c / a) - TOLLERANCE) {
+                return direction ? LEFT : RIGHT;
+            }
+            if (px > -(c / a) + TOLLERANCE) {
+                return direction ? RIGHT : LEFT;
+            }
+            double lo = direction ? p1Y : p2Y, hi = direction ? p2Y : p1Y;
+            if (py >= lo - TOLLERANCE && py <= hi + TOLLERANCE) {
+                return COLLIDES;
+            } else if (py < lo + TOLLERANCE) {
+                return direction ? COLLINEAR_BELOW : COLLINEAR_ABOVE;
+            }
+            return direction ? COLLINEAR_ABOVE : COLLINEAR_BELOW;
+        } else {
+            // Oblique segment
+            double y = (-a / b) * px + (-c / b);
+            boolean direction = p1X < p2X || (p1X == p2X && p1Y < p2Y);
+            if (py > y + TOLLERANCE) {
+                return direction ? LEFT : RIGHT;
+            } else if (py < y - TOLLERANCE) {
+                return direction ? RIGHT : LEFT;
+            }
+            return collinear(direction, direction ? p1X : p2X, direction ? p2X : p1X, px);
+        }
+    }
+
+    private static int collinear(boolean direction, double lo, double hi, double px) {
+        if (px >= lo - TOLLERANCE && px <= hi + TOLLERANCE) {
+            return COLLIDES;
+        } else if (px < lo - TOLLERANCE) {
+            return direction ? COLLINEAR_BELOW : COLLINEAR_ABOVE;
+        }
+        return direction ? COLLINEAR_ABOVE : COLLINEAR_BELOW;
+    }
+}
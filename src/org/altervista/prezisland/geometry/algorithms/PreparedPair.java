@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+
+/**
+ * A pair of convex polygons prepared for directional penetration queries
+ * (see {@link PenetrationEngine}) along many directions.
+ * <p>
+ * The shadows do not depend on the direction of penetration, so the
+ * reference points and extreme vertices of the polygons are found once, when
+ * the pair is built, and the four shadows (one left and one inverted right
+ * shadow per polygon) are kept as {@link ShadowChain} views. Each query then
+ * only runs the logarithmic search. The polygons are not copied: they must
+ * not be modified while the pair is in use.
+ * <p>
+ * Instances hold scratch state and are not thread-safe.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class PreparedPair {
+
+    private final PenetrationEngine engine = new PenetrationEngine();
+    // Left shadow of each polygon, inverted right shadow of each polygon
+    private final ShadowChain left1 = new ShadowChain(), left2 = new ShadowChain(),
+            right1 = new ShadowChain(), right2 = new ShadowChain();
+    // Difference of the reference points
+    private final double wx, wy;
+    // Whether the intersection pre-test found the polygons disjoint
+    private final boolean disjoint;
+
+    /**
+     * Prepare a pair of convex polygons. The vertices are scanned once, in
+     * O(n) time.
+     *
+     * @param P1 First Polygon (the moving one), in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param earlyOut Whether to test for intersection first (see
+     * {@link PenetrationEngine#setEarlyOut}); the test is run once, here
+     */
+    public PreparedPair(Polygon P1, Polygon P2, boolean earlyOut) {
+        List<Point2D.Double> P = P1.getPoints(), Q = P2.getPoints();
+        int x = PenetrationEngine.getReferenceIndex(P), y = PenetrationEngine.getReferenceIndex(Q);
+        int pMax = PenetrationEngine.getMaxIndex(P, x), qMax = PenetrationEngine.getMaxIndex(Q, y);
+        left1.setLeftShadow(P, x, pMax);
+        right1.setRightShadowInv(P, x, pMax);
+        left2.setLeftShadow(Q, y, qMax);
+        right2.setRightShadowInv(Q, y, qMax);
+        wx = Q.get(y).x - P.get(x).x;
+        wy = Q.get(y).y - P.get(x).y;
+        disjoint = earlyOut && !new Gjk().intersects(P1, P2);
+    }
+
+    /**
+     * Prepare a pair of convex packed polygons. The indices cached by the
+     * polygons are used, so this takes O(1) time for strictly convex polygons.
+     *
+     * @param P1 First Polygon (the moving one), in counter-clockwise order
+     * @param P2 Second Polygon, in counter-clockwise order
+     * @param earlyOut Whether to test for intersection first (see
+     * {@link PenetrationEngine#setEarlyOut}); the test is run once, here
+     */
+    public PreparedPair(PackedPolygon P1, PackedPolygon P2, boolean earlyOut) {
+        left1.setLeftShadow(P1);
+        right1.setRightShadowInv(P1);
+        left2.setLeftShadow(P2);
+        right2.setRightShadowInv(P2);
+        int x = P1.getStartIndex(), y = P2.getStartIndex();
+        wx = P2.getX(y) - P1.getX(x);
+        wy = P2.getY(y) - P1.getY(x);
+        disjoint = earlyOut && !new Gjk().intersects(P1, P2);
+    }
+
+    /**
+     * Compute the penetration vector of the pair along a direction, as
+     * {@link PenetrationEngine#getPenetrationVector(Polygon, Polygon, Line, boolean, Point2D.Double)}
+     * would.
+     *
+     * @param d Direction of penetration ( as a Line )
+     * @param orient Orientation of the direction ray d
+     * @param out Point that receives the penetration vector ((0,0) if there is
+     * no penetration)
+     * @return True if a penetration was found, false otherwise.
+     */
+    public boolean getPenetrationVector(Line d, boolean orient, Point2D.Double out) {
+        if (disjoint) {
+            out.setLocation(0, 0);
+            return false;
+        }
+        if (orient) {
+            // Left shadow of P1, right shadow of P2 (inverted)
+            return engine.penetrationVector(left1, right2, wx, wy, d, orient, out);
+        } else {
+            // Left shadow of P2, right shadow of P1 (inverted)
+            return engine.penetrationVector(left2, right1, -wx, -wy, d, !orient, out);
+        }
+    }
+
+    /**
+     * Compute the penetration vectors of the pair along many directions.
+     *
+     * @param directions Directions of penetration ( as Lines )
+     * @param orients Orientation of each direction ray
+     * @param vectors Receives the penetration vector along direction i at 2*i
+     * and 2*i+1
+     * @param found Receives at i whether a penetration was found along
+     * direction i
+     * @return The number of directions along which a penetration was found
+     */
+    public int getPenetrationVectors(Line[] directions, boolean[] orients, double[] vectors,
+            boolean[] found) {
+        int n = directions.length;
+        if (orients.length < n || vectors.length < 2 * n || found.length < n) {
+            throw new IllegalArgumentException("Arrays too small for " + n + " directions");
+        }
+        Point2D.Double out = new Point2D.Double();
+        int hits = 0;
+        for (int i = 0; i < n; i++) {
+            boolean hit = getPenetrationVector(directions[i], orients[i], out);
+            vectors[2 * i] = out.x;
+            vectors[2 * i + 1] = out.y;
+            found[i] = hit;
+            if (hit) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+
+/**
+ * Separating axis intersection test between convex polygons, with a memory
+ * of the last separating axis of each pair.
+ * <p>
+ * When the same pairs are tested over and over with little relative motion,
+ * the edge that separated a pair last time almost always separates it again.
+ * For each pair the cache keeps that edge and the witness vertex of the
+ * other polygon (the one nearest to the edge line), and tries them first:
+ * the witness is updated by hill-climbing from its old position, so a
+ * steady-state query costs O(1). When the cached edge fails, the pair is
+ * tested by {@link Gjk}; if it is separated, a new separating edge is looked
+ * for among all the edges, with the witness carried from one edge to the
+ * next, in O(n+m).
+ * <p>
+ * Pairs are identified by the polygon objects (not their contents) and the
+ * order of the arguments; polygons may be moved or deformed between queries,
+ * as long as they stay convex. At most {@link #getCapacity()} pairs are
+ * remembered: the least recently queried one is evicted first. Note that the
+ * cache keeps the polygons of the remembered pairs reachable.
+ * <p>
+ * Instances are not thread-safe; use one per thread.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class SeparatingAxisCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private final int capacity;
+    private final LinkedHashMap<Pair, Axis> cache;
+    // Reused to look up pairs without allocating
+    private final Pair probe = new Pair(null, null);
+    private long hits, misses;
+
+    // Vertices of the two polygons: either a list or packed coordinates
+    private List<Point2D.Double> listA, listB;
+    private double[] coordsA, coordsB;
+    private int nA, nB;
+    // Witness found by the last call to separates()
+    private int witness;
+    // Memory of the pair being tested
+    private Axis axis;
+    private final Gjk gjk = new Gjk();
+
+    public SeparatingAxisCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of pairs to remember
+     */
+    public SeparatingAxisCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        // Access order: iteration starts from the least recently used pair
+        cache = new LinkedHashMap<Pair, Axis>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Pair, Axis> eldest) {
+                return size() > SeparatingAxisCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Test whether two convex polygons intersect (touching counts).
+     *
+     * @param A Convex polygon, in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(Polygon A, Polygon B) {
+        listA = A.getPoints();
+        listB = B.getPoints();
+        coordsA = null;
+        coordsB = null;
+        // A pair that is not separated by its last axis is tested by GJK,
+        // which is faster than trying every axis when the polygons intersect
+        return !cached(A, A.getPointsNumber(), B, B.getPointsNumber())
+                && update(gjk.intersects(A, B));
+    }
+
+    /**
+     * Test whether two convex packed polygons intersect (touching counts).
+     *
+     * @param A Convex polygon, in counter-clockwise order
+     * @param B Convex polygon, in counter-clockwise order
+     * @return Whether A and B intersect
+     */
+    public boolean intersects(PackedPolygon A, PackedPolygon B) {
+        listA = null;
+        listB = null;
+        coordsA = A.getCoords();
+        coordsB = B.getCoords();
+        return !cached(A, A.getPointsNumber(), B, B.getPointsNumber())
+                && update(gjk.intersects(A, B));
+    }
+
+    /**
+     * @return Maximum number of pairs remembered
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of pairs currently remembered
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return Number of queries answered by the cached separating axis
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of queries that had to try every axis
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Forget all the pairs and reset the counters.
+     */
+    public void clear() {
+        cache.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Find the memory of a pair, creating it if needed, and try its
+     * separating axis.
+     *
+     * @return Whether the axis still separates the pair. The memory of the
+     * pair is left in {@link #axis}.
+     */
+    private boolean cached(Object A, int nA, Object B, int nB) {
+        this.nA = nA;
+        this.nB = nB;
+        probe.a = A;
+        probe.b = B;
+        axis = cache.get(probe);
+        probe.a = null;
+        probe.b = null;
+        if (axis == null) {
+            axis = new Axis();
+            cache.put(new Pair(A, B), axis);
+        } else if (axis.edge >= 0 && axis.edge < (axis.onB ? nB : nA)
+                && axis.witness < (axis.onB ? nA : nB)
+                && separates(axis.onB, axis.edge, axis.witness)) {
+            axis.witness = witness;
+            hits++;
+            return true;
+        }
+        misses++;
+        return false;
+    }
+
+    /**
+     * Update the memory of a pair after the intersection test.
+     *
+     * @return Whether the polygons intersect
+     */
+    private boolean update(boolean intersects) {
+        if (intersects) {
+            axis.edge = -1;
+            return true;
+        }
+        // Edges of A against the vertices of B, then the other way round
+        for (int k = 0; k < 2; k++) {
+            boolean onB = k == 1;
+            int n = onB ? nB : nA;
+            // The witness only moves forward as the edges turn
+            witness = axis.witness < (onB ? nA : nB) ? axis.witness : 0;
+            for (int i = 0; i < n; i++) {
+                if (separates(onB, i, witness)) {
+                    axis.onB = onB;
+                    axis.edge = i;
+                    axis.witness = witness;
+                    return false;
+                }
+            }
+        }
+        // Only reached by degenerate polygons
+        axis.edge = -1;
+        return false;
+    }
+
+    /**
+     * Test whether the line through edge i of a polygon separates it from
+     * the other one, climbing to the witness vertex of the other polygon
+     * from vertex w. The witness is left in {@link #witness}.
+     */
+    private boolean separates(boolean onB, int i, int w) {
+        int n = onB ? nB : nA, j = i + 1 == n ? 0 : i + 1;
+        double x0 = x(onB, i), y0 = y(onB, i);
+        double ex = x(onB, j) - x0, ey = y(onB, j) - y0;
+        // Vertex of the other polygon farthest to the left of the edge
+        witness = climb(!onB, w, -ey, ex);
+        // The polygon lies to the left: the other one must be strictly right
+        return ex * (y(!onB, witness) - y0) - ey * (x(!onB, witness) - x0) < 0;
+    }
+
+    /**
+     * Hill-climb the vertices of a convex polygon to the one farthest along
+     * (dx, dy), starting from vertex i. Runs of vertices at the same height
+     * are crossed, so collinear vertices do not stop the climb early.
+     */
+    private int climb(boolean b, int i, double dx, double dy) {
+        int n = b ? nB : nA;
+        double best = x(b, i) * dx + y(b, i) * dy;
+        int next = i + 1 == n ? 0 : i + 1;
+        double d = x(b, next) * dx + y(b, next) * dy;
+        int step = 1;
+        if (d < best) {
+            // Climb backwards
+            step = n - 1;
+            next = i == 0 ? n - 1 : i - 1;
+            d = x(b, next) * dx + y(b, next) * dy;
+        }
+        int top = i;
+        for (int k = 1; k < n && d >= best; k++) {
+            if (d > best) {
+                top = next;
+                best = d;
+            }
+            next = (next + step) % n;
+            d = x(b, next) * dx + y(b, next) * dy;
+        }
+        return top;
+    }
+
+    private double x(boolean b, int i) {
+        if (b) {
+            return listB != null ? listB.get(i).x : coordsB[2 * i];
+        }
+        return listA != null ? listA.get(i).x : coordsA[2 * i];
+    }
+
+    private double y(boolean b, int i) {
+        if (b) {
+            return listB != null ? listB.get(i).y : coordsB[2 * i + 1];
+        }
+        return listA != null ? listA.get(i).y : coordsA[2 * i + 1];
+    }
+
+    /**
+     * Ordered pair of polygons, compared by identity.
+     */
+    private static final class Pair {
+
+        Object a, b;
+
+        Pair(Object a, Object b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair p = (Pair) o;
+            return a == p.a && b == p.b;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(a) + System.identityHashCode(b);
+        }
+    }
+
+    /**
+     * Last separating edge of a pair (-1 if the pair intersected), and the
+     * witness vertex of the other polygon.
+     */
+    private static final class Axis {
+
+        boolean onB;
+        int edge = -1, witness;
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import org.altervista.prezisland.geometry.RigidTransform;
+import org.altervista.prezisland.geometry.shapes.ConvexPolygon;
+import org.altervista.prezisland.geometry.shapes.EdgeTable;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.TransformedPolygon;
+
+/**
+ * Lightweight view of a shadow of a convex polygon, as built by
+ * {@link CollisionDetection#getLeftShadow} and
+ * {@link CollisionDetection#getRightShadowInv}.
+ * <p>
+ * No vertex is copied: the view keeps a reference to the points of the source
+ * polygon (a list of Points, a {@link PackedPolygon} or the edge table of a
+ * {@link ConvexPolygon} or {@link TransformedPolygon}) and computes the
+ * transform of the source, the
+ * translation to the reference point, the negation of the inverted shadow and
+ * the points to infinity on the fly. Building a shadow is therefore O(1) for
+ * strictly convex polygons. The source must not be modified while the view
+ * is in use.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class ShadowChain {
+
+    private List<Point2D.Double> pts;
+    // Packed source coordinates, null if the source is pts
+    private double[] coords;
+    // Source vertices and their transform (null for the identity), null if
+    // the source is pts
+    private EdgeTable table;
+    private RigidTransform transform;
+    // Number of source points, first source point (the reference point)
+    private int n, start;
+    // Coordinates of the reference point
+    private double ox, oy;
+    // 1 for left shadows, -1 for inverted right shadows
+    private double sign;
+    // Index (relative to start) of the first vertex of the body, body length
+    private int first, bodyLength;
+    // Whether the chain has points to infinity, and the reference point at the end
+    private boolean sentinels, tail;
+    private double headY, tailY;
+    private int size;
+
+    /**
+     * Set this view to the left shadow of a convex polygon, normalized so that
+     * its reference point (the vertex with minimum y, see
+     * Polygon.normalizePointOrder()) is the origin.
+     *
+     * @param points Vertices of the polygon, in counter-clockwise order
+     * @param start Index of the reference point
+     * @param max Index of the vertex with maximum y
+     * @return This view
+     */
+    public ShadowChain setLeftShadow(List<Point2D.Double> points, int start, int max) {
+        setSource(points, start, 1);
+        return setLeftShadow(max);
+    }
+
+    /**
+     * Set this view to the left shadow of a convex polygon, normalized so that
+     * its reference point is the origin. The cached indices of the polygon are
+     * used, so this takes O(1) time for strictly convex polygons.
+     *
+     * @param P Polygon, in counter-clockwise order
+     * @return This view
+     */
+    public ShadowChain setLeftShadow(PackedPolygon P) {
+        setSource(P, 1);
+        return setLeftShadow(P.getMaxYIndex());
+    }
+
+    /**
+     * Set this view to the left shadow of an immutable convex polygon,
+     * normalized so that its reference point is the origin. The indices
+     * computed when the polygon was created are used, so this takes O(1)
+     * time for strictly convex polygons.
+     *
+     * @param P Polygon
+     * @return This view
+     */
+    public ShadowChain setLeftShadow(ConvexPolygon P) {
+        setSource(P, 1);
+        return setLeftShadow(P.getMaxYIndex());
+    }
+
+    /**
+     * Set this view to the left shadow of a transformed convex polygon,
+     * normalized so that its reference point is the origin. Only the vertices
+     * read from the view are transformed.
+     *
+     * @param P Polygon, in counter-clockwise order
+     * @param start Index of the reference point, see
+     * {@link TransformedPolygon#getStartIndex()}
+     * @param max Index of the vertex with maximum y
+     * @return This view
+     */
+    public ShadowChain setLeftShadow(TransformedPolygon P, int start, int max) {
+        setSource(P, start, 1);
+        return setLeftShadow(max);
+    }
+
+    private ShadowChain setLeftShadow(int max) {
+        int maxR = relative(max);
+        // Avoid inserting horizontal lines in the shadow
+        first = 0;
+        while (first < maxR && sourceY(first + 1) == sourceY(first)) {
+            first++;
+        }
+        bodyLength = maxR - first + 1;
+        sentinels = true;
+        tail = false;
+        headY = sourceY(0);
+        tailY = sourceY(maxR);
+        size = bodyLength + 2;
+        return this;
+    }
+
+    /**
+     * Set this view to the inverted right shadow of a convex polygon,
+     * normalized so that its reference point (the vertex with minimum y, see
+     * Polygon.normalizePointOrder()) is the origin.
+     *
+     * @param points Vertices of the polygon, in counter-clockwise order
+     * @param start Index of the reference point
+     * @param max Index of the vertex with maximum y
+     * @return This view
+     */
+    public ShadowChain setRightShadowInv(List<Point2D.Double> points, int start, int max) {
+        setSource(points, start, -1);
+        return setRightShadowInv(max);
+    }
+
+    /**
+     * Set this view to the inverted right shadow of a convex polygon,
+     * normalized so that its reference point is the origin. The cached indices
+     * of the polygon are used, so this takes O(1) time for strictly convex
+     * polygons.
+     *
+     * @param P Polygon, in counter-clockwise order
+     * @return This view
+     */
+    public ShadowChain setRightShadowInv(PackedPolygon P) {
+        setSource(P, -1);
+        return setRightShadowInv(P.getMaxYIndex());
+    }
+
+    /**
+     * Set this view to the inverted right shadow of an immutable convex
+     * polygon, normalized so that its reference point is the origin. The
+     * indices computed when the polygon was created are used, so this takes
+     * O(1) time for strictly convex polygons.
+     *
+     * @param P Polygon
+     * @return This view
+     */
+    public ShadowChain setRightShadowInv(ConvexPolygon P) {
+        setSource(P, -1);
+        return setRightShadowInv(P.getMaxYIndex());
+    }
+
+    /**
+     * Set this view to the inverted right shadow of a transformed convex
+     * polygon, normalized so that its reference point is the origin. Only the
+     * vertices read from the view are transformed.
+     *
+     * @param P Polygon, in counter-clockwise order
+     * @param start Index of the reference point, see
+     * {@link TransformedPolygon#getStartIndex()}
+     * @param max Index of the vertex with maximum y
+     * @return This view
+     */
+    public ShadowChain setRightShadowInv(TransformedPolygon P, int start, int max) {
+        setSource(P, start, -1);
+        return setRightShadowInv(max);
+    }
+
+    private ShadowChain setRightShadowInv(int max) {
+        int maxR = relative(max);
+        // Avoid inserting horizontal lines in the shadow
+        first = maxR;
+        while (first < n - 1 && sourceY(first + 1) == sourceY(first)) {
+            first++;
+        }
+        bodyLength = n - first;
+        sentinels = true;
+        tail = true;
+        headY = sourceY(maxR);
+        tailY = -sourceY(0);
+        size = bodyLength + 3;
+        return this;
+    }
+
+    /**
+     * Set this view to an already built chain of vertices, such as the
+     * polygons returned by CollisionDetection.getLeftShadow().
+     *
+     * @param points Vertices of the chain
+     * @return This view
+     */
+    public ShadowChain setChain(List<Point2D.Double> points) {
+        pts = points;
+        coords = null;
+        table = null;
+        transform = null;
+        n = points.size();
+        start = 0;
+        ox = 0;
+        oy = 0;
+        sign = 1;
+        first = 0;
+        bodyLength = n;
+        sentinels = false;
+        tail = false;
+        size = n;
+        return this;
+    }
+
+    private void setSource(List<Point2D.Double> points, int start, double sign) {
+        pts = points;
+        coords = null;
+        table = null;
+        transform = null;
+        n = points.size();
+        this.start = start;
+        this.sign = sign;
+        Point2D.Double o = points.get(start);
+        ox = o.x;
+        oy = o.y;
+    }
+
+    private void setSource(PackedPolygon P, double sign) {
+        pts = null;
+        coords = P.getCoords();
+        table = null;
+        transform = null;
+        n = P.getPointsNumber();
+        start = P.getStartIndex();
+        this.sign = sign;
+        ox = coords[2 * start];
+        oy = coords[2 * start + 1];
+    }
+
+    private void setSource(ConvexPolygon P, double sign) {
+        pts = null;
+        coords = null;
+        table = P.getEdgeTable();
+        transform = null;
+        n = P.getPointsNumber();
+        start = P.getStartIndex();
+        this.sign = sign;
+        ox = P.getX(start);
+        oy = P.getY(start);
+    }
+
+    private void setSource(TransformedPolygon P, int start, double sign) {
+        pts = null;
+        coords = null;
+        table = P.getTable();
+        transform = P.getTransform();
+        n = P.getPointsNumber();
+        this.start = start;
+        this.sign = sign;
+        ox = P.getX(start);
+        oy = P.getY(start);
+    }
+
+    /**
+     * @return The number of vertices of this chain.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param k Index of a vertex of this chain
+     * @return The x coordinate of the vertex
+     */
+    public double x(int k) {
+        if (sentinels) {
+            if (k == 0 || k == size - 1) {
+                return CollisionDetection.NEG_INFINITY;
+            }
+            k--;
+        }
+        return sourceX(k < bodyLength ? first + k : 0);
+    }
+
+    /**
+     * @param k Index of a vertex of this chain
+     * @return The y coordinate of the vertex
+     */
+    public double y(int k) {
+        if (sentinels) {
+            if (k == 0) {
+                return headY;
+            } else if (k == size - 1) {
+                return tailY;
+            }
+            k--;
+        }
+        return sourceY(k < bodyLength ? first + k : 0);
+    }
+
+    private int relative(int index) {
+        int k = index - start;
+        return k < 0 ? k + n : k;
+    }
+
+    private int source(int k) {
+        int i = start + k;
+        return i < n ? i : i - n;
+    }
+
+    private double sourceX(int k) {
+        int i = source(k);
+        double x;
+        if (coords != null) {
+            x = coords[2 * i];
+        } else if (transform != null) {
+            x = transform.transformX(table.getX(i), table.getY(i));
+        } else if (table != null) {
+            x = table.getX(i);
+        } else {
+            x = pts.get(i).x;
+        }
+        return sign * (x - ox);
+    }
+
+    private double sourceY(int k) {
+        int i = source(k);
+        double y;
+        if (coords != null) {
+            y = coords[2 * i + 1];
+        } else if (transform != null) {
+            y = transform.transformY(table.getX(i), table.getY(i));
+        } else if (table != null) {
+            y = table.getY(i);
+        } else {
+            y = pts.get(i).y;
+        }
+        return sign * (y - oy);
+    }
+}
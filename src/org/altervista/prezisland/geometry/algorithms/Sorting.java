@@ -23,6 +23,10 @@
  */
 package org.altervista.prezisland.geometry.algorithms;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Sorting algorithms here.
  *
@@ -30,6 +34,20 @@ package org.altervista.prezisland.geometry.algorithms;
  */
 public class Sorting {
 
+    /**
+     * Inputs with at least this many points are sorted in parallel (same
+     * granularity as Arrays.parallelSort()).
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+    /**
+     * Runs shorter than this are sorted by insertion.
+     */
+    private static final int INSERTION_THRESHOLD = 16;
+    /**
+     * Bits per digit of the radix sort.
+     */
+    private static final int RADIX_BITS = 16, RADIX = 1 << RADIX_BITS;
+
     public static void mergeSort(Comparable[] V) {
         mergeSort(V, 0, V.length - 1);
     }
@@ -74,4 +92,200 @@ public class Sorting {
             k++;
         }
     }
+
+    /**
+     * Sort packed points (x0, y0, x1, y1, ...) in x-lexicographic order (see
+     * Geometry.compareLexicographicallyX()), in O(n log n) time. The sort is
+     * stable; inputs of at least PARALLEL_THRESHOLD points are sorted on the
+     * common ForkJoinPool.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     */
+    public static void sortLexicographicallyX(double[] coords, int n) {
+        sortLexicographicallyX(coords, n, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sort packed points (x0, y0, x1, y1, ...) in x-lexicographic order, in
+     * O(n log n) time. The sort is stable; inputs of at least
+     * PARALLEL_THRESHOLD points are sorted on the given pool.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     * @param pool Pool used for large inputs
+     */
+    public static void sortLexicographicallyX(double[] coords, int n, ForkJoinPool pool) {
+        double[] buffer = new double[2 * n];
+        if (n < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            mergeSortPoints(coords, buffer, 0, n);
+        } else {
+            pool.invoke(new PointSortTask(coords, buffer, 0, n));
+        }
+    }
+
+    /**
+     * Sort packed points (x0, y0, x1, y1, ...) in x-lexicographic order with
+     * a least significant digit radix sort on the IEEE-754 bit patterns of the
+     * coordinates. It runs in O(n) time, with up to eight passes per
+     * coordinate (passes on digits shared by all the points are skipped), and
+     * beats the comparison sort on very large inputs. -0.0 and 0.0 are
+     * considered equal; NaNs are not supported.
+     *
+     * @param coords Coordinates of the points
+     * @param n Number of points
+     */
+    public static void radixSortLexicographicallyX(double[] coords, int n) {
+        if (n < 2) {
+            return;
+        }
+        double[] src = coords, dst = new double[2 * n];
+        int[] count = new int[RADIX];
+        // Least significant key first: y, then x
+        for (int c = 1; c >= 0; c--) {
+            for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+                Arrays.fill(count, 0);
+                for (int i = 0; i < n; i++) {
+                    count[digit(src[2 * i + c], shift)]++;
+                }
+                if (count[digit(src[c], shift)] == n) {
+                    // All the points share this digit
+                    continue;
+                }
+                int sum = 0;
+                for (int d = 0; d < RADIX; d++) {
+                    int t = count[d];
+                    count[d] = sum;
+                    sum += t;
+                }
+                for (int i = 0; i < n; i++) {
+                    int k = 2 * count[digit(src[2 * i + c], shift)]++;
+                    dst[k] = src[2 * i];
+                    dst[k + 1] = src[2 * i + 1];
+                }
+                double[] t = src;
+                src = dst;
+                dst = t;
+            }
+        }
+        if (src != coords) {
+            System.arraycopy(src, 0, coords, 0, 2 * n);
+        }
+    }
+
+    /**
+     * @return The digit of a double, in an order consistent with the
+     * numerical one.
+     */
+    private static int digit(double d, int shift) {
+        // Adding 0.0 turns -0.0 into 0.0
+        long bits = Double.doubleToLongBits(d + 0.0);
+        // Flip all the bits of negative numbers, and the sign bit of positive ones
+        bits ^= (bits >> 63) | Long.MIN_VALUE;
+        return (int) (bits >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Stable merge sort of the packed points in [lo, hi). The buffer must hold
+     * at least 2*hi values.
+     */
+    static void mergeSortPoints(double[] a, double[] buffer, int lo, int hi) {
+        if (hi - lo < INSERTION_THRESHOLD) {
+            insertionSortPoints(a, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSortPoints(a, buffer, lo, mid);
+        mergeSortPoints(a, buffer, mid, hi);
+        mergePoints(a, buffer, lo, mid, hi);
+    }
+
+    private static void insertionSortPoints(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            double x = a[2 * i], y = a[2 * i + 1];
+            int j = i - 1;
+            while (j >= lo && compare(a[2 * j], a[2 * j + 1], x, y) > 0) {
+                a[2 * j + 2] = a[2 * j];
+                a[2 * j + 3] = a[2 * j + 1];
+                j--;
+            }
+            a[2 * j + 2] = x;
+            a[2 * j + 3] = y;
+        }
+    }
+
+    /**
+     * Merge the sorted runs [lo, mid) and [mid, hi).
+     */
+    private static void mergePoints(double[] a, double[] buffer, int lo, int mid, int hi) {
+        if (compare(a[2 * mid - 2], a[2 * mid - 1], a[2 * mid], a[2 * mid + 1]) <= 0) {
+            // Already in order
+            return;
+        }
+        System.arraycopy(a, 2 * lo, buffer, 2 * lo, 2 * (hi - lo));
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            if (compare(buffer[2 * i], buffer[2 * i + 1], buffer[2 * j], buffer[2 * j + 1]) <= 0) {
+                a[2 * k] = buffer[2 * i];
+                a[2 * k + 1] = buffer[2 * i + 1];
+                i++;
+            } else {
+                a[2 * k] = buffer[2 * j];
+                a[2 * k + 1] = buffer[2 * j + 1];
+                j++;
+            }
+            k++;
+        }
+        if (i < mid) {
+            System.arraycopy(buffer, 2 * i, a, 2 * k, 2 * (mid - i));
+        } else if (j < hi) {
+            System.arraycopy(buffer, 2 * j, a, 2 * k, 2 * (hi - j));
+        }
+    }
+
+    /**
+     * Same as Geometry.compareLexicographicallyX(), on coordinates.
+     */
+    private static int compare(double x1, double y1, double x2, double y2) {
+        if (x1 < x2) {
+            return -1;
+        } else if (x1 > x2) {
+            return 1;
+        } else if (y1 < y2) {
+            return -1;
+        } else if (y1 > y2) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Fork/join merge sort: the halves are sorted in parallel down to
+     * PARALLEL_THRESHOLD points, then merged.
+     */
+    private static class PointSortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final double[] a, buffer;
+        private final int lo, hi;
+
+        PointSortTask(double[] a, double[] buffer, int lo, int hi) {
+            this.a = a;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < PARALLEL_THRESHOLD) {
+                mergeSortPoints(a, buffer, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new PointSortTask(a, buffer, lo, mid),
+                    new PointSortTask(a, buffer, mid, hi));
+            mergePoints(a, buffer, lo, mid, hi);
+        }
+    }
 }
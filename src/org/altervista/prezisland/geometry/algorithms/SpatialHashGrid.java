@@ -0,0 +1,444 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Uniform grid broad phase: finds the pairs of polygons whose bounding boxes
+ * overlap (touching counts), like {@link SweepAndPrune}, by sorting the
+ * polygons into square cells of a fixed size. Only the occupied cells are
+ * stored, in a hash table keyed on the cell coordinates, so the plane is
+ * unbounded.
+ * <p>
+ * A polygon is listed in every cell its bounding box touches, and two
+ * polygons can only overlap if they share a cell; a pair sharing several
+ * cells is only reported by the cell containing the corner of minimum
+ * coordinates of the intersection of the two boxes, so no pair is reported
+ * twice. The grid works best when the cells are about the size of the
+ * polygons: then each polygon is in a few cells, and each cell holds a few
+ * polygons.
+ * <p>
+ * A bounding box covering more than {@value #MAX_CELLS} cells, or reaching
+ * beyond the range of int cell coordinates, is not listed in any cell: the
+ * polygon is kept in a separate oversized set instead, and tested against
+ * every other polygon when the pairs are collected. This bounds the memory
+ * and time spent on a huge or far away polygon, at the price of O(n) tests
+ * for each oversized one.
+ * <p>
+ * At each {@link #update()} the bounding boxes are read again, and only the
+ * polygons that moved to other cells are moved in the grid; when many
+ * polygons are added at once, the grid is rebuilt instead. Polygons are
+ * identified by the handle returned by {@link #add}. Instances are not
+ * thread-safe.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class SpatialHashGrid implements BroadPhase {
+
+    private static final long NO_KEY = Long.MIN_VALUE;
+    /**
+     * Maximum number of cells a polygon is listed in
+     */
+    public static final int MAX_CELLS = 1024;
+
+    private final double cellSize;
+
+    // Per handle: polygon, bounding box, range of cells, whether the range
+    // is valid, and whether the polygon is oversized (not listed in cells)
+    private PackedPolygon[] shapes = new PackedPolygon[16];
+    private double[] bounds = new double[4 * 16];
+    private int[] cells = new int[4 * 16];
+    private boolean[] inGrid = new boolean[16], oversized = new boolean[16];
+    private int oversizedCount;
+    private int[] free = new int[16];
+    private int freeCount, handles, count, pending;
+
+    // Cell coordinates -> cell id, open addressing with linear probing
+    private long[] keys = new long[64];
+    private int[] ids = new int[64];
+    private int occupied;
+    // Per cell id: key and handles of the polygons in the cell
+    private long[] cellKeys = new long[16];
+    private int[][] items = new int[16][];
+    private int[] itemCounts = new int[16];
+    private int[] freeCells = new int[16];
+    private int freeCellCount, cellIds;
+
+    /**
+     * @param cellSize Side of the cells, about the size of the polygons
+     */
+    public SpatialHashGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        Arrays.fill(keys, NO_KEY);
+    }
+
+    /**
+     * Add a polygon. It is taken into account from the next update.
+     *
+     * @param p Polygon to add
+     * @return The handle of the polygon
+     */
+    @Override
+    public int add(PackedPolygon p) {
+        int h;
+        if (freeCount > 0) {
+            h = free[--freeCount];
+        } else {
+            h = handles++;
+            if (h == shapes.length) {
+                shapes = Arrays.copyOf(shapes, 2 * h);
+                bounds = Arrays.copyOf(bounds, 8 * h);
+                cells = Arrays.copyOf(cells, 8 * h);
+                inGrid = Arrays.copyOf(inGrid, 2 * h);
+                oversized = Arrays.copyOf(oversized, 2 * h);
+            }
+        }
+        shapes[h] = p;
+        count++;
+        pending++;
+        return h;
+    }
+
+    /**
+     * Remove a polygon.
+     *
+     * @param handle Handle of the polygon
+     */
+    @Override
+    public void remove(int handle) {
+        if (handle < 0 || handle >= handles || shapes[handle] == null) {
+            throw new IllegalArgumentException("Invalid handle: " + handle);
+        }
+        if (inGrid[handle]) {
+            removeFromCells(handle);
+            inGrid[handle] = false;
+        }
+        shapes[handle] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, 2 * freeCount);
+        }
+        free[freeCount++] = handle;
+        count--;
+    }
+
+    /**
+     * @param handle Handle of a polygon
+     * @return The polygon
+     */
+    @Override
+    public PackedPolygon getPolygon(int handle) {
+        return shapes[handle];
+    }
+
+    /**
+     * @return The number of polygons
+     */
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The side of the cells
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Read the bounding boxes of the polygons again, and move the polygons
+     * that changed cells.
+     */
+    @Override
+    public void update() {
+        // Inserting a polygon does not cost more than moving it, but a
+        // rebuild also drops the empty cells and compacts the table
+        if (pending > count / 2) {
+            rebuild();
+            return;
+        }
+        pending = 0;
+        for (int h = 0; h < handles; h++) {
+            if (shapes[h] == null) {
+                continue;
+            }
+            readBounds(h);
+            int x0 = cell(bounds[4 * h]), y0 = cell(bounds[4 * h + 1]),
+                    x1 = cell(bounds[4 * h + 2]), y1 = cell(bounds[4 * h + 3]);
+            if (inGrid[h]) {
+                if (x0 == cells[4 * h] && y0 == cells[4 * h + 1]
+                        && x1 == cells[4 * h + 2] && y1 == cells[4 * h + 3]) {
+                    continue;
+                }
+                removeFromCells(h);
+            }
+            insert(h, x0, y0, x1, y1);
+        }
+    }
+
+    /**
+     * Read the bounding boxes of the polygons again, and build the grid from
+     * scratch.
+     */
+    public void rebuild() {
+        Arrays.fill(keys, NO_KEY);
+        if (keys.length > 64 && 4 * count < keys.length) {
+            // Shrink the table, most cells were left behind
+            keys = new long[Math.max(64, Integer.highestOneBit(4 * count))];
+            ids = new int[keys.length];
+            Arrays.fill(keys, NO_KEY);
+        }
+        occupied = 0;
+        cellIds = 0;
+        freeCellCount = 0;
+        pending = 0;
+        Arrays.fill(oversized, false);
+        oversizedCount = 0;
+        for (int h = 0; h < handles; h++) {
+            if (shapes[h] != null) {
+                readBounds(h);
+                insert(h, cell(bounds[4 * h]), cell(bounds[4 * h + 1]),
+                        cell(bounds[4 * h + 2]), cell(bounds[4 * h + 3]));
+            }
+        }
+    }
+
+    /**
+     * Replace the content of a list with the pairs of handles of the
+     * polygons whose bounding boxes overlapped at the last update. Each pair
+     * is reported once, the smaller handle first.
+     *
+     * @param out List that receives the pairs
+     */
+    @Override
+    public void getPairs(PairList out) {
+        out.clear();
+        for (int c = 0; c < cellIds; c++) {
+            int m = itemCounts[c];
+            if (m < 2) {
+                continue;
+            }
+            int[] list = items[c];
+            int cx = (int) (cellKeys[c] >> 32), cy = (int) cellKeys[c];
+            for (int i = 0; i < m; i++) {
+                int h = list[i];
+                for (int j = i + 1; j < m; j++) {
+                    int g = list[j];
+                    // Report the pair in the first cell shared by the boxes
+                    if (Math.max(cells[4 * h], cells[4 * g]) == cx
+                            && Math.max(cells[4 * h + 1], cells[4 * g + 1]) == cy
+                            && overlaps(h, g)) {
+                        out.add(Math.min(h, g), Math.max(h, g));
+                    }
+                }
+            }
+        }
+        if (oversizedCount == 0) {
+            return;
+        }
+        for (int h = 0; h < handles; h++) {
+            if (!oversized[h]) {
+                continue;
+            }
+            for (int g = 0; g < handles; g++) {
+                // Pairs of oversized polygons are tested once
+                if (g != h && inGrid[g] && (!oversized[g] || g > h) && overlaps(h, g)) {
+                    out.add(Math.min(h, g), Math.max(h, g));
+                }
+            }
+        }
+    }
+
+    private void readBounds(int h) {
+        PackedPolygon p = shapes[h];
+        bounds[4 * h] = p.getMinX();
+        bounds[4 * h + 1] = p.getMinY();
+        bounds[4 * h + 2] = p.getMaxX();
+        bounds[4 * h + 3] = p.getMaxY();
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private boolean overlaps(int h, int g) {
+        return bounds[4 * h] <= bounds[4 * g + 2] && bounds[4 * g] <= bounds[4 * h + 2]
+                && bounds[4 * h + 1] <= bounds[4 * g + 3] && bounds[4 * g + 1] <= bounds[4 * h + 3];
+    }
+
+    /**
+     * List a polygon in the cells of the given range, or in the oversized set
+     * if the range is too large.
+     */
+    private void insert(int h, int x0, int y0, int x1, int y1) {
+        cells[4 * h] = x0;
+        cells[4 * h + 1] = y0;
+        cells[4 * h + 2] = x1;
+        cells[4 * h + 3] = y1;
+        inGrid[h] = true;
+        // Cell coordinates saturate at the ends of the int range
+        if (x0 == Integer.MIN_VALUE || y0 == Integer.MIN_VALUE || x1 == Integer.MAX_VALUE
+                || y1 == Integer.MAX_VALUE
+                || ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1) > MAX_CELLS) {
+            oversized[h] = true;
+            oversizedCount++;
+            return;
+        }
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                int c = getCell(key(x, y));
+                int m = itemCounts[c];
+                if (m == items[c].length) {
+                    items[c] = Arrays.copyOf(items[c], 2 * m);
+                }
+                items[c][m] = h;
+                itemCounts[c] = m + 1;
+            }
+        }
+    }
+
+    /**
+     * Remove a polygon from the cells it is listed in, dropping the cells
+     * left empty.
+     */
+    private void removeFromCells(int h) {
+        if (oversized[h]) {
+            oversized[h] = false;
+            oversizedCount--;
+            return;
+        }
+        for (int x = cells[4 * h]; x <= cells[4 * h + 2]; x++) {
+            for (int y = cells[4 * h + 1]; y <= cells[4 * h + 3]; y++) {
+                long key = key(x, y);
+                int c = ids[find(key)];
+                int[] list = items[c];
+                int m = itemCounts[c] - 1;
+                for (int i = 0; i <= m; i++) {
+                    if (list[i] == h) {
+                        list[i] = list[m];
+                        break;
+                    }
+                }
+                itemCounts[c] = m;
+                if (m == 0) {
+                    removeCell(key, c);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The slot of a key in the table, or of the empty slot where it
+     * would go
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != key && keys[i] != NO_KEY) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @return The id of the cell with the given key, created if needed
+     */
+    private int getCell(long key) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return ids[slot];
+        }
+        int c;
+        if (freeCellCount > 0) {
+            c = freeCells[--freeCellCount];
+        } else {
+            c = cellIds++;
+            if (c == items.length) {
+                items = Arrays.copyOf(items, 2 * c);
+                itemCounts = Arrays.copyOf(itemCounts, 2 * c);
+                cellKeys = Arrays.copyOf(cellKeys, 2 * c);
+            }
+        }
+        if (items[c] == null) {
+            items[c] = new int[4];
+        }
+        itemCounts[c] = 0;
+        cellKeys[c] = key;
+        keys[slot] = key;
+        ids[slot] = c;
+        if (2 * ++occupied > keys.length) {
+            growTable();
+        }
+        return c;
+    }
+
+    private void removeCell(long key, int c) {
+        if (freeCellCount == freeCells.length) {
+            freeCells = Arrays.copyOf(freeCells, 2 * freeCellCount);
+        }
+        freeCells[freeCellCount++] = c;
+        // Delete the key, shifting back the following keys of the cluster
+        int mask = keys.length - 1;
+        int i = find(key);
+        for (int j = (i + 1) & mask; keys[j] != NO_KEY; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if ((j > i && (home <= i || home > j)) || (j < i && home <= i && home > j)) {
+                keys[i] = keys[j];
+                ids[i] = ids[j];
+                i = j;
+            }
+        }
+        keys[i] = NO_KEY;
+        occupied--;
+    }
+
+    private void growTable() {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[2 * oldKeys.length];
+        ids = new int[keys.length];
+        Arrays.fill(keys, NO_KEY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_KEY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static long key(int x, int y) {
+        return (long) x << 32 | (y & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Sweep and prune broad phase: finds the pairs of polygons whose bounding
+ * boxes overlap (touching counts), so that the narrow phase (e.g.
+ * {@link CollisionDetection#getPenetrationVector}) is only run on those.
+ * <p>
+ * The minimum and maximum of every box are kept in one sorted list of
+ * endpoints per axis. At each {@link #update()} the lists are sorted again by
+ * insertion sort: when the polygons move little between updates, the lists
+ * are almost sorted and this takes O(n) time plus one step per pair of
+ * endpoints that crossed. Each crossing of a minimum and a maximum starts or
+ * ends the overlap of two boxes on one axis, so the set of overlapping pairs
+ * is updated incrementally too. When many polygons are added at once, the
+ * lists and the pairs are rebuilt from scratch in O(n log n) time instead.
+ * <p>
+ * Polygons are identified by the handle returned by {@link #add}, and their
+ * bounding boxes are read again at each update, so they may be moved with
+ * {@link PackedPolygon#traslate}. Instances are not thread-safe.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class SweepAndPrune implements BroadPhase {
+
+    private static final int X = 0, Y = 1;
+
+    // Per handle: polygon, bounds on each axis, state
+    private PackedPolygon[] shapes = new PackedPolygon[16];
+    private final double[][] lo = new double[2][16], hi = new double[2][16];
+    private boolean[] removed = new boolean[16];
+    // Handles freed by remove(), reused after the next update
+    private int[] free = new int[16];
+    private int freeCount, handles, count;
+    // Handles added or removed since the last update
+    private int[] added = new int[16], dropped = new int[16];
+    private int addedCount, droppedCount;
+    // Sorted endpoints of each axis: (handle << 1) | 1 for maxima, and value
+    private final int[][] ends = new int[2][32];
+    private final double[][] vals = new double[2][32];
+    private int endsCount;
+    private final PairSet pairs = new PairSet();
+    // Scratch for the rebuild sweep
+    private int[] active = new int[16], activePos = new int[16];
+
+    /**
+     * Add a polygon. It is taken into account from the next update.
+     *
+     * @param p Polygon to add
+     * @return The handle of the polygon
+     */
+    @Override
+    public int add(PackedPolygon p) {
+        int h;
+        if (freeCount > 0) {
+            h = free[--freeCount];
+        } else {
+            h = handles++;
+            if (h == shapes.length) {
+                grow(2 * h);
+            }
+        }
+        shapes[h] = p;
+        if (addedCount == added.length) {
+            added = Arrays.copyOf(added, 2 * addedCount);
+        }
+        added[addedCount++] = h;
+        count++;
+        return h;
+    }
+
+    /**
+     * Remove a polygon. It is dropped from the pairs at the next update.
+     *
+     * @param handle Handle of the polygon
+     */
+    @Override
+    public void remove(int handle) {
+        if (handle < 0 || handle >= handles || shapes[handle] == null) {
+            throw new IllegalArgumentException("Invalid handle: " + handle);
+        }
+        shapes[handle] = null;
+        removed[handle] = true;
+        if (droppedCount == dropped.length) {
+            dropped = Arrays.copyOf(dropped, 2 * droppedCount);
+        }
+        dropped[droppedCount++] = handle;
+        count--;
+    }
+
+    /**
+     * @param handle Handle of a polygon
+     * @return The polygon
+     */
+    @Override
+    public PackedPolygon getPolygon(int handle) {
+        return shapes[handle];
+    }
+
+    /**
+     * @return The number of polygons
+     */
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Read the bounding boxes of the polygons again, and update the pairs of
+     * overlapping boxes.
+     */
+    @Override
+    public void update() {
+        if (droppedCount > 0) {
+            drop();
+        }
+        // Skip the handles that were added and removed since the last update
+        int k = 0;
+        for (int i = 0; i < addedCount; i++) {
+            if (!removed[added[i]]) {
+                added[k++] = added[i];
+            }
+        }
+        addedCount = k;
+        for (int i = 0; i < droppedCount; i++) {
+            removed[dropped[i]] = false;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, 2 * freeCount);
+            }
+            free[freeCount++] = dropped[i];
+        }
+        droppedCount = 0;
+
+        for (int h = 0; h < handles; h++) {
+            PackedPolygon p = shapes[h];
+            if (p != null) {
+                lo[X][h] = p.getMinX();
+                lo[Y][h] = p.getMinY();
+                hi[X][h] = p.getMaxX();
+                hi[Y][h] = p.getMaxY();
+            }
+        }
+        // Adding a polygon incrementally costs O(n), rebuilding O(n log n)
+        int n = endsCount / 2 + addedCount;
+        boolean rebuild = addedCount > 31 - Integer.numberOfLeadingZeros(n);
+        if (2 * n > ends[X].length) {
+            for (int axis = X; axis <= Y; axis++) {
+                ends[axis] = Arrays.copyOf(ends[axis], 4 * n);
+                vals[axis] = Arrays.copyOf(vals[axis], 4 * n);
+            }
+        }
+        for (int axis = X; axis <= Y; axis++) {
+            int[] e = ends[axis];
+            for (int i = 0; i < addedCount; i++) {
+                // The maximum first, so that it does not stop the minimum
+                e[endsCount + 2 * i] = added[i] << 1 | 1;
+                e[endsCount + 2 * i + 1] = added[i] << 1;
+            }
+            double[] v = vals[axis], l = lo[axis], u = hi[axis];
+            for (int i = 0; i < endsCount + 2 * addedCount; i++) {
+                v[i] = (e[i] & 1) == 0 ? l[e[i] >>> 1] : u[e[i] >>> 1];
+            }
+        }
+        endsCount += 2 * addedCount;
+        addedCount = 0;
+        if (rebuild) {
+            rebuild();
+        } else {
+            sort(X);
+            sort(Y);
+        }
+    }
+
+    /**
+     * Replace the content of a list with the pairs of handles of the
+     * polygons whose bounding boxes overlapped at the last update. The
+     * smaller handle of each pair comes first.
+     *
+     * @param out List that receives the pairs
+     */
+    @Override
+    public void getPairs(PairList out) {
+        out.clear();
+        pairs.addTo(out);
+    }
+
+    /**
+     * Insertion sort of the endpoints of an axis, updating the pairs.
+     */
+    private void sort(int axis) {
+        int[] e = ends[axis];
+        double[] v = vals[axis];
+        for (int i = 1; i < endsCount; i++) {
+            int code = e[i];
+            double val = v[i];
+            int j = i - 1;
+            while (j >= 0 && precedes(val, code, v[j], e[j])) {
+                int other = e[j];
+                int h = code >>> 1, g = other >>> 1;
+                if ((code & 1) == 0 && (other & 1) == 1) {
+                    // A minimum crossed a maximum: the boxes may now overlap
+                    if (h != g && overlaps(h, g)) {
+                        pairs.add(h, g);
+                    }
+                } else if ((code & 1) == 1 && (other & 1) == 0) {
+                    // A maximum crossed a minimum: the boxes are separated
+                    pairs.remove(h, g);
+                }
+                e[j + 1] = other;
+                v[j + 1] = v[j];
+                j--;
+            }
+            e[j + 1] = code;
+            v[j + 1] = val;
+        }
+    }
+
+    /**
+     * Sort both axes from scratch and find the pairs with a sweep along x.
+     */
+    private void rebuild() {
+        for (int axis = X; axis <= Y; axis++) {
+            // Sort (value, key) points, where keys order minima before maxima
+            int[] e = ends[axis];
+            double[] v = vals[axis], points = new double[2 * endsCount];
+            for (int i = 0; i < endsCount; i++) {
+                points[2 * i] = v[i];
+                points[2 * i + 1] = (e[i] & 1) * handles + (e[i] >>> 1);
+            }
+            Sorting.sortLexicographicallyX(points, endsCount);
+            for (int i = 0; i < endsCount; i++) {
+                int key = (int) points[2 * i + 1];
+                v[i] = points[2 * i];
+                e[i] = key < handles ? key << 1 : (key - handles) << 1 | 1;
+            }
+        }
+        pairs.clear();
+        if (active.length < handles) {
+            active = new int[shapes.length];
+            activePos = new int[shapes.length];
+        }
+        int size = 0;
+        int[] e = ends[X];
+        for (int i = 0; i < endsCount; i++) {
+            int h = e[i] >>> 1;
+            if ((e[i] & 1) == 0) {
+                for (int k = 0; k < size; k++) {
+                    int g = active[k];
+                    if (lo[Y][h] <= hi[Y][g] && lo[Y][g] <= hi[Y][h]) {
+                        pairs.add(h, g);
+                    }
+                }
+                activePos[h] = size;
+                active[size++] = h;
+            } else {
+                int last = active[--size];
+                active[activePos[h]] = last;
+                activePos[last] = activePos[h];
+            }
+        }
+    }
+
+    /**
+     * Remove the endpoints and the pairs of the removed polygons.
+     */
+    private void drop() {
+        for (int axis = X; axis <= Y; axis++) {
+            int[] e = ends[axis];
+            double[] v = vals[axis];
+            int k = 0;
+            for (int i = 0; i < endsCount; i++) {
+                if (!removed[e[i] >>> 1]) {
+                    e[k] = e[i];
+                    v[k++] = v[i];
+                }
+            }
+            if (axis == Y) {
+                endsCount = k;
+            }
+        }
+        pairs.removeAll(removed);
+    }
+
+    private boolean overlaps(int h, int g) {
+        return lo[X][h] <= hi[X][g] && lo[X][g] <= hi[X][h]
+                && lo[Y][h] <= hi[Y][g] && lo[Y][g] <= hi[Y][h];
+    }
+
+    /**
+     * @return Whether endpoint 1 comes before endpoint 2: by value, then
+     * minima before maxima, so that touching boxes overlap
+     */
+    private static boolean precedes(double v1, int code1, double v2, int code2) {
+        return v1 < v2 || (v1 == v2 && (code1 & 1) == 0 && (code2 & 1) == 1);
+    }
+
+    private void grow(int capacity) {
+        shapes = Arrays.copyOf(shapes, capacity);
+        removed = Arrays.copyOf(removed, capacity);
+        for (int axis = X; axis <= Y; axis++) {
+            lo[axis] = Arrays.copyOf(lo[axis], capacity);
+            hi[axis] = Arrays.copyOf(hi[axis], capacity);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import org.altervista.prezisland.geometry.Geometry;
+
+/**
+ * Immutable convex polygon. The vertices are copied and validated once, when
+ * the polygon is created: they must form a convex polygon in
+ * counter-clockwise order, without repeated vertices (collinear vertices are
+ * allowed). The bounding box, the vertex with maximum y and the edge vectors
+ * (see {@link #getEdgeTable()}) are computed at the same time, and the
+ * penetration queries use them instead of scanning the vertices.
+ * <p>
+ * The vertices are stored starting from the reference point (the vertex with
+ * minimum y, and minimum x among those), so that they already are in the
+ * order produced by Polygon.normalizePointOrder(), and are kept in an
+ * {@link EdgeTable}. Since nothing can be modified after construction,
+ * instances can be shared by any number of threads, caches and queries
+ * without copying.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class ConvexPolygon {
+
+    private final EdgeTable table;
+    private final double minX, minY, maxX, maxY;
+    private final int maxYIndex;
+
+    /**
+     * Create a convex polygon from a copy of the given coordinates.
+     *
+     * @param coords Coordinates of the vertices (x0, y0, x1, y1, ...), in
+     * counter-clockwise order
+     * @throws IllegalArgumentException If the vertices do not form a convex
+     * polygon in counter-clockwise order
+     */
+    public ConvexPolygon(double... coords) {
+        this(new PackedPolygon(coords.clone()));
+    }
+
+    /**
+     * Create a convex polygon with the same vertices as a Polygon.
+     *
+     * @param p Polygon, in counter-clockwise order
+     * @throws IllegalArgumentException If p is not convex, or not in
+     * counter-clockwise order
+     */
+    public ConvexPolygon(Polygon p) {
+        this(pack(p.getPoints()));
+    }
+
+    /**
+     * Create a convex polygon with the same vertices as a packed polygon.
+     *
+     * @param p Polygon, in counter-clockwise order
+     * @throws IllegalArgumentException If p is not convex, or not in
+     * counter-clockwise order
+     */
+    public ConvexPolygon(PackedPolygon p) {
+        if (p.getPointsNumber() < 3) {
+            throw new IllegalArgumentException("A polygon needs at least 3 vertices, not "
+                    + p.getPointsNumber());
+        }
+        // The table copies the vertices, starting from the reference point
+        table = new EdgeTable(p);
+        validate();
+        minX = p.getMinX();
+        minY = p.getMinY();
+        maxX = p.getMaxX();
+        maxY = p.getMaxY();
+        int start = p.getStartIndex(), max = p.getMaxYIndex();
+        maxYIndex = max >= start ? max - start : max - start + p.getPointsNumber();
+    }
+
+    private static PackedPolygon pack(List<Point2D.Double> pts) {
+        double[] c = new double[2 * pts.size()];
+        int k = 0;
+        for (Point2D.Double p : pts) {
+            c[k++] = p.x;
+            c[k++] = p.y;
+        }
+        return new PackedPolygon(c);
+    }
+
+    /**
+     * Check that the boundary turns left at every vertex and winds around
+     * once: starting from the reference point, the angles of the edges must
+     * not decrease.
+     */
+    private void validate() {
+        int n = table.getPointsNumber();
+        double area = 0;
+        for (int i = 0; i < n; i++) {
+            int next = i + 1 < n ? i + 1 : 0;
+            double ex = table.getEdgeX(i), ey = table.getEdgeY(i),
+                    fx = table.getEdgeX(next), fy = table.getEdgeY(next);
+            if (ex == 0 && ey == 0) {
+                throw new IllegalArgumentException("Repeated vertex at " + i);
+            }
+            if (ex * fy - ey * fx < 0
+                    || (next != 0 && Geometry.compareAngles(ex, ey, fx, fy) > 0)) {
+                throw new IllegalArgumentException(
+                        "Not convex or not counter-clockwise at vertex " + next);
+            }
+            area += table.getX(i) * table.getY(next) - table.getX(next) * table.getY(i);
+        }
+        if (area <= 0) {
+            throw new IllegalArgumentException("Degenerate polygon");
+        }
+    }
+
+    /**
+     * @return The edge table holding the vertices of this polygon, as a shared
+     * immutable object.
+     */
+    public EdgeTable getEdgeTable() {
+        return table;
+    }
+
+    /**
+     * @return The number of points composing this shape.
+     */
+    public int getPointsNumber() {
+        return table.getPointsNumber();
+    }
+
+    public double getX(int i) {
+        return table.getX(i);
+    }
+
+    public double getY(int i) {
+        return table.getY(i);
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return The index of the vertex with minimum y (and minimum x among
+     * those): always 0, the vertices being stored from the reference point.
+     */
+    public int getStartIndex() {
+        return 0;
+    }
+
+    /**
+     * @return The index of the first vertex with maximum y, counting
+     * counter-clockwise from the start vertex.
+     */
+    public int getMaxYIndex() {
+        return maxYIndex;
+    }
+
+    /**
+     * @return A new packed polygon with the same vertices, which can be
+     * modified freely.
+     */
+    public PackedPolygon toPackedPolygon() {
+        int n = table.getPointsNumber();
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            coords[2 * i] = table.getX(i);
+            coords[2 * i + 1] = table.getY(i);
+        }
+        return new PackedPolygon(coords, n);
+    }
+
+    /**
+     * @return A new Polygon with the same vertices, which can be modified
+     * freely.
+     */
+    public Polygon toPolygon() {
+        return toPackedPolygon().toPolygon();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import org.altervista.prezisland.geometry.Geometry;
+
+/**
+ * Convex polygon preprocessed for extreme vertex queries: its edges are
+ * stored in order of angle, so that the vertex farthest along any direction
+ * is found by a binary search, in O(log n) time.
+ * <p>
+ * The vertices are copied once, in counter-clockwise order starting from the
+ * reference point (the vertex with minimum y, and minimum x among those): the
+ * angles of the edges, normalized in [0, 2*PI), then increase along the
+ * table. The table is never modified, and describes the polygon in its own
+ * local space. A moving polygon pairs it with a
+ * {@link org.altervista.prezisland.geometry.RigidTransform}, and queries
+ * rotate the direction into local space instead of moving the vertices, so
+ * the table stays valid and can be shared by any number of polygons and
+ * threads.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public final class EdgeTable {
+
+    /**
+     * Number of vertices climbed before falling back to a binary search
+     */
+    private static final int CLIMB_STEPS = 4;
+
+    // Vertices (x0, y0, x1, y1, ...) and edge vectors (v1-v0, v2-v1, ...)
+    private final double[] coords, edges;
+    private final int n;
+
+    /**
+     * Build the table of a convex polygon, in O(n) time.
+     *
+     * @param p Convex polygon, in counter-clockwise order
+     */
+    public EdgeTable(PackedPolygon p) {
+        n = p.getPointsNumber();
+        if (n == 0) {
+            throw new IllegalArgumentException("Empty polygon");
+        }
+        coords = new double[2 * n];
+        int start = p.getStartIndex();
+        for (int k = 0; k < n; k++) {
+            int i = start + k < n ? start + k : start + k - n;
+            coords[2 * k] = p.getX(i);
+            coords[2 * k + 1] = p.getY(i);
+        }
+        edges = new double[2 * n];
+        for (int k = 0; k < n; k++) {
+            int next = k + 1 < n ? k + 1 : 0;
+            edges[2 * k] = coords[2 * next] - coords[2 * k];
+            edges[2 * k + 1] = coords[2 * next + 1] - coords[2 * k + 1];
+        }
+    }
+
+    /**
+     * Build the table of a convex polygon, in O(n) time.
+     *
+     * @param p Convex polygon, in counter-clockwise order
+     */
+    public EdgeTable(Polygon p) {
+        this(new PackedPolygon(p));
+    }
+
+    /**
+     * Find the vertex farthest along a direction, in O(log n) time: it is
+     * where the boundary turns past the direction perpendicular to (dx, dy),
+     * i.e. after the last edge whose angle is smaller.
+     *
+     * @param dx X component of the direction
+     * @param dy Y component of the direction
+     * @return The index of an extreme vertex along (dx, dy)
+     */
+    public int getExtremeIndex(double dx, double dy) {
+        // Tangent at the extreme vertex
+        double tx = -dy, ty = dx;
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Geometry.compareAngles(edges[2 * mid], edges[2 * mid + 1], tx, ty) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo == n ? 0 : lo;
+    }
+
+    /**
+     * Find the vertex farthest along a direction by hill-climbing from a
+     * vertex found by a previous lookup. When the direction changes little
+     * between lookups, as in the iterations of GJK, only a few vertices are
+     * visited; if the extreme vertex is not reached within a few steps, a
+     * binary search is used instead, so this takes O(log n) time at worst.
+     *
+     * @param dx X component of the direction
+     * @param dy Y component of the direction
+     * @param hint Index of the vertex to start from, or -1 to use a binary
+     * search
+     * @return The index of an extreme vertex along (dx, dy)
+     */
+    public int getExtremeIndex(double dx, double dy, int hint) {
+        if (hint < 0) {
+            return getExtremeIndex(dx, dy);
+        }
+        int i = hint;
+        // Forward while the next edge goes along (dx, dy), else backward
+        if (edges[2 * i] * dx + edges[2 * i + 1] * dy > 0) {
+            for (int k = 0; k < CLIMB_STEPS; k++) {
+                i = i + 1 < n ? i + 1 : 0;
+                if (edges[2 * i] * dx + edges[2 * i + 1] * dy <= 0) {
+                    return i;
+                }
+            }
+        } else {
+            for (int k = 0; k < CLIMB_STEPS; k++) {
+                int prev = i == 0 ? n - 1 : i - 1;
+                if (edges[2 * prev] * dx + edges[2 * prev + 1] * dy >= 0) {
+                    return i;
+                }
+                i = prev;
+            }
+        }
+        return getExtremeIndex(dx, dy);
+    }
+
+    /**
+     * @return The number of points composing this shape.
+     */
+    public int getPointsNumber() {
+        return n;
+    }
+
+    public double getX(int i) {
+        return coords[2 * i];
+    }
+
+    public double getY(int i) {
+        return coords[2 * i + 1];
+    }
+
+    /**
+     * @return The X component of the edge from vertex i to vertex i+1
+     */
+    public double getEdgeX(int i) {
+        return edges[2 * i];
+    }
+
+    /**
+     * @return The Y component of the edge from vertex i to vertex i+1
+     */
+    public double getEdgeY(int i) {
+        return edges[2 * i + 1];
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polygon whose vertices are packed into a single array of doubles, as
+ * x0, y0, x1, y1, ... in counter-clockwise order; edges are not explicitly
+ * stored.
+ * <p>
+ * Unlike {@link Polygon}, vertices are not boxed into Points, so scanning them
+ * does not chase pointers. The bounding box, the reference point (the vertex
+ * with minimum y, and minimum x among those, which the algorithms use as
+ * first vertex) and the vertex with maximum y are computed once, when the
+ * polygon is created.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class PackedPolygon {
+
+    protected final double[] coords;
+    protected final int n;
+    protected double minX, minY, maxX, maxY;
+    protected int startIndex, maxYIndex;
+
+    /**
+     * Create a polygon backed by the given array, which is not copied.
+     *
+     * @param coords Coordinates of the vertices (x0, y0, x1, y1, ...)
+     */
+    public PackedPolygon(double[] coords) {
+        this(coords, coords.length / 2);
+    }
+
+    /**
+     * Create a polygon backed by the first n vertices of the given array,
+     * which is not copied.
+     *
+     * @param coords Coordinates of the vertices (x0, y0, x1, y1, ...)
+     * @param n Number of vertices
+     */
+    public PackedPolygon(double[] coords, int n) {
+        if (n < 0 || coords.length < 2 * n) {
+            throw new IllegalArgumentException("Invalid number of vertices: " + n);
+        }
+        this.coords = coords;
+        this.n = n;
+        calculateMetadata();
+    }
+
+    /**
+     * Create a packed copy of a Polygon.
+     *
+     * @param p Polygon to copy
+     */
+    public PackedPolygon(Polygon p) {
+        this(pack(p.getPoints()));
+    }
+
+    private static double[] pack(List<Point2D.Double> pts) {
+        double[] c = new double[2 * pts.size()];
+        int k = 0;
+        for (Point2D.Double p : pts) {
+            c[k++] = p.x;
+            c[k++] = p.y;
+        }
+        return c;
+    }
+
+    /**
+     * Scan the vertices once to find the bounding box, the reference point and
+     * the vertex with maximum y.
+     */
+    private void calculateMetadata() {
+        minX = Double.MAX_VALUE;
+        minY = Double.MAX_VALUE;
+        maxX = -Double.MAX_VALUE;
+        maxY = -Double.MAX_VALUE;
+        startIndex = 0;
+        for (int i = 0; i < n; i++) {
+            double x = coords[2 * i], y = coords[2 * i + 1];
+            if (y < minY || (y == minY && x < coords[2 * startIndex])) {
+                startIndex = i;
+            }
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        // First vertex with maximum y, counter-clockwise from the reference point
+        maxYIndex = startIndex;
+        for (int k = 1; k < n; k++) {
+            int i = startIndex + k < n ? startIndex + k : startIndex + k - n;
+            if (coords[2 * i + 1] > coords[2 * maxYIndex + 1]) {
+                maxYIndex = i;
+            }
+        }
+    }
+
+    /**
+     * @return A new Polygon with the same vertices.
+     */
+    public Polygon toPolygon() {
+        List<Point2D.Double> pts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            pts.add(new Point2D.Double(coords[2 * i], coords[2 * i + 1]));
+        }
+        return new Polygon(pts);
+    }
+
+    /**
+     * @return The array backing this polygon (x0, y0, x1, y1, ...).
+     */
+    public double[] getCoords() {
+        return coords;
+    }
+
+    /**
+     * @return The number of points composing this shape.
+     */
+    public int getPointsNumber() {
+        return n;
+    }
+
+    public double getX(int i) {
+        return coords[2 * i];
+    }
+
+    public double getY(int i) {
+        return coords[2 * i + 1];
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return The index of the vertex with minimum y (and minimum x among
+     * those), i.e. the first vertex after Polygon.normalizePointOrder().
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * @return The index of the first vertex with maximum y, counting
+     * counter-clockwise from the start vertex.
+     */
+    public int getMaxYIndex() {
+        return maxYIndex;
+    }
+
+    /**
+     * Traslate the Shape a set distance, moving all of its points. Cached
+     * indices stay valid.
+     *
+     * @param dx Traslation on the X axis.
+     * @param dy Traslation on the Y axis.
+     */
+    public void traslate(double dx, double dy) {
+        for (int i = 0; i < 2 * n; i += 2) {
+            coords[i] += dx;
+            coords[i + 1] += dy;
+        }
+        minX += dx;
+        maxX += dx;
+        minY += dy;
+        maxY += dy;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import java.awt.geom.Point2D;
+import org.altervista.prezisland.geometry.RigidTransform;
+
+/**
+ * Convex polygon placed by a rigid transform: the vertices are kept in local
+ * space, in an {@link EdgeTable} which is never modified, and only the
+ * transform changes when the polygon moves. Traslating or rotating the
+ * polygon therefore takes O(1) time instead of O(n), and the vertices are
+ * materialized lazily: queries transform only the vertices they touch, such
+ * as the O(log n) extreme vertices looked up in the table.
+ * <p>
+ * Polygons with the same shape can share a table, each one with its own
+ * transform.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class TransformedPolygon {
+
+    protected final EdgeTable table;
+    protected final RigidTransform transform;
+
+    /**
+     * Create a polygon from a shared table.
+     *
+     * @param table Vertices in local space
+     * @param transform Transform placing the polygon, which is copied
+     */
+    public TransformedPolygon(EdgeTable table, RigidTransform transform) {
+        this.table = table;
+        this.transform = new RigidTransform(transform);
+    }
+
+    /**
+     * Create a polygon with the same vertices as a convex polygon. The local
+     * origin, about which the polygon rotates, is the center of its bounding
+     * box.
+     *
+     * @param p Convex polygon, in counter-clockwise order
+     */
+    public TransformedPolygon(PackedPolygon p) {
+        double cx = (p.getMinX() + p.getMaxX()) / 2, cy = (p.getMinY() + p.getMaxY()) / 2;
+        PackedPolygon local = new PackedPolygon(p.getCoords().clone(), p.getPointsNumber());
+        local.traslate(-cx, -cy);
+        table = new EdgeTable(local);
+        transform = new RigidTransform(0, cx, cy);
+    }
+
+    /**
+     * Create a polygon with the same vertices as a convex polygon, see
+     * {@link #TransformedPolygon(PackedPolygon)}.
+     *
+     * @param p Convex polygon, in counter-clockwise order
+     */
+    public TransformedPolygon(Polygon p) {
+        this(new PackedPolygon(p));
+    }
+
+    /**
+     * @return The vertices in local space
+     */
+    public EdgeTable getTable() {
+        return table;
+    }
+
+    /**
+     * @return The transform placing this polygon. Changes to it move the
+     * polygon.
+     */
+    public RigidTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Traslate the Shape a set distance. Only the transform is changed.
+     *
+     * @param dx Traslation on the X axis.
+     * @param dy Traslation on the Y axis.
+     */
+    public void traslate(double dx, double dy) {
+        transform.traslate(dx, dy);
+    }
+
+    /**
+     * Rotate the Shape about its local origin. Only the transform is changed.
+     *
+     * @param dAngle Angle, in radians, counter-clockwise
+     */
+    public void rotate(double dAngle) {
+        transform.rotate(dAngle);
+    }
+
+    /**
+     * @return The position of the local origin, i.e. the pivot of rotations.
+     */
+    public Point2D.Double getCenter() {
+        return new Point2D.Double(transform.getTraslationX(), transform.getTraslationY());
+    }
+
+    /**
+     * @return The number of points composing this shape.
+     */
+    public int getPointsNumber() {
+        return table.getPointsNumber();
+    }
+
+    public double getX(int i) {
+        return transform.transformX(table.getX(i), table.getY(i));
+    }
+
+    public double getY(int i) {
+        return transform.transformY(table.getX(i), table.getY(i));
+    }
+
+    /**
+     * Find the vertex farthest along a direction, in O(log n) time.
+     *
+     * @param dx X component of the direction
+     * @param dy Y component of the direction
+     * @return The index of an extreme vertex along (dx, dy)
+     */
+    public int getExtremeIndex(double dx, double dy) {
+        double cos = transform.getCos(), sin = transform.getSin();
+        return table.getExtremeIndex(cos * dx + sin * dy, cos * dy - sin * dx);
+    }
+
+    /**
+     * Find the reference point in world space: the vertex with minimum y, and
+     * minimum x among those (see Polygon.normalizePointOrder()), in O(log n)
+     * time. The vertex is looked up in the table, then compared with its
+     * neighbours in world space, so the result is the same as for the
+     * materialized polygon.
+     *
+     * @return The index of the reference point
+     */
+    public int getStartIndex() {
+        int n = table.getPointsNumber(), i = getExtremeIndex(0, -1);
+        while (true) {
+            int prev = i > 0 ? i - 1 : n - 1, next = i + 1 < n ? i + 1 : 0;
+            if (isLower(prev, i)) {
+                i = prev;
+            } else if (isLower(next, i)) {
+                i = next;
+            } else {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Find the first vertex with maximum y in world space, counting
+     * counter-clockwise from the reference point, in O(log n) time.
+     *
+     * @param start Index of the reference point, see {@link #getStartIndex()}
+     * @return The index of the vertex with maximum y
+     */
+    public int getMaxYIndex(int start) {
+        int n = table.getPointsNumber(), i = getExtremeIndex(0, 1);
+        while (true) {
+            int prev = i > 0 ? i - 1 : n - 1, next = i + 1 < n ? i + 1 : 0;
+            if (getY(prev) > getY(i)) {
+                i = prev;
+            } else if (getY(next) > getY(i)) {
+                i = next;
+            } else {
+                break;
+            }
+        }
+        // Go back to the first vertex of a horizontal top edge
+        int prev = i > 0 ? i - 1 : n - 1;
+        while (i != start && getY(prev) == getY(i)) {
+            i = prev;
+            prev = i > 0 ? i - 1 : n - 1;
+        }
+        return i;
+    }
+
+    private boolean isLower(int i, int j) {
+        double yi = getY(i), yj = getY(j);
+        return yi < yj || (yi == yj && getX(i) < getX(j));
+    }
+
+    public double getMinX() {
+        return getX(getExtremeIndex(-1, 0));
+    }
+
+    public double getMinY() {
+        return getY(getExtremeIndex(0, -1));
+    }
+
+    public double getMaxX() {
+        return getX(getExtremeIndex(1, 0));
+    }
+
+    public double getMaxY() {
+        return getY(getExtremeIndex(0, 1));
+    }
+
+    /**
+     * @return A new packed polygon with the vertices of this one, in world
+     * space.
+     */
+    public PackedPolygon toPackedPolygon() {
+        int n = table.getPointsNumber();
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            coords[2 * i] = getX(i);
+            coords[2 * i + 1] = getY(i);
+        }
+        return new PackedPolygon(coords, n);
+    }
+
+    /**
+     * @return A new Polygon with the vertices of this one, in world space.
+     */
+    public Polygon toPolygon() {
+        return toPackedPolygon().toPolygon();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Random;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Times the broad phases on a simulation of moving polygons: at each frame
+ * the moving polygons move a little, and the pairs of overlapping bounding
+ * boxes are collected. Two scenes are run: one where every polygon moves, and
+ * one where only a few hundred do. Run with:
+ * java BroadPhaseBenchmark [polygons] [frames] [moving polygons of the second
+ * scene]
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class BroadPhaseBenchmark {
+
+    /**
+     * Side of the square the polygons move in, per polygon
+     */
+    private static final double AREA = 400;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int moving = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        double side = Math.sqrt(AREA * n);
+        for (int m : new int[]{n, moving}) {
+            System.out.println(n + " polygons, " + m + " moving, " + frames + " frames");
+            run("sweep and prune", new SweepAndPrune(), n, m, side, frames);
+            run("hash grid      ", new SpatialHashGrid(16), n, m, side, frames);
+            run("AABB tree      ", new DynamicAabbTree(), n, m, side, frames);
+        }
+    }
+
+    private static void run(String name, BroadPhase broadPhase, int n, int moving,
+            double side, int frames) {
+        // The same simulation for every broad phase
+        World world = new World(n, moving, side);
+        PairList pairs = new PairList();
+        long start = System.nanoTime();
+        for (PackedPolygon p : world.polygons) {
+            broadPhase.add(p);
+        }
+        broadPhase.update();
+        System.out.printf("%s: build %8.1f ms%n", name, (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        long found = 0;
+        for (int f = 0; f < frames; f++) {
+            world.step();
+            broadPhase.update();
+            broadPhase.getPairs(pairs);
+            found += pairs.size();
+        }
+        System.out.printf("%s: frame %8.3f ms, %d pairs per frame%n", name,
+                (System.nanoTime() - start) / 1e6 / frames, found / frames);
+    }
+
+    /**
+     * Polygons bouncing in a square, with small random velocities.
+     */
+    private static final class World {
+
+        final PackedPolygon[] polygons;
+        final double[] vx, vy;
+        final double side;
+        final int moving;
+
+        World(int n, int moving, double side) {
+            Random rnd = new Random(17);
+            this.side = side;
+            this.moving = moving;
+            polygons = new PackedPolygon[n];
+            vx = new double[n];
+            vy = new double[n];
+            for (int i = 0; i < n; i++) {
+                double cx = rnd.nextDouble() * side, cy = rnd.nextDouble() * side;
+                double r = 2 + rnd.nextDouble() * 8;
+                double[] coords = new double[16];
+                for (int k = 0; k < 8; k++) {
+                    coords[2 * k] = cx + r * Math.cos(k * Math.PI / 4);
+                    coords[2 * k + 1] = cy + r * Math.sin(k * Math.PI / 4);
+                }
+                polygons[i] = new PackedPolygon(coords);
+                vx[i] = rnd.nextDouble() - 0.5;
+                vy[i] = rnd.nextDouble() - 0.5;
+            }
+        }
+
+        void step() {
+            for (int i = 0; i < moving; i++) {
+                PackedPolygon p = polygons[i];
+                if (p.getMinX() + vx[i] < 0 || p.getMaxX() + vx[i] > side) {
+                    vx[i] = -vx[i];
+                }
+                if (p.getMinY() + vy[i] < 0 || p.getMaxY() + vy[i] > side) {
+                    vy[i] = -vy[i];
+                }
+                p.traslate(vx[i], vy[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import static org.junit.Assert.*;
+
+/**
+ * Checks shared by the tests of the {@link BroadPhase} implementations.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+final class BroadPhaseChecks {
+
+    private BroadPhaseChecks() {
+    }
+
+    /**
+     * Check that the pairs of a broad phase match a brute force check while
+     * polygons move, are added and removed, updating it with
+     * {@link BroadPhase#update()}.
+     *
+     * @param phase Empty broad phase
+     * @param rnd Source of randomness
+     */
+    static void checkCoherence(BroadPhase phase, Random rnd) {
+        checkCoherence(phase, rnd, (live, frame) -> phase.update());
+    }
+
+    /**
+     * Check that the pairs of a broad phase match a brute force check while
+     * polygons move, are added and removed. For 100 frames random squares
+     * are added, removed, and moved (except those with an odd handle, which
+     * stay still), then the broad phase is updated and its pairs compared
+     * with all the overlapping pairs of bounding boxes.
+     *
+     * @param phase Empty broad phase
+     * @param rnd Source of randomness
+     * @param update Updates the broad phase once per frame; it receives the
+     * polygons by handle (null if removed) and the frame number
+     */
+    static void checkCoherence(BroadPhase phase, Random rnd,
+            ObjIntConsumer<PackedPolygon[]> update) {
+        PackedPolygon[] live = new PackedPolygon[400];
+        PairList pairs = new PairList();
+        for (int frame = 0; frame < 100; frame++) {
+            // Many additions at first, then a few per frame
+            for (int i = 0; i < (frame == 0 ? 200 : 2); i++) {
+                int h = phase.add(square(rnd.nextInt(200) - 100, rnd.nextInt(200) - 100,
+                        1 + rnd.nextInt(20)));
+                live[h] = phase.getPolygon(h);
+            }
+            for (int h = 0; h < live.length; h++) {
+                if (live[h] != null && rnd.nextInt(100) == 0) {
+                    phase.remove(h);
+                    live[h] = null;
+                } else if (live[h] != null && h % 2 == 0) {
+                    live[h].traslate(rnd.nextInt(3) - 1, rnd.nextInt(3) - 1);
+                }
+            }
+            update.accept(live, frame);
+            phase.getPairs(pairs);
+            Set<Long> found = new HashSet<>();
+            for (int i = 0; i < pairs.size(); i++) {
+                assertTrue(pairs.getFirst(i) < pairs.getSecond(i));
+                found.add((long) pairs.getFirst(i) << 32 | pairs.getSecond(i));
+            }
+            assertEquals(pairs.size(), found.size());
+            Set<Long> expected = new HashSet<>();
+            for (int i = 0; i < live.length; i++) {
+                for (int j = i + 1; j < live.length; j++) {
+                    if (live[i] != null && live[j] != null && overlaps(live[i], live[j])) {
+                        expected.add((long) i << 32 | j);
+                    }
+                }
+            }
+            assertEquals(expected, found);
+        }
+    }
+
+    /**
+     * @return Whether the bounding boxes of p and q overlap (touching counts)
+     */
+    static boolean overlaps(PackedPolygon p, PackedPolygon q) {
+        return p.getMinX() <= q.getMaxX() && q.getMinX() <= p.getMaxX()
+                && p.getMinY() <= q.getMaxY() && q.getMinY() <= p.getMaxY();
+    }
+
+    /**
+     * @return An axis-aligned square with its lower left corner in (x,y)
+     */
+    static PackedPolygon square(double x, double y, double side) {
+        return new PackedPolygon(new double[]{x, y, x + side, y, x + side, y + side, x, y + side});
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.RigidTransform;
+import org.altervista.prezisland.geometry.shapes.EdgeTable;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.altervista.prezisland.geometry.shapes.TransformedPolygon;
+
+/**
+ * Times the directional penetration query on a workload of mostly separated
+ * pairs, with and without the GJK intersection pre-test, and compares it with
+ * the intersection tests alone and with the parallel dispatcher on pools of
+ * increasing size. Run with:
+ * java CollisionBenchmark [pairs] [vertices] [runs]
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class CollisionBenchmark {
+
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int vertices = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Random rnd = new Random(14);
+        PackedPolygon[] a = new PackedPolygon[pairs], b = new PackedPolygon[pairs];
+        for (int i = 0; i < pairs; i++) {
+            a[i] = randomConvexPolygon(rnd, vertices, 0, 0);
+            // Most pairs are far apart, about one in ten overlaps
+            double dist = rnd.nextInt(10) == 0 ? rnd.nextDouble() * 10 : 25 + rnd.nextDouble() * 100;
+            double angle = rnd.nextDouble() * 2 * Math.PI;
+            b[i] = randomConvexPolygon(rnd, vertices, dist * Math.cos(angle),
+                    dist * Math.sin(angle));
+        }
+        Line d = new Line(0, 0, 1, 0);
+        Point2D.Double out = new Point2D.Double();
+        PenetrationEngine plain = new PenetrationEngine(), early = new PenetrationEngine();
+        early.setEarlyOut(true);
+        Gjk gjk = new Gjk();
+        int separated = 0;
+        for (int i = 0; i < pairs; i++) {
+            separated += gjk.intersects(a[i], b[i]) ? 0 : 1;
+        }
+
+        System.out.println(pairs + " pairs of " + vertices + "-gons, " + separated + " separated");
+        double full = time(runs, () -> {
+            for (int i = 0; i < pairs; i++) {
+                plain.getPenetrationVector(a[i], b[i], d, true, out);
+            }
+        });
+        System.out.printf("penetration:          %8.1f ms%n", full);
+        double pre = time(runs, () -> {
+            for (int i = 0; i < pairs; i++) {
+                early.getPenetrationVector(a[i], b[i], d, true, out);
+            }
+        });
+        System.out.printf("penetration+early-out:%8.1f ms  speedup %.2f%n", pre, full / pre);
+        double test = time(runs, () -> {
+            for (int i = 0; i < pairs; i++) {
+                gjk.intersects(a[i], b[i]);
+            }
+        });
+        System.out.printf("intersection only:    %8.1f ms  speedup %.2f%n", test, full / test);
+        // The same pairs every run, as in consecutive frames of a simulation
+        SeparatingAxisCache cache = new SeparatingAxisCache(pairs);
+        double cached = time(runs, () -> {
+            for (int i = 0; i < pairs; i++) {
+                cache.intersects(a[i], b[i]);
+            }
+        });
+        System.out.printf("cached axis:          %8.1f ms  speedup %.2f (%d hits)%n", cached,
+                full / cached, cache.getHits());
+
+        // The same pairs through the parallel dispatcher
+        PackedPolygon[] polygons = new PackedPolygon[2 * pairs];
+        PairList list = new PairList();
+        for (int i = 0; i < pairs; i++) {
+            polygons[2 * i] = a[i];
+            polygons[2 * i + 1] = b[i];
+            list.add(2 * i, 2 * i + 1);
+        }
+        NarrowPhase narrowPhase = new NarrowPhase(d, true, false);
+        double[] vectors = new double[2 * pairs];
+        boolean[] found = new boolean[pairs];
+        int max = Runtime.getRuntime().availableProcessors();
+        for (int p = 1; p <= Math.max(max, 2); p *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            double par = time(runs, () -> narrowPhase.getPenetrationVectors(polygons, list,
+                    vectors, found, pool));
+            System.out.printf("narrow phase(%2d):     %8.1f ms  speedup %.2f%n", p, par,
+                    full / par);
+            pool.shutdown();
+        }
+
+        // Each first polygon sweeps towards the second one over a frame
+        double[] displacements = new double[4 * pairs];
+        for (int i = 0; i < pairs; i++) {
+            displacements[4 * i] = b[i].getCoords()[0] - a[i].getCoords()[0];
+            displacements[4 * i + 1] = b[i].getCoords()[1] - a[i].getCoords()[1];
+        }
+        double[] times = new double[pairs];
+        ForkJoinPool pool = new ForkJoinPool(max);
+        int[] hits = new int[1];
+        double toi = time(runs, () -> hits[0] = NarrowPhase.getTimesOfImpact(polygons,
+                displacements, list, times, pool));
+        System.out.printf("time of impact(%2d):   %8.1f ms  (%d hits)%n", max, toi, hits[0]);
+        pool.shutdown();
+
+        // Many directions for the same pair, on a tenth of the pairs
+        Line[] directions = new Line[16];
+        boolean[] orients = new boolean[16];
+        for (int i = 0; i < 16; i++) {
+            double angle = Math.PI * (i / 2) / 8;
+            directions[i] = new Line(0, 0, Math.cos(angle), Math.sin(angle));
+            orients[i] = i % 2 == 0;
+        }
+        int some = pairs / 10;
+        Polygon[] pa = new Polygon[some], pb = new Polygon[some];
+        for (int i = 0; i < some; i++) {
+            pa[i] = a[i].toPolygon();
+            pb[i] = b[i].toPolygon();
+        }
+        double each = time(runs, () -> {
+            for (int i = 0; i < some; i++) {
+                for (int k = 0; k < 16; k++) {
+                    plain.getPenetrationVector(pa[i], pb[i], directions[k], orients[k], out);
+                }
+            }
+        });
+        System.out.printf("16 directions:        %8.1f ms%n", each);
+        double[] dirVectors = new double[32];
+        boolean[] dirFound = new boolean[16];
+        double prepared = time(runs, () -> {
+            for (int i = 0; i < some; i++) {
+                new PreparedPair(pa[i], pb[i], false).getPenetrationVectors(directions, orients,
+                        dirVectors, dirFound);
+            }
+        });
+        System.out.printf("16 directions, shared:%8.1f ms  speedup %.2f%n", prepared,
+                each / prepared);
+        // Tables built once, as for rigid bodies which only move their transform
+        EdgeTable[] ta = new EdgeTable[some], tb = new EdgeTable[some];
+        for (int i = 0; i < some; i++) {
+            ta[i] = new EdgeTable(a[i]);
+            tb[i] = new EdgeTable(b[i]);
+        }
+        RigidTransform identity = new RigidTransform();
+        double tables = time(runs, () -> {
+            for (int i = 0; i < some; i++) {
+                for (int k = 0; k < 16; k++) {
+                    gjk.getExitTranslation(ta[i], identity, tb[i], identity,
+                            directions[k], orients[k], out);
+                }
+            }
+        });
+        System.out.printf("16 directions, tables:%8.1f ms  speedup %.2f%n", tables,
+                each / tables);
+
+        // Moving bodies: every first polygon moves back and forth, then is queried
+        TransformedPolygon[] ma = new TransformedPolygon[pairs],
+                mb = new TransformedPolygon[pairs];
+        for (int i = 0; i < pairs; i++) {
+            ma[i] = new TransformedPolygon(a[i]);
+            mb[i] = new TransformedPolygon(b[i]);
+        }
+        double moved = time(runs, () -> {
+            for (int i = 0; i < pairs; i++) {
+                a[i].traslate(1, 0);
+                early.getPenetrationVector(a[i], b[i], d, true, out);
+                a[i].traslate(-1, 0);
+            }
+        });
+        System.out.printf("move+query:           %8.1f ms%n", moved);
+        double movedTransformed = time(runs, () -> {
+            for (int i = 0; i < pairs; i++) {
+                ma[i].traslate(1, 0);
+                early.getPenetrationVector(ma[i], mb[i], d, true, out);
+                ma[i].traslate(-1, 0);
+            }
+        });
+        System.out.printf("move+query, transform:%8.1f ms  speedup %.2f%n", movedTransformed,
+                moved / movedTransformed);
+    }
+
+    /**
+     * @return A convex polygon with the given number of vertices on a circle
+     * of radius 10 around (cx,cy)
+     */
+    private static PackedPolygon randomConvexPolygon(Random rnd, int n, double cx, double cy) {
+        double[] angles = new double[n];
+        for (int i = 0; i < n; i++) {
+            angles[i] = rnd.nextDouble() * 2 * Math.PI;
+        }
+        Arrays.sort(angles);
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            coords[2 * i] = cx + 10 * Math.cos(angles[i]);
+            coords[2 * i + 1] = cy + 10 * Math.sin(angles[i]);
+        }
+        return new PackedPolygon(coords, n);
+    }
+
+    /**
+     * @return Average time of a run in milliseconds, after one warm-up run
+     */
+    private static double time(int runs, Runnable r) {
+        r.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            r.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / runs;
+    }
+}
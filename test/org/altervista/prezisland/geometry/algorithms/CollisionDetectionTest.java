@@ -0,0 +1,341 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Collections;
+import java.util.Random;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.ConvexPolygon;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.altervista.prezisland.geometry.shapes.TransformedPolygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class CollisionDetectionTest {
+
+    private static final Polygon SQUARE = new Polygon(new Point2D.Double[]{
+        new Point2D.Double(0, 0), new Point2D.Double(100, 0),
+        new Point2D.Double(100, 100), new Point2D.Double(0, 100)}),
+            OVERLAPPING = new Polygon(new Point2D.Double[]{
+                new Point2D.Double(60, 10), new Point2D.Double(160, 10),
+                new Point2D.Double(160, 110), new Point2D.Double(60, 110)}),
+            SEPARATED = new Polygon(new Point2D.Double[]{
+                new Point2D.Double(300, 0), new Point2D.Double(400, 0),
+                new Point2D.Double(400, 100), new Point2D.Double(300, 100)});
+    private static final Line DIR_HOR = new Line(0, 0, 1, 0),
+            DIR_VERT = new Line(0, 0, 0, 1),
+            DIR_BISECT = new Line(0, 0, 1, 1);
+
+    public CollisionDetectionTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of getPenetrationVector method, of class CollisionDetection.
+     */
+    @Test
+    public void testGetPenetrationVector() {
+        System.out.println("getPenetrationVector");
+        assertEquals(new Point2D.Double(40, 0),
+                CollisionDetection.getPenetrationVector(SQUARE, OVERLAPPING, DIR_HOR, true));
+        assertEquals(new Point2D.Double(0, 90),
+                CollisionDetection.getPenetrationVector(SQUARE, OVERLAPPING, DIR_VERT, true));
+        assertEquals(new Point2D.Double(40, 40),
+                CollisionDetection.getPenetrationVector(SQUARE, OVERLAPPING, DIR_BISECT, true));
+        assertEquals(new Point2D.Double(0, 0),
+                CollisionDetection.getPenetrationVector(SQUARE, SEPARATED, DIR_HOR, true));
+    }
+
+    /**
+     * Test of getPenetrationVector method writing into a caller-supplied
+     * Point, of class CollisionDetection.
+     */
+    @Test
+    public void testGetPenetrationVectorOut() {
+        System.out.println("getPenetrationVector (out)");
+        Point2D.Double out = new Point2D.Double(-1, -1);
+        assertTrue(CollisionDetection.getPenetrationVector(SQUARE, OVERLAPPING, DIR_HOR, true, out));
+        assertEquals(new Point2D.Double(40, 0), out);
+        assertFalse(CollisionDetection.getPenetrationVector(SQUARE, SEPARATED, DIR_HOR, true, out));
+        assertEquals(new Point2D.Double(0, 0), out);
+        // Input polygons must not be modified
+        assertEquals(new Point2D.Double(60, 10), OVERLAPPING.getPoints().get(0));
+    }
+
+    /**
+     * Test of penVect method, of class CollisionDetection. The arguments must
+     * not be modified.
+     */
+    @Test
+    public void testPenVect() {
+        System.out.println("penVect");
+        Polygon P = new Polygon(SQUARE), Q = new Polygon(OVERLAPPING);
+        Q.traslate(-60, -10);
+        Polygon A = CollisionDetection.getLeftShadow(P, 2, 0),
+                B = CollisionDetection.getRightShadowInv(Q, 2, 0);
+        Point2D.Double w = new Point2D.Double(60, 10);
+        Line d = new Line(DIR_HOR);
+        d.traslate(w);
+        assertEquals(new Point2D.Double(40, 0), CollisionDetection.penVect(A, B, w, d, true));
+        assertEquals(new Point2D.Double(60, 10), w);
+        assertEquals(10, d.calculateY(0), 0);
+    }
+
+    /**
+     * Test of getPenetrationVector method with polygons whose first vertex is
+     * not the reference point, of class CollisionDetection.
+     */
+    @Test
+    public void testGetPenetrationVectorRotated() {
+        System.out.println("getPenetrationVector (rotated)");
+        Polygon P = new Polygon(SQUARE), Q = new Polygon(OVERLAPPING);
+        Collections.rotate(P.getPoints(), 1);
+        Collections.rotate(Q.getPoints(), 3);
+        assertEquals(new Point2D.Double(40, 0),
+                CollisionDetection.getPenetrationVector(P, Q, DIR_HOR, true));
+        assertEquals(new Point2D.Double(0, 90),
+                CollisionDetection.getPenetrationVector(P, Q, DIR_VERT, true));
+    }
+
+    /**
+     * Test of getPenetrationVector method for packed polygons, of class
+     * CollisionDetection.
+     */
+    @Test
+    public void testGetPenetrationVectorPacked() {
+        System.out.println("getPenetrationVector (packed)");
+        PackedPolygon P = new PackedPolygon(SQUARE), Q = new PackedPolygon(OVERLAPPING);
+        Point2D.Double out = new Point2D.Double();
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_HOR, true, out));
+        assertEquals(new Point2D.Double(40, 0), out);
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_BISECT, true, out));
+        assertEquals(new Point2D.Double(40, 40), out);
+        assertFalse(CollisionDetection.getPenetrationVector(P, new PackedPolygon(SEPARATED),
+                DIR_HOR, true, out));
+    }
+
+    /**
+     * Test of getPenetrationVector method for transformed polygons, of class
+     * CollisionDetection.
+     */
+    @Test
+    public void testGetPenetrationVectorTransformed() {
+        System.out.println("getPenetrationVector (transformed)");
+        TransformedPolygon P = new TransformedPolygon(SQUARE),
+                Q = new TransformedPolygon(OVERLAPPING);
+        Point2D.Double out = new Point2D.Double();
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_HOR, true, out));
+        assertEquals(40, out.x, 1e-9);
+        assertEquals(0, out.y, 1e-9);
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_BISECT, true, out));
+        assertEquals(40, out.x, 1e-9);
+        assertEquals(40, out.y, 1e-9);
+        Q.traslate(200, 0);
+        assertFalse(CollisionDetection.intersects(P, Q));
+        // A square turned by 90 degrees about its center is the same square
+        Q.traslate(-200, 0);
+        Q.rotate(Math.PI / 2);
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_VERT, true, out));
+        assertEquals(0, out.x, 1e-9);
+        assertEquals(90, out.y, 1e-9);
+        // Rotated irregular polygons give the same vectors as their vertices
+        TransformedPolygon A = new TransformedPolygon(new PackedPolygon(new double[]{0, 0,
+            70, -10, 110, 40, 60, 90, -10, 50})),
+                B = new TransformedPolygon(new PackedPolygon(new double[]{50, 20, 120, 30,
+                    90, 100, 40, 80}));
+        Point2D.Double expected = new Point2D.Double();
+        Line[] directions = {DIR_HOR, DIR_VERT, DIR_BISECT, new Line(0, 0, -2, 1)};
+        for (int step = 0; step < 24; step++) {
+            A.rotate(Math.PI / 12);
+            B.rotate(-Math.PI / 7);
+            B.traslate(step % 2 == 0 ? 9 : -4, 3);
+            for (Line d : directions) {
+                for (boolean orient : new boolean[]{true, false}) {
+                    boolean found = CollisionDetection.getPenetrationVector(A.toPolygon(),
+                            B.toPolygon(), d, orient, expected);
+                    assertEquals(found, CollisionDetection.getPenetrationVector(A, B, d,
+                            orient, out));
+                    assertEquals(expected, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of getPenetrationVector method for immutable convex polygons, of
+     * class CollisionDetection.
+     */
+    @Test
+    public void testGetPenetrationVectorConvex() {
+        System.out.println("getPenetrationVector (convex)");
+        ConvexPolygon P = new ConvexPolygon(SQUARE), Q = new ConvexPolygon(OVERLAPPING);
+        Point2D.Double out = new Point2D.Double();
+        assertTrue(CollisionDetection.intersects(P, Q));
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_HOR, true, out));
+        assertEquals(40, out.x, 1e-9);
+        assertEquals(0, out.y, 1e-9);
+        assertTrue(CollisionDetection.getPenetrationVector(P, Q, DIR_VERT, true, out));
+        assertEquals(0, out.x, 1e-9);
+        assertEquals(90, out.y, 1e-9);
+        ConvexPolygon R = new ConvexPolygon(SEPARATED);
+        assertFalse(CollisionDetection.intersects(P, R));
+        assertFalse(CollisionDetection.getPenetrationVector(P, R, DIR_HOR, true, out));
+        assertEquals(new Point2D.Double(0, 0), out);
+        // Random polygons give the same vectors as the Polygons they were built from
+        Random rnd = new Random(25);
+        Point2D.Double expected = new Point2D.Double();
+        Line[] directions = {DIR_HOR, DIR_VERT, DIR_BISECT, new Line(0, 0, -2, 1)};
+        for (int run = 0; run < 200; run++) {
+            PackedPolygon a = RandomPolygons.randomConvexPolygon(rnd, 0, 0),
+                    b = RandomPolygons.randomConvexPolygon(rnd, rnd.nextDouble() * 30,
+                            rnd.nextDouble() * 30);
+            ConvexPolygon A = new ConvexPolygon(a), B = new ConvexPolygon(b);
+            for (Line d : directions) {
+                for (boolean orient : new boolean[]{true, false}) {
+                    boolean found = CollisionDetection.getPenetrationVector(a.toPolygon(),
+                            b.toPolygon(), d, orient, expected);
+                    assertEquals(found, CollisionDetection.getPenetrationVector(A, B, d,
+                            orient, out));
+                    assertEquals(expected, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of getExitTranslation method, of class CollisionDetection.
+     */
+    @Test
+    public void testGetExitTranslation() {
+        System.out.println("getExitTranslation");
+        ConvexPolygon P = new ConvexPolygon(SQUARE), Q = new ConvexPolygon(OVERLAPPING);
+        Point2D.Double out = new Point2D.Double();
+        double[][] expected = {{40, 0}, {160, 0}, {0, 90}, {0, 110}};
+        Line[] directions = {DIR_HOR, DIR_VERT};
+        for (int i = 0; i < directions.length; i++) {
+            for (int k = 0; k < 2; k++) {
+                assertTrue(CollisionDetection.getExitTranslation(P, Q, directions[i], k == 0,
+                        out));
+                assertEquals(expected[2 * i + k][0], out.x, 1e-9);
+                assertEquals(expected[2 * i + k][1], out.y, 1e-9);
+            }
+        }
+        // Disjoint polygons have no exit translation
+        assertFalse(CollisionDetection.getExitTranslation(P, new ConvexPolygon(SEPARATED),
+                DIR_HOR, true, out));
+        assertEquals(new Point2D.Double(0, 0), out);
+        // Transformed polygons give the same vectors as their vertices
+        Random rnd = new Random(23);
+        Point2D.Double expectedOut = new Point2D.Double();
+        Line[] more = {DIR_HOR, DIR_VERT, DIR_BISECT, new Line(0, 0, -2, 1)};
+        for (int run = 0; run < 200; run++) {
+            TransformedPolygon A = new TransformedPolygon(
+                    RandomPolygons.randomConvexPolygon(rnd, 0, 0)),
+                    B = new TransformedPolygon(RandomPolygons.randomConvexPolygon(rnd, 0, 0));
+            A.rotate(rnd.nextDouble() * 2 * Math.PI);
+            B.rotate(rnd.nextDouble() * 2 * Math.PI);
+            B.traslate(rnd.nextDouble() * 30, rnd.nextDouble() * 30);
+            ConvexPolygon a = new ConvexPolygon(A.toPolygon()),
+                    b = new ConvexPolygon(B.toPolygon());
+            for (Line d : more) {
+                for (boolean orient : new boolean[]{true, false}) {
+                    boolean found = CollisionDetection.getExitTranslation(a, b, d, orient,
+                            expectedOut);
+                    assertEquals(found, CollisionDetection.getExitTranslation(A, B, d, orient,
+                            out));
+                    assertEquals(expectedOut.x, out.x, 1e-6);
+                    assertEquals(expectedOut.y, out.y, 1e-6);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of getMinimumTranslationVector method, of class CollisionDetection.
+     */
+    @Test
+    public void testGetMinimumTranslationVector() {
+        System.out.println("getMinimumTranslationVector");
+        Point2D.Double out = new Point2D.Double();
+        assertTrue(CollisionDetection.getMinimumTranslationVector(SQUARE, OVERLAPPING, out));
+        assertEquals(new Point2D.Double(40, 0), out);
+        Polygon above = new Polygon(new Point2D.Double[]{
+            new Point2D.Double(10, 95), new Point2D.Double(110, 95),
+            new Point2D.Double(110, 195), new Point2D.Double(10, 195)});
+        assertTrue(CollisionDetection.getMinimumTranslationVector(
+                new PackedPolygon(SQUARE), new PackedPolygon(above), out));
+        assertEquals(new Point2D.Double(0, 5), out);
+        assertFalse(CollisionDetection.getMinimumTranslationVector(SQUARE, SEPARATED, out));
+        assertEquals(new Point2D.Double(), out);
+    }
+
+    /**
+     * ShadowChain views must match the shadows built by getLeftShadow and
+     * getRightShadowInv.
+     */
+    @Test
+    public void testShadowChain() {
+        System.out.println("ShadowChain");
+        Polygon P = new Polygon(new Point2D.Double[]{
+            new Point2D.Double(10, 20), new Point2D.Double(60, 20),
+            new Point2D.Double(90, 70), new Point2D.Double(50, 120),
+            new Point2D.Double(30, 120), new Point2D.Double(0, 60)});
+        Polygon T = new Polygon(P);
+        T.traslate(-10, -20);
+        assertShadowEquals(CollisionDetection.getLeftShadow(T, 3, 0),
+                new ShadowChain().setLeftShadow(P.getPoints(), 0, 3));
+        assertShadowEquals(CollisionDetection.getRightShadowInv(T, 3, 0),
+                new ShadowChain().setRightShadowInv(P.getPoints(), 0, 3));
+        // Same polygon, starting from another vertex
+        Collections.rotate(P.getPoints(), 2);
+        assertShadowEquals(CollisionDetection.getLeftShadow(T, 3, 0),
+                new ShadowChain().setLeftShadow(P.getPoints(), 2, 5));
+        assertShadowEquals(CollisionDetection.getRightShadowInv(T, 3, 0),
+                new ShadowChain().setRightShadowInv(P.getPoints(), 2, 5));
+    }
+
+    private static void assertShadowEquals(Polygon expected, ShadowChain shadow) {
+        assertEquals(expected.getPointsNumber(), shadow.size());
+        for (int k = 0; k < shadow.size(); k++) {
+            assertEquals(expected.getPoints().get(k).x, shadow.x(k), 0);
+            assertEquals(expected.getPoints().get(k).y, shadow.y(k), 0);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.Random;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class ConvexDecompositionTest {
+
+    public ConvexDecompositionTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of decompose method, of class ConvexDecomposition.
+     */
+    @Test
+    public void testDecompose() {
+        System.out.println("decompose");
+        // L shape: two pieces
+        double[] l = {0, 0, 2, 0, 2, 1, 1, 1, 1, 2, 0, 2};
+        List<PackedPolygon> pieces = ConvexDecomposition.decompose(l, 6);
+        assertEquals(2, pieces.size());
+        assertPieces(l, 6, pieces);
+
+        // Random star-shaped polygons, in both orientations
+        Random rnd = new Random(12);
+        for (int t = 0; t < 200; t++) {
+            int n = 4 + rnd.nextInt(40);
+            double[] star = new double[2 * n], reversed = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                double a = 2 * Math.PI * i / n, r = 20 + rnd.nextInt(80);
+                star[2 * i] = Math.round(r * Math.cos(a));
+                star[2 * i + 1] = Math.round(r * Math.sin(a));
+                reversed[2 * (n - 1 - i)] = star[2 * i];
+                reversed[2 * (n - 1 - i) + 1] = star[2 * i + 1];
+            }
+            assertPieces(star, n, ConvexDecomposition.decompose(star, n));
+            assertPieces(star, n, ConvexDecomposition.decompose(reversed, n));
+        }
+    }
+
+    /**
+     * Test of getDecomposition method, of class ConvexDecomposition.
+     */
+    @Test
+    public void testGetDecomposition() {
+        System.out.println("getDecomposition");
+        Polygon p = new Polygon(new Point2D.Double[]{new Point2D.Double(0, 0),
+            new Point2D.Double(2, 0), new Point2D.Double(2, 1), new Point2D.Double(1, 1),
+            new Point2D.Double(1, 2), new Point2D.Double(0, 2)});
+        List<PackedPolygon> pieces = ConvexDecomposition.getDecomposition(p);
+        assertSame(pieces, ConvexDecomposition.getDecomposition(p));
+        // Equal polygons are distinct keys
+        assertNotSame(pieces, ConvexDecomposition.getDecomposition(new Polygon(p)));
+
+        p.traslate(10, 0);
+        ConvexDecomposition.invalidate(p);
+        List<PackedPolygon> moved = ConvexDecomposition.getDecomposition(p);
+        assertNotSame(pieces, moved);
+        assertEquals(pieces.get(0).getMinX() + 10, moved.get(0).getMinX(), 0);
+    }
+
+    /**
+     * Check that the pieces are convex, counter-clockwise and cover the
+     * polygon's area.
+     */
+    private static void assertPieces(double[] coords, int n, List<PackedPolygon> pieces) {
+        double total = 0;
+        for (PackedPolygon piece : pieces) {
+            double[] c = piece.getCoords();
+            int m = piece.getPointsNumber();
+            for (int i = 0; i < m; i++) {
+                int a = (i + m - 1) % m, b = (i + 1) % m;
+                assertTrue((c[2 * i] - c[2 * a]) * (c[2 * b + 1] - c[2 * a + 1])
+                        - (c[2 * i + 1] - c[2 * a + 1]) * (c[2 * b] - c[2 * a]) >= 0);
+            }
+            total += ConvexDecomposition.signedArea(c, m);
+        }
+        assertEquals(Math.abs(ConvexDecomposition.signedArea(coords, n)), total, 1e-9);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the sequential convex hull with the prefiltered one, and with the
+ * parallel one on pools of increasing size. Run with:
+ * java ConvexHullBenchmark [points] [runs]
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class ConvexHullBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Random rnd = new Random(1);
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            // Points in a disc, so that the hull has many vertices
+            double r = Math.sqrt(rnd.nextDouble()), a = rnd.nextDouble() * 2 * Math.PI;
+            coords[2 * i] = r * Math.cos(a);
+            coords[2 * i + 1] = r * Math.sin(a);
+        }
+
+        System.out.println(n + " points, " + Runtime.getRuntime().availableProcessors()
+                + " cores");
+        double seq = time(runs, () -> ConvexHull.convexHull(coords, n));
+        System.out.printf("sequential:   %8.1f ms%n", seq);
+        double filtered = time(runs, () -> ConvexHull.convexHull(coords, n, true));
+        System.out.printf("prefiltered:  %8.1f ms  speedup %.2f%n", filtered, seq / filtered);
+        int max = Runtime.getRuntime().availableProcessors();
+        for (int p = 1; p <= Math.max(max, 2); p *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            double par = time(runs, () -> ConvexHull.parallelConvexHull(coords, n,
+                    ParallelConvexHull.DEFAULT_THRESHOLD, pool));
+            System.out.printf("parallel(%2d): %8.1f ms  speedup %.2f%n", p, par, seq / par);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return Average time of a run in milliseconds, after one warm-up run
+     */
+    private static double time(int runs, Runnable r) {
+        r.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            r.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / runs;
+    }
+}
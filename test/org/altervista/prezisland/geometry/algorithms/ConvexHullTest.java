@@ -26,7 +26,10 @@ package org.altervista.prezisland.geometry.algorithms;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import org.altervista.prezisland.geometry.Geometry;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -72,4 +75,157 @@ public class ConvexHullTest {
         assertTrue(pts.get(0).equals(new Point2D.Double(4,4)));
     }
 
+    /**
+     * Test of convexHull method on packed points, of class ConvexHull.
+     */
+    @Test
+    public void testConvexHull() {
+        System.out.println("convexHull");
+        double[] coords = {0, 0, 0, 4, 1, 2, 2, 3, 3, 1, 4, 0, 4, 4, 2, 0};
+        double[] copy = coords.clone();
+        PackedPolygon hull = ConvexHull.convexHull(coords, 8);
+        assertArrayEquals(copy, coords, 0);
+        assertEquals(4, hull.getPointsNumber());
+        double[] expected = {0, 0, 4, 0, 4, 4, 0, 4};
+        for (int i = 0; i < 8; i++) {
+            assertEquals(expected[i], hull.getCoords()[i], 0);
+        }
+    }
+
+    /**
+     * Test of discardInteriorPoints method, and of convexHull method with the
+     * prefilter enabled, of class ConvexHull.
+     */
+    @Test
+    public void testDiscardInteriorPoints() {
+        System.out.println("discardInteriorPoints");
+        // Square, an interior point, a point on an edge and a duplicate corner
+        double[] coords = {0, 0, 10, 0, 5, 5, 10, 10, 0, 10, 5, 0, 0, 0};
+        int m = ConvexHull.discardInteriorPoints(coords, 7);
+        assertEquals(6, m);
+        double[] expected = {0, 0, 10, 0, 10, 10, 0, 10, 5, 0, 0, 0};
+        for (int i = 0; i < 2 * m; i++) {
+            assertEquals(expected[i], coords[i], 0);
+        }
+
+        Random rnd = new Random(7);
+        int n = 2000;
+        double[] pts = new double[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            pts[i] = rnd.nextGaussian();
+        }
+        PackedPolygon hull = ConvexHull.convexHull(pts, n);
+        PackedPolygon filtered = ConvexHull.convexHull(pts, n, true);
+        assertEquals(hull.getPointsNumber(), filtered.getPointsNumber());
+        for (int i = 0; i < 2 * hull.getPointsNumber(); i++) {
+            assertEquals(hull.getCoords()[i], filtered.getCoords()[i], 0);
+        }
+    }
+
+    /**
+     * Test of parallelConvexHull method, of class ConvexHull, against the
+     * sequential hull.
+     */
+    @Test
+    public void testParallelConvexHull() {
+        System.out.println("parallelConvexHull");
+        Random rnd = new Random(42);
+        int n = 5000;
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            coords[i] = rnd.nextInt(200);
+        }
+        PackedPolygon expected = ConvexHull.convexHull(coords, n);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            PackedPolygon result = ConvexHull.parallelConvexHull(coords, n, 64, pool);
+            assertEquals(expected.getPointsNumber(), result.getPointsNumber());
+            for (int i = 0; i < 2 * expected.getPointsNumber(); i++) {
+                assertEquals(expected.getCoords()[i], result.getCoords()[i], 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test of chanConvexHull method, of class ConvexHull, against the
+     * monotone chain hull.
+     */
+    @Test
+    public void testChanConvexHull() {
+        System.out.println("chanConvexHull");
+        Random rnd = new Random(9);
+        for (int n : new int[]{3, 10, 100, 5000}) {
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < 2 * n; i++) {
+                coords[i] = rnd.nextInt(50);
+            }
+            PackedPolygon expected = ConvexHull.convexHull(coords, n);
+            PackedPolygon result = ConvexHull.chanConvexHull(coords, n);
+            assertEquals(expected.getPointsNumber(), result.getPointsNumber());
+            for (int i = 0; i < 2 * expected.getPointsNumber(); i++) {
+                assertEquals(expected.getCoords()[i], result.getCoords()[i], 0);
+            }
+        }
+    }
+
+    /**
+     * Test of selectStrategy method, of class ConvexHull.
+     */
+    @Test
+    public void testSelectStrategy() {
+        System.out.println("selectStrategy");
+        Random rnd = new Random(9);
+        int n = 100000;
+        double[] uniform = new double[2 * n], circle = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            uniform[2 * i] = rnd.nextDouble();
+            uniform[2 * i + 1] = rnd.nextDouble();
+            double a = rnd.nextDouble() * 2 * Math.PI;
+            circle[2 * i] = Math.cos(a);
+            circle[2 * i + 1] = Math.sin(a);
+        }
+        assertSame(ConvexHull.MONOTONE_CHAIN, ConvexHull.selectStrategy(uniform, 100));
+        assertSame(ConvexHull.AKL_TOUSSAINT, ConvexHull.selectStrategy(uniform, n));
+        HullStrategy strategy = ConvexHull.selectStrategy(circle, n);
+        assertTrue(strategy == ConvexHull.MONOTONE_CHAIN || strategy == ConvexHull.PARALLEL);
+        assertEquals(ConvexHull.convexHull(circle, n).getPointsNumber(),
+                ConvexHull.AUTO.convexHull(circle, n).getPointsNumber());
+    }
+
+    /**
+     * Test of grahamConvexHull method with a listener, of class ConvexHull.
+     */
+    @Test
+    public void testGrahamConvexHullListener() {
+        System.out.println("grahamConvexHull (listener)");
+        List<Point2D.Double> pts = new ArrayList<>();
+        pts.add(new Point2D.Double(0, 0));
+        pts.add(new Point2D.Double(2, 1));
+        pts.add(new Point2D.Double(4, 0));
+        pts.add(new Point2D.Double(2, 4));
+        final int[] events = new int[2];
+        ArrayList<Point2D.Double> result = ConvexHull.grahamConvexHull(pts,
+                new ConvexHull.HullListener() {
+
+                    @Override
+                    public void pointAdded(int index, int size) {
+                        events[0]++;
+                    }
+
+                    @Override
+                    public void pointRemoved(int index, int size) {
+                        events[1]++;
+                    }
+                });
+        assertEquals(3, result.size());
+        assertSame(pts.get(0), result.get(0));
+        assertEquals(new Point2D.Double(4, 0), result.get(1));
+        assertEquals(new Point2D.Double(2, 4), result.get(2));
+        // Every point left on the stack has been pushed; (0,0) is pushed twice
+        assertTrue(events[1] > 0);
+        assertEquals(result.size() + 1, events[0] - events[1]);
+    }
+
 }
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.altervista.prezisland.geometry.Line;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class DynamicAabbTreeTest {
+
+    public DynamicAabbTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * The pairs must match a brute force check while polygons move, are
+     * added and removed, updating all the polygons or one at a time.
+     */
+    @Test
+    public void testGetPairs() {
+        System.out.println("getPairs");
+        DynamicAabbTree tree = new DynamicAabbTree(1);
+        BroadPhaseChecks.checkCoherence(tree, new Random(19), (live, frame) -> {
+            if (frame % 2 == 0) {
+                tree.update();
+            } else {
+                for (int h = 0; h < live.length; h++) {
+                    if (live[h] != null) {
+                        tree.update(h);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Test of query method, of class DynamicAabbTree.
+     */
+    @Test
+    public void testQuery() {
+        System.out.println("query");
+        DynamicAabbTree tree = new DynamicAabbTree();
+        int a = tree.add(BroadPhaseChecks.square(0, 0, 10)),
+                b = tree.add(BroadPhaseChecks.square(20, 0, 10));
+        tree.add(BroadPhaseChecks.square(0, 40, 10));
+        tree.update();
+        Set<Integer> found = new HashSet<>();
+        tree.query(5, 5, 20, 8, h -> found.add(h));
+        assertEquals(new HashSet<>(Arrays.asList(a, b)), found);
+        found.clear();
+        // The margin does not count
+        tree.query(11, 11, 19, 19, h -> found.add(h));
+        assertTrue(found.isEmpty());
+        // Stop at the first polygon
+        tree.query(-100, -100, 100, 100, h -> !found.add(h));
+        assertEquals(1, found.size());
+    }
+
+    /**
+     * Test of rayCast method, of class DynamicAabbTree.
+     */
+    @Test
+    public void testRayCast() {
+        System.out.println("rayCast");
+        DynamicAabbTree tree = new DynamicAabbTree();
+        int a = tree.add(BroadPhaseChecks.square(10, 0, 10)),
+                b = tree.add(BroadPhaseChecks.square(40, 0, 10));
+        int c = tree.add(BroadPhaseChecks.square(-30, 0, 10));
+        tree.add(BroadPhaseChecks.square(10, 30, 10));
+        tree.update();
+        Set<Integer> found = new HashSet<>();
+        tree.rayCast(0, 5, 1, 0, 30, h -> found.add(h));
+        assertEquals(new HashSet<>(Arrays.asList(a)), found);
+        found.clear();
+        tree.rayCast(new Point2D.Double(0, 5), new Line(0, 0, 1, 0), true, 100, h -> found.add(h));
+        assertEquals(new HashSet<>(Arrays.asList(a, b)), found);
+        found.clear();
+        tree.rayCast(new Point2D.Double(0, 5), new Line(0, 0, 1, 0), false, 100, h -> found.add(h));
+        assertEquals(new HashSet<>(Arrays.asList(c)), found);
+    }
+
+    /**
+     * Sorted insertions must not degenerate the tree.
+     */
+    @Test
+    public void testBalance() {
+        System.out.println("balance");
+        DynamicAabbTree tree = new DynamicAabbTree();
+        for (int i = 0; i < 1024; i++) {
+            tree.add(BroadPhaseChecks.square(20 * i, 0, 10));
+        }
+        tree.update();
+        assertTrue(tree.getHeight() <= 20);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.RigidTransform;
+import org.altervista.prezisland.geometry.shapes.EdgeTable;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class GjkTest {
+
+    private static final Polygon SQUARE = square(0, 0, 100),
+            OVERLAPPING = square(50, 50, 100),
+            TOUCHING = square(100, 20, 30),
+            SEPARATED = square(130, 140, 20),
+            INSIDE = square(40, 40, 10);
+
+    public GjkTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of intersects method, of class Gjk.
+     */
+    @Test
+    public void testIntersects() {
+        System.out.println("intersects");
+        Gjk gjk = new Gjk();
+        assertTrue(gjk.intersects(SQUARE, OVERLAPPING));
+        assertTrue(gjk.intersects(SQUARE, TOUCHING));
+        assertTrue(gjk.intersects(SQUARE, INSIDE));
+        assertTrue(gjk.intersects(INSIDE, SQUARE));
+        assertFalse(gjk.intersects(SQUARE, SEPARATED));
+        assertFalse(gjk.intersects(SEPARATED, SQUARE));
+        assertFalse(gjk.intersects(new PackedPolygon(SQUARE), new PackedPolygon(SEPARATED)));
+        assertTrue(gjk.intersects(new PackedPolygon(SQUARE), new PackedPolygon(OVERLAPPING)));
+    }
+
+    /**
+     * Test of distance method, of class Gjk.
+     */
+    @Test
+    public void testDistance() {
+        System.out.println("distance");
+        Gjk gjk = new Gjk();
+        Point2D.Double out = new Point2D.Double();
+        assertEquals(0, gjk.distance(SQUARE, OVERLAPPING, out), 1e-9);
+        assertEquals(0, out.distance(0, 0), 1e-9);
+        assertEquals(0, gjk.distance(SQUARE, TOUCHING, null), 1e-9);
+        // Closest points: (100,100) and (130,140)
+        assertEquals(50, gjk.distance(SQUARE, SEPARATED, out), 1e-9);
+        assertEquals(-30, out.x, 1e-9);
+        assertEquals(-40, out.y, 1e-9);
+        assertEquals(50, gjk.distance(new PackedPolygon(SEPARATED), new PackedPolygon(SQUARE),
+                out), 1e-9);
+        assertEquals(30, out.x, 1e-9);
+        assertEquals(40, out.y, 1e-9);
+    }
+
+    /**
+     * Test of timeOfImpact method, of class Gjk.
+     */
+    @Test
+    public void testTimeOfImpact() {
+        System.out.println("timeOfImpact");
+        Gjk gjk = new Gjk();
+        Polygon right = square(200, 0, 100);
+        assertEquals(0.5, gjk.timeOfImpact(right, SQUARE, -200, 0), 1e-9);
+        assertEquals(0.25, gjk.timeOfImpact(SQUARE, right, 400, 0), 1e-9);
+        assertEquals(0, gjk.timeOfImpact(SQUARE, OVERLAPPING, 10, 10), 0);
+        assertEquals(-1, gjk.timeOfImpact(right, SQUARE, 200, 0), 0);
+        assertEquals(-1, gjk.timeOfImpact(right, SQUARE, -50, 0), 0);
+        assertEquals(-1, gjk.timeOfImpact(right, SQUARE, 0, -300), 0);
+        // Corner (130,140) against corner (100,100)
+        assertEquals(0.5, gjk.timeOfImpact(new PackedPolygon(SEPARATED),
+                new PackedPolygon(SQUARE), -60, -80), 1e-9);
+        assertEquals(0.5, CollisionDetection.getTimeOfImpact(SEPARATED, SQUARE, -60, -80), 1e-9);
+    }
+
+    /**
+     * Test of the intersection pre-test of PenetrationEngine.
+     */
+    @Test
+    public void testEarlyOut() {
+        System.out.println("earlyOut");
+        PenetrationEngine engine = new PenetrationEngine();
+        assertFalse(engine.isEarlyOut());
+        engine.setEarlyOut(true);
+        Line d = new Line(0, 0, 1, 0);
+        Point2D.Double out = new Point2D.Double(1, 1);
+        assertFalse(engine.getPenetrationVector(SQUARE, SEPARATED, d, true, out));
+        assertEquals(new Point2D.Double(), out);
+        // Intersecting pairs give the same result as without the pre-test
+        Point2D.Double expected = new Point2D.Double();
+        boolean found = new PenetrationEngine().getPenetrationVector(SQUARE, OVERLAPPING, d,
+                true, expected);
+        assertEquals(found, engine.getPenetrationVector(SQUARE, OVERLAPPING, d, true, out));
+        assertEquals(expected, out);
+    }
+
+    /**
+     * Test of the queries on edge tables, of class Gjk.
+     */
+    @Test
+    public void testEdgeTables() {
+        System.out.println("edgeTables");
+        Gjk gjk = new Gjk();
+        EdgeTable a = new EdgeTable(SQUARE), b = new EdgeTable(square(-50, -50, 100));
+        RigidTransform identity = new RigidTransform();
+        // b rotated by 90 degrees and moved onto [50,150]x[20,120]
+        RigidTransform moved = new RigidTransform(Math.PI / 2, 100, 70);
+        assertTrue(gjk.intersects(a, identity, b, moved));
+        assertEquals(50, gjk.distance(a, identity, b, new RigidTransform(0, 200, 50), null),
+                1e-9);
+        assertEquals(0.5, gjk.timeOfImpact(b, new RigidTransform(0, 250, 50), a, identity,
+                -200, 0), 1e-9);
+        Point2D.Double out = new Point2D.Double();
+        Line[] directions = {new Line(0, 0, 1, 0), new Line(0, 0, 0, 1), new Line(0, 0, 1, 1)};
+        double[][] expected = {{50, 0}, {150, 0}, {0, 80}, {0, 120}, {50, 50}, {120, 120}};
+        for (int i = 0; i < directions.length; i++) {
+            for (int k = 0; k < 2; k++) {
+                assertTrue(gjk.getExitTranslation(a, identity, b, moved,
+                        directions[i], k == 0, out));
+                assertEquals(expected[2 * i + k][0], out.x, 1e-9);
+                assertEquals(expected[2 * i + k][1], out.y, 1e-9);
+            }
+        }
+        moved.traslate(200, 0);
+        assertFalse(gjk.getExitTranslation(a, identity, b, moved, directions[0], true,
+                out));
+        assertEquals(0, out.x, 0);
+        assertEquals(0, out.y, 0);
+    }
+
+    /**
+     * Test of getExitTranslation method on random polygons, of class
+     * Gjk: A moved by the translation touches B, and moved a little less it
+     * still overlaps B.
+     */
+    @Test
+    public void testGetExitTranslation() {
+        System.out.println("getExitTranslation");
+        Random rnd = new Random(23);
+        Gjk gjk = new Gjk();
+        Point2D.Double out = new Point2D.Double();
+        Line[] directions = {new Line(0, 0, 1, 0), new Line(0, 0, 0, 1),
+            new Line(0, 0, 2, 1), new Line(0, 0, -1, 3)};
+        int hits = 0;
+        for (int run = 0; run < 500; run++) {
+            EdgeTable a = new EdgeTable(RandomPolygons.randomConvexPolygon(rnd, 0, 0)),
+                    b = new EdgeTable(RandomPolygons.randomConvexPolygon(rnd, 0, 0));
+            RigidTransform tA = new RigidTransform(rnd.nextDouble() * 2 * Math.PI,
+                    rnd.nextDouble() * 20, rnd.nextDouble() * 20),
+                    tB = new RigidTransform(rnd.nextDouble() * 2 * Math.PI,
+                            rnd.nextDouble() * 20, rnd.nextDouble() * 20);
+            PackedPolygon B = place(b, tB, 0, 0);
+            boolean intersecting = gjk.intersects(place(a, tA, 0, 0), B);
+            for (Line d : directions) {
+                for (int k = 0; k < 2; k++) {
+                    boolean orient = k == 0;
+                    assertEquals(intersecting, gjk.getExitTranslation(a, tA, b, tB, d,
+                            orient, out));
+                    if (!intersecting) {
+                        assertEquals(0, out.x, 0);
+                        assertEquals(0, out.y, 0);
+                        continue;
+                    }
+                    hits++;
+                    // Parallel to d, pointing right (up if d is vertical)
+                    assertEquals(0, out.x * d.getA() + out.y * d.getB(), 1e-9);
+                    assertTrue(out.x > 0 || (out.x == 0 && out.y >= 0));
+                    double sign = orient ? -1 : 1, len = Math.hypot(out.x, out.y);
+                    double ex = sign * 1e-6 * out.x / len, ey = sign * 1e-6 * out.y / len;
+                    double mx = sign * out.x, my = sign * out.y;
+                    assertEquals(0, gjk.distance(place(a, tA, mx, my), B, null), 1e-6);
+                    assertFalse(gjk.intersects(place(a, tA, mx + ex, my + ey), B));
+                    if (len > 1e-6) {
+                        assertTrue(gjk.intersects(place(a, tA, mx - ex, my - ey), B));
+                    }
+                }
+            }
+        }
+        assertTrue(hits > 500);
+    }
+
+    private static PackedPolygon place(EdgeTable t, RigidTransform tr, double dx, double dy) {
+        double[] coords = new double[2 * t.getPointsNumber()];
+        for (int i = 0; i < t.getPointsNumber(); i++) {
+            coords[2 * i] = tr.transformX(t.getX(i), t.getY(i)) + dx;
+            coords[2 * i + 1] = tr.transformY(t.getX(i), t.getY(i)) + dy;
+        }
+        return new PackedPolygon(coords);
+    }
+
+    private static Polygon square(double x, double y, double side) {
+        return new Polygon(new Point2D.Double[]{new Point2D.Double(x, y),
+            new Point2D.Double(x + side, y), new Point2D.Double(x + side, y + side),
+            new Point2D.Double(x, y + side)});
+    }
+}
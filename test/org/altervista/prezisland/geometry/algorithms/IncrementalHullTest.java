@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.Random;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class IncrementalHullTest {
+
+    public IncrementalHullTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of add method, of class IncrementalHull.
+     */
+    @Test
+    public void testAdd() {
+        System.out.println("add");
+        IncrementalHull hull = new IncrementalHull();
+        assertTrue(hull.isEmpty());
+        assertTrue(hull.add(0, 0));
+        assertFalse(hull.add(0, 0));
+        assertEquals(1, hull.size());
+        assertTrue(hull.add(10, 0));
+        assertTrue(hull.add(10, 10));
+        assertTrue(hull.add(0, 10));
+        assertEquals(4, hull.size());
+        // Interior and boundary points leave the hull unchanged
+        assertFalse(hull.add(5, 5));
+        assertFalse(hull.add(5, 0));
+        assertFalse(hull.add(0, 7));
+        // Points outside remove the corners they cover
+        assertTrue(hull.add(20, 0));
+        assertTrue(hull.add(20, 10));
+        assertEquals(4, hull.size());
+        assertEquals(new Point2D.Double(20, 0), hull.getPolygon().getPoints().get(1));
+    }
+
+    /**
+     * Test of getPolygon method, of class IncrementalHull.
+     */
+    @Test
+    public void testGetPolygon() {
+        System.out.println("getPolygon");
+        Random rnd = new Random(8);
+        int n = 500;
+        double[] coords = new double[2 * n];
+        IncrementalHull hull = new IncrementalHull();
+        for (int i = 0; i < n; i++) {
+            coords[2 * i] = rnd.nextInt(100);
+            coords[2 * i + 1] = rnd.nextInt(100);
+            hull.add(coords[2 * i], coords[2 * i + 1]);
+            if (i % 50 == 49) {
+                PackedPolygon expected = ConvexHull.convexHull(coords, i + 1);
+                Polygon result = hull.getPolygon();
+                assertSame(result, hull.getPolygon());
+                List<Point2D.Double> pts = result.getPoints();
+                assertEquals(expected.getPointsNumber(), pts.size());
+                assertEquals(expected.getPointsNumber(), hull.size());
+                for (int k = 0; k < pts.size(); k++) {
+                    assertEquals(expected.getX(k), pts.get(k).x, 0);
+                    assertEquals(expected.getY(k), pts.get(k).y, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Negative and positive zero are the same x coordinate.
+     */
+    @Test
+    public void testNegativeZero() {
+        System.out.println("negativeZero");
+        IncrementalHull hull = new IncrementalHull();
+        hull.add(0, 0);
+        hull.add(-0.0, 5);
+        hull.add(3, 1);
+        hull.add(3, 4);
+        List<Point2D.Double> pts = hull.getPolygon().getPoints();
+        assertEquals(4, hull.size());
+        assertEquals(4, pts.size());
+        double[][] expected = {{0, 0}, {3, 1}, {3, 4}, {0, 5}};
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(expected[k][0], pts.get(k).x, 0);
+            assertEquals(expected[k][1], pts.get(k).y, 0);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class MinkowskiBatchTest {
+
+    public MinkowskiBatchTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of sum method, of class MinkowskiBatch.
+     */
+    @Test
+    public void testSum() {
+        System.out.println("sum");
+        Random rnd = new Random(11);
+        for (int t = 0; t < 500; t++) {
+            PackedPolygon robot = randomConvexPolygon(rnd), obstacle = randomConvexPolygon(rnd);
+            assertPolygonEquals(MinkowskiSum.minkowskiSumConvex(robot, obstacle),
+                    new MinkowskiBatch(robot, false).sum(obstacle));
+            assertPolygonEquals(MinkowskiSum.minkowskiSumConvex(reflect(robot), obstacle),
+                    new MinkowskiBatch(robot, true).sum(obstacle));
+        }
+    }
+
+    /**
+     * Test of sumAll method, of class MinkowskiBatch.
+     */
+    @Test
+    public void testSumAll() {
+        System.out.println("sumAll");
+        Random rnd = new Random(12);
+        PackedPolygon robot = randomConvexPolygon(rnd);
+        MinkowskiBatch batch = new MinkowskiBatch(robot, true);
+        MinkowskiBatch.Arena arena = new MinkowskiBatch.Arena();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            // The second, smaller batch reuses the arena
+            for (int size : new int[]{1000, 10}) {
+                PackedPolygon[] obstacles = new PackedPolygon[size];
+                for (int i = 0; i < size; i++) {
+                    obstacles[i] = randomConvexPolygon(rnd);
+                }
+                for (int pass = 0; pass < 2; pass++) {
+                    if (pass == 0) {
+                        batch.sumAll(obstacles, arena);
+                    } else {
+                        batch.sumAll(obstacles, arena, pool);
+                    }
+                    assertEquals(size, arena.size());
+                    for (int i = 0; i < size; i++) {
+                        PackedPolygon expected = MinkowskiSum.minkowskiSumConvex(reflect(robot), obstacles[i]);
+                        assertPolygonEquals(expected, arena.getPolygon(i));
+                        assertEquals(expected.getX(0), arena.getCoords()[2 * arena.getOffset(i)], 0);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static PackedPolygon randomConvexPolygon(Random rnd) {
+        int n = 3 + rnd.nextInt(30);
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            coords[i] = rnd.nextInt(200) - 100;
+        }
+        return ConvexHull.convexHull(coords, n);
+    }
+
+    private static PackedPolygon reflect(PackedPolygon p) {
+        double[] coords = new double[2 * p.getPointsNumber()];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = -p.getCoords()[i];
+        }
+        return new PackedPolygon(coords);
+    }
+
+    private static void assertPolygonEquals(PackedPolygon expected, PackedPolygon result) {
+        assertEquals(expected.getPointsNumber(), result.getPointsNumber());
+        for (int i = 0; i < 2 * expected.getPointsNumber(); i++) {
+            assertEquals(expected.getCoords()[i], result.getCoords()[i], 0);
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Area;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.altervista.prezisland.geometry.Geometry;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class MinkowskiSumTest {
+
+    public MinkowskiSumTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of minkowskiSumConvex method, of class MinkowskiSum, against the
+     * original angle-based merge.
+     */
+    @Test
+    public void testMinkowskiSumConvex() {
+        System.out.println("minkowskiSumConvex");
+        Random rnd = new Random(10);
+        for (int t = 0; t < 2000; t++) {
+            Polygon s1 = randomConvexPolygon(rnd), s2 = randomConvexPolygon(rnd);
+            List<Point2D.Double> expected = angleMinkowskiSum(s1, s2),
+                    result = MinkowskiSum.minkowskiSumConvex(s1, s2).getPoints();
+            assertEquals(expected, result);
+        }
+    }
+
+    /**
+     * Test of minkowskiSumConvex method, of class MinkowskiSum, with packed
+     * coordinates and a reused output buffer.
+     */
+    @Test
+    public void testMinkowskiSumConvexPacked() {
+        System.out.println("minkowskiSumConvexPacked");
+        Random rnd = new Random(11);
+        double[] out = new double[256];
+        for (int t = 0; t < 500; t++) {
+            Polygon s1 = randomConvexPolygon(rnd), s2 = randomConvexPolygon(rnd);
+            PackedPolygon p1 = new PackedPolygon(s1), p2 = new PackedPolygon(s2);
+            int n = MinkowskiSum.minkowskiSumConvex(p1.getCoords(), p1.getPointsNumber(),
+                    p2.getCoords(), p2.getPointsNumber(), out);
+            List<Point2D.Double> expected = angleMinkowskiSum(s1, s2);
+            assertEquals(expected.size(), n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected.get(i).x, out[2 * i], 0);
+                assertEquals(expected.get(i).y, out[2 * i + 1], 0);
+            }
+        }
+    }
+
+    /**
+     * Test of bruteMinkowskiSumConvex method, of class MinkowskiSum, against
+     * the hull of all the pairwise sums.
+     */
+    @Test
+    public void testBruteMinkowskiSumConvex() {
+        System.out.println("bruteMinkowskiSumConvex");
+        Random rnd = new Random(13);
+        for (int t = 0; t < 1000; t++) {
+            Polygon s1 = randomPoints(rnd), s2 = randomPoints(rnd);
+            List<Point2D.Double> sums = new ArrayList<>();
+            for (Point2D.Double p1 : s1.getPoints()) {
+                for (Point2D.Double p2 : s2.getPoints()) {
+                    sums.add(new Point2D.Double(p1.x + p2.x, p1.y + p2.y));
+                }
+            }
+            assertEquals(ConvexHull.grahamConvexHull(sums),
+                    MinkowskiSum.bruteMinkowskiSumConvex(s1, s2).getPoints());
+        }
+    }
+
+    /**
+     * Test of bruteMinkowskiSumConvex method, of class MinkowskiSum, with an
+     * empty operand.
+     */
+    @Test
+    public void testBruteMinkowskiSumConvexEmpty() {
+        System.out.println("bruteMinkowskiSumConvex (empty)");
+        Polygon empty = new Polygon(new Point2D.Double[0]),
+                triangle = new Polygon(new Point2D.Double[]{new Point2D.Double(0, 0),
+                    new Point2D.Double(1, 0), new Point2D.Double(0, 1)});
+        assertEquals(0, MinkowskiSum.bruteMinkowskiSumConvex(empty, triangle).getPointsNumber());
+        assertEquals(0, MinkowskiSum.bruteMinkowskiSumConvex(triangle, empty).getPointsNumber());
+        assertEquals(0, MinkowskiSum.bruteMinkowskiSumConvex(empty, empty).getPointsNumber());
+    }
+
+    /**
+     * Test of minkowskiSum method, of class MinkowskiSum, on a non-convex
+     * polygon.
+     */
+    @Test
+    public void testMinkowskiSum() {
+        System.out.println("minkowskiSum");
+        Polygon l = new Polygon(new Point2D.Double[]{new Point2D.Double(0, 0),
+            new Point2D.Double(2, 0), new Point2D.Double(2, 1), new Point2D.Double(1, 1),
+            new Point2D.Double(1, 2), new Point2D.Double(0, 2)}),
+                square = new Polygon(new Point2D.Double[]{new Point2D.Double(0, 0),
+                    new Point2D.Double(1, 0), new Point2D.Double(1, 1), new Point2D.Double(0, 1)});
+        Area sum = MinkowskiSum.minkowskiSum(l, square);
+        // A larger L
+        assertTrue(sum.contains(2.5, 1.5));
+        assertTrue(sum.contains(1.5, 2.5));
+        assertFalse(sum.contains(2.5, 2.5));
+        List<Polygon> outline = MinkowskiSum.toPolygons(sum);
+        assertEquals(1, outline.size());
+        assertEquals(6, outline.get(0).getPointsNumber());
+        assertEquals(new Rectangle2D.Double(0, 0, 3, 3), sum.getBounds2D());
+    }
+
+    /**
+     * A random convex polygon with integer coordinates, starting from a
+     * random vertex.
+     */
+    private static Polygon randomConvexPolygon(Random rnd) {
+        int n = 3 + rnd.nextInt(30);
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            coords[i] = rnd.nextInt(200) - 100;
+        }
+        PackedPolygon hull = ConvexHull.convexHull(coords, n);
+        int size = hull.getPointsNumber(), start = rnd.nextInt(size);
+        Point2D.Double[] pts = new Point2D.Double[size];
+        for (int i = 0; i < size; i++) {
+            int j = (start + i) % size;
+            pts[i] = new Point2D.Double(hull.getX(j), hull.getY(j));
+        }
+        return new Polygon(pts);
+    }
+
+    /**
+     * Random points with integer coordinates, in no particular order.
+     */
+    private static Polygon randomPoints(Random rnd) {
+        int n = 1 + rnd.nextInt(30), range = 1 + rnd.nextInt(50);
+        Point2D.Double[] pts = new Point2D.Double[n];
+        for (int i = 0; i < n; i++) {
+            pts[i] = new Point2D.Double(rnd.nextInt(range), rnd.nextInt(range));
+        }
+        return new Polygon(pts);
+    }
+
+    /**
+     * The original merge, ordering edges by their angle with atan2.
+     */
+    private static List<Point2D.Double> angleMinkowskiSum(Polygon s1, Polygon s2) {
+        ArrayList<Point2D.Double> pts1 = new ArrayList<>(s1.getPoints()),
+                pts2 = new ArrayList<>(s2.getPoints()), sum = new ArrayList<>();
+        rotateToMinY(pts1);
+        rotateToMinY(pts2);
+        pts1.add(pts1.get(0));
+        pts1.add(pts1.get(1));
+        pts2.add(pts2.get(0));
+        pts2.add(pts2.get(1));
+        int i = 0, j = 0;
+        do {
+            sum.add(new Point2D.Double(pts1.get(i).x + pts2.get(j).x,
+                    pts1.get(i).y + pts2.get(j).y));
+            double angle1 = i != pts1.size() - 2
+                    ? Geometry.getNormalizedAngle(pts1.get(i), pts1.get(i + 1)) : 9,
+                    angle2 = j != pts2.size() - 2
+                            ? Geometry.getNormalizedAngle(pts2.get(j), pts2.get(j + 1)) : 9;
+            if (angle1 < angle2) {
+                i++;
+            } else if (angle1 > angle2) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        } while (i != pts1.size() - 2 || j != pts2.size() - 2);
+        return sum;
+    }
+
+    private static void rotateToMinY(List<Point2D.Double> pts) {
+        int index = 0;
+        for (int i = 1; i < pts.size(); i++) {
+            Point2D.Double p = pts.get(i), min = pts.get(index);
+            if (p.y < min.y || (p.y == min.y && p.x < min.x)) {
+                index = i;
+            }
+        }
+        for (int j = 0; j < index; j++) {
+            pts.add(pts.remove(0));
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class NarrowPhaseTest {
+
+    public NarrowPhaseTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of getPenetrationVectors method, of class NarrowPhase.
+     */
+    @Test
+    public void testGetPenetrationVectors() {
+        System.out.println("getPenetrationVectors");
+        Random rnd = new Random(20);
+        PackedPolygon[] polygons = new PackedPolygon[300];
+        for (int i = 0; i < polygons.length; i++) {
+            polygons[i] = RandomPolygons.randomConvexPolygon(rnd, rnd.nextDouble() * 100,
+                    rnd.nextDouble() * 100);
+        }
+        PairList pairs = new PairList();
+        for (int i = 0; i < 2000; i++) {
+            pairs.add(rnd.nextInt(polygons.length), rnd.nextInt(polygons.length));
+        }
+        Line d = new Line(0, 0, 1, 1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean earlyOut : new boolean[]{false, true}) {
+                double[] vectors = new double[2 * pairs.size()];
+                boolean[] found = new boolean[pairs.size()];
+                int hits = new NarrowPhase(d, true, earlyOut).getPenetrationVectors(polygons,
+                        pairs, vectors, found, pool);
+                PenetrationEngine engine = new PenetrationEngine();
+                engine.setEarlyOut(earlyOut);
+                Point2D.Double out = new Point2D.Double();
+                int expected = 0;
+                for (int i = 0; i < pairs.size(); i++) {
+                    boolean hit = engine.getPenetrationVector(polygons[pairs.getFirst(i)],
+                            polygons[pairs.getSecond(i)], d, true, out);
+                    assertEquals(hit, found[i]);
+                    assertEquals(out.x, vectors[2 * i], 0);
+                    assertEquals(out.y, vectors[2 * i + 1], 0);
+                    expected += hit ? 1 : 0;
+                }
+                assertEquals(expected, hits);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test of getTimesOfImpact method, of class NarrowPhase.
+     */
+    @Test
+    public void testGetTimesOfImpact() {
+        System.out.println("getTimesOfImpact");
+        Random rnd = new Random(21);
+        PackedPolygon[] polygons = new PackedPolygon[300];
+        double[] displacements = new double[2 * polygons.length];
+        for (int i = 0; i < polygons.length; i++) {
+            polygons[i] = RandomPolygons.randomConvexPolygon(rnd, rnd.nextDouble() * 200,
+                    rnd.nextDouble() * 200);
+            displacements[2 * i] = rnd.nextDouble() * 60 - 30;
+            displacements[2 * i + 1] = rnd.nextDouble() * 60 - 30;
+        }
+        PairList pairs = new PairList();
+        for (int i = 0; i < 2000; i++) {
+            pairs.add(rnd.nextInt(polygons.length), rnd.nextInt(polygons.length));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            double[] times = new double[pairs.size()];
+            int hits = NarrowPhase.getTimesOfImpact(polygons, displacements, pairs, times, pool);
+            Gjk gjk = new Gjk();
+            int expected = 0;
+            for (int i = 0; i < pairs.size(); i++) {
+                int a = pairs.getFirst(i), b = pairs.getSecond(i);
+                double t = gjk.timeOfImpact(polygons[a], polygons[b],
+                        displacements[2 * a] - displacements[2 * b],
+                        displacements[2 * a + 1] - displacements[2 * b + 1]);
+                assertEquals(t, times[i], 0);
+                expected += t >= 0 ? 1 : 0;
+            }
+            assertEquals(expected, hits);
+            assertTrue(hits > pairs.size() / 100);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class PreparedPairTest {
+
+    public PreparedPairTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of getPenetrationVectors method, of class PreparedPair.
+     */
+    @Test
+    public void testGetPenetrationVectors() {
+        System.out.println("getPenetrationVectors");
+        Random rnd = new Random(22);
+        // 16 directions, each with both orientations
+        Line[] directions = new Line[32];
+        boolean[] orients = new boolean[32];
+        for (int i = 0; i < 16; i++) {
+            double angle = Math.PI * i / 16;
+            directions[2 * i] = new Line(0, 0, Math.cos(angle), Math.sin(angle));
+            directions[2 * i + 1] = directions[2 * i];
+            orients[2 * i] = true;
+        }
+        double[] vectors = new double[2 * directions.length];
+        boolean[] found = new boolean[directions.length];
+        Point2D.Double out = new Point2D.Double();
+        for (int k = 0; k < 200; k++) {
+            PackedPolygon P1 = RandomPolygons.randomConvexPolygon(rnd, 0, 0),
+                    P2 = RandomPolygons.randomConvexPolygon(rnd, rnd.nextDouble() * 40 - 20,
+                            rnd.nextDouble() * 40 - 20);
+            for (boolean earlyOut : new boolean[]{false, true}) {
+                PenetrationEngine engine = new PenetrationEngine();
+                engine.setEarlyOut(earlyOut);
+                for (PreparedPair pair : new PreparedPair[]{
+                    new PreparedPair(P1, P2, earlyOut),
+                    new PreparedPair(P1.toPolygon(), P2.toPolygon(), earlyOut)}) {
+                    int hits = pair.getPenetrationVectors(directions, orients, vectors, found);
+                    int expected = 0;
+                    for (int i = 0; i < directions.length; i++) {
+                        boolean hit = engine.getPenetrationVector(P1, P2, directions[i],
+                                orients[i], out);
+                        assertEquals(hit, found[i]);
+                        assertEquals(out.x, vectors[2 * i], 0);
+                        assertEquals(out.y, vectors[2 * i + 1], 0);
+                        expected += hit ? 1 : 0;
+                    }
+                    assertEquals(expected, hits);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+
+/**
+ * Random convex polygons shared by the randomized tests.
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+final class RandomPolygons {
+
+    private RandomPolygons() {
+    }
+
+    /**
+     * Build a convex polygon with 3 to 12 vertices at random angles on a
+     * circle of radius 10, in counter-clockwise order.
+     *
+     * @param rnd Source of randomness
+     * @param cx X coordinate of the center
+     * @param cy Y coordinate of the center
+     * @return A random convex polygon
+     */
+    static PackedPolygon randomConvexPolygon(Random rnd, double cx, double cy) {
+        int n = 3 + rnd.nextInt(10);
+        double[] angles = new double[n];
+        for (int i = 0; i < n; i++) {
+            angles[i] = rnd.nextDouble() * 2 * Math.PI;
+        }
+        Arrays.sort(angles);
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            coords[2 * i] = cx + 10 * Math.cos(angles[i]);
+            coords[2 * i + 1] = cy + 10 * Math.sin(angles[i]);
+        }
+        return new PackedPolygon(coords, n);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.altervista.prezisland.geometry.shapes.Polygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class SeparatingAxisCacheTest {
+
+    public SeparatingAxisCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of intersects method, of class SeparatingAxisCache.
+     */
+    @Test
+    public void testIntersects() {
+        System.out.println("intersects");
+        SeparatingAxisCache cache = new SeparatingAxisCache();
+        Polygon square = square(0, 0, 100);
+        assertTrue(cache.intersects(square, square(50, 50, 100)));
+        assertTrue(cache.intersects(square, square(100, 20, 30)));
+        assertTrue(cache.intersects(square, square(40, 40, 10)));
+        assertFalse(cache.intersects(square, square(130, 140, 20)));
+        assertFalse(cache.intersects(square(130, 140, 20), square));
+        // Only a diagonal axis separates these
+        Polygon triangle = new Polygon(new Point2D.Double[]{new Point2D.Double(150, 90),
+            new Point2D.Double(150, 150), new Point2D.Double(90, 150)});
+        assertFalse(cache.intersects(square, triangle));
+        assertEquals(0, cache.getHits());
+        assertEquals(6, cache.size());
+    }
+
+    /**
+     * Moving pairs must be answered by the cached axis.
+     */
+    @Test
+    public void testCoherence() {
+        System.out.println("coherence");
+        SeparatingAxisCache cache = new SeparatingAxisCache();
+        PackedPolygon a = new PackedPolygon(square(0, 0, 100)),
+                b = new PackedPolygon(square(200, 30, 50));
+        assertFalse(cache.intersects(a, b));
+        for (int i = 0; i < 99; i++) {
+            b.traslate(-1, 0);
+            assertFalse(cache.intersects(a, b));
+        }
+        assertEquals(99, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        b.traslate(-1, 0);
+        assertTrue(cache.intersects(a, b));
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * The least recently used pair must be evicted.
+     */
+    @Test
+    public void testEviction() {
+        System.out.println("eviction");
+        SeparatingAxisCache cache = new SeparatingAxisCache(2);
+        PackedPolygon a = new PackedPolygon(square(0, 0, 10)),
+                b = new PackedPolygon(square(20, 0, 10)),
+                c = new PackedPolygon(square(40, 0, 10));
+        cache.intersects(a, b);
+        cache.intersects(a, c);
+        cache.intersects(a, b);
+        // (a, c) is the least recently used pair
+        cache.intersects(b, c);
+        assertEquals(2, cache.size());
+        cache.intersects(a, b);
+        assertEquals(2, cache.getHits());
+        cache.intersects(a, c);
+        assertEquals(4, cache.getMisses());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    private static Polygon square(double x, double y, double side) {
+        return new Polygon(new Point2D.Double[]{new Point2D.Double(x, y),
+            new Point2D.Double(x + side, y), new Point2D.Double(x + side, y + side),
+            new Point2D.Double(x, y + side)});
+    }
+}
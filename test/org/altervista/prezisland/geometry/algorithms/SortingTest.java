@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+import org.altervista.prezisland.geometry.Geometry;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class SortingTest {
+
+    public SortingTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of sortLexicographicallyX method, of class Sorting.
+     */
+    @Test
+    public void testSortLexicographicallyX() {
+        System.out.println("sortLexicographicallyX");
+        // Below and above the parallel threshold
+        for (int n : new int[]{0, 1, 10, 1000, 3 * Sorting.PARALLEL_THRESHOLD}) {
+            double[] coords = randomPoints(n, 42);
+            Sorting.sortLexicographicallyX(coords, n);
+            assertSorted(coords, randomPoints(n, 42), n);
+        }
+    }
+
+    /**
+     * Test of radixSortLexicographicallyX method, of class Sorting.
+     */
+    @Test
+    public void testRadixSortLexicographicallyX() {
+        System.out.println("radixSortLexicographicallyX");
+        for (int n : new int[]{0, 1, 10, 1000, 100000}) {
+            double[] coords = randomPoints(n, 7);
+            Sorting.radixSortLexicographicallyX(coords, n);
+            assertSorted(coords, randomPoints(n, 7), n);
+        }
+        // Negative numbers and signed zeros
+        double[] coords = {0.0, 1, -0.0, -1, -2.5, 3, 1e300, -1e-300, -0.0, -2};
+        Sorting.radixSortLexicographicallyX(coords, 5);
+        assertSorted(coords, new double[]{0.0, 1, -0.0, -1, -2.5, 3, 1e300, -1e-300, -0.0, -2}, 5);
+    }
+
+    /**
+     * Points with many duplicate coordinates, as in integer grids.
+     */
+    private static double[] randomPoints(int n, long seed) {
+        Random r = new Random(seed);
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            coords[i] = r.nextInt(200) - 100 + (r.nextBoolean() ? 0 : r.nextDouble());
+        }
+        return coords;
+    }
+
+    /**
+     * Check that sorted is in x-lexicographic order and is a permutation of
+     * the points in original.
+     */
+    private static void assertSorted(double[] sorted, double[] original, int n) {
+        Point2D.Double[] expected = new Point2D.Double[n];
+        for (int i = 0; i < n; i++) {
+            expected[i] = new Point2D.Double(original[2 * i], original[2 * i + 1]);
+        }
+        Geometry.sortLexicographicallyX(expected);
+        for (int i = 0; i < n; i++) {
+            assertEquals(0, Geometry.compareLexicographicallyX(expected[i],
+                    new Point2D.Double(sorted[2 * i], sorted[2 * i + 1])));
+        }
+    }
+
+}
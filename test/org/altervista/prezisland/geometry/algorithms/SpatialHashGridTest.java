@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class SpatialHashGridTest {
+
+    public SpatialHashGridTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of update and getPairs methods, of class SpatialHashGrid.
+     */
+    @Test
+    public void testGetPairs() {
+        System.out.println("getPairs");
+        SpatialHashGrid grid = new SpatialHashGrid(10);
+        // a and b share four cells, but are reported once
+        PackedPolygon a = BroadPhaseChecks.square(-5, -5, 20),
+                b = BroadPhaseChecks.square(0, 0, 10), c = BroadPhaseChecks.square(40, 0, 10);
+        int ha = grid.add(a), hb = grid.add(b), hc = grid.add(c);
+        grid.update();
+        PairList pairs = new PairList();
+        grid.getPairs(pairs);
+        assertEquals(1, pairs.size());
+        assertEquals(Math.min(ha, hb), pairs.getFirst(0));
+        assertEquals(Math.max(ha, hb), pairs.getSecond(0));
+        // Touching boxes overlap
+        c.traslate(-25, 0);
+        grid.update();
+        grid.getPairs(pairs);
+        assertEquals(2, pairs.size());
+        grid.remove(ha);
+        grid.getPairs(pairs);
+        assertEquals(0, pairs.size());
+        grid.rebuild();
+        grid.getPairs(pairs);
+        assertEquals(0, pairs.size());
+        assertEquals(2, grid.size());
+    }
+
+    /**
+     * Huge and far away polygons are kept out of the cells, and still
+     * reported.
+     */
+    @Test
+    public void testOversized() {
+        System.out.println("oversized");
+        SpatialHashGrid grid = new SpatialHashGrid(1);
+        int small = grid.add(BroadPhaseChecks.square(0, 0, 1)),
+                huge = grid.add(BroadPhaseChecks.square(-1e12, -1e12, 2e12)),
+                wide = grid.add(BroadPhaseChecks.square(0.5, 0.5, 2 * SpatialHashGrid.MAX_CELLS)),
+                far = grid.add(BroadPhaseChecks.square(1e300, 1e300, 1));
+        grid.update();
+        PairList pairs = new PairList();
+        grid.getPairs(pairs);
+        assertEquals(3, pairs.size());
+        Set<Long> found = new HashSet<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            found.add((long) pairs.getFirst(i) << 32 | pairs.getSecond(i));
+        }
+        assertEquals(new HashSet<>(Arrays.asList((long) small << 32 | huge,
+                (long) small << 32 | wide, (long) huge << 32 | wide)), found);
+        // Moving in and out of the oversized set: far now lies on the corner of small
+        grid.getPolygon(far).traslate(-1e300, -1e300);
+        grid.remove(huge);
+        grid.update();
+        grid.getPairs(pairs);
+        assertEquals(2, pairs.size());
+        grid.remove(wide);
+        grid.rebuild();
+        grid.getPairs(pairs);
+        assertEquals(1, pairs.size());
+        assertEquals(small, pairs.getFirst(0));
+        assertEquals(far, pairs.getSecond(0));
+    }
+
+    /**
+     * The pairs must match a brute force check while polygons move, are
+     * added and removed.
+     */
+    @Test
+    public void testCoherence() {
+        System.out.println("coherence");
+        BroadPhaseChecks.checkCoherence(new SpatialHashGrid(8), new Random(18));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.algorithms;
+
+import java.util.Random;
+import org.altervista.prezisland.geometry.shapes.PackedPolygon;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class SweepAndPruneTest {
+
+    public SweepAndPruneTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of update and getPairs methods, of class SweepAndPrune.
+     */
+    @Test
+    public void testGetPairs() {
+        System.out.println("getPairs");
+        SweepAndPrune sap = new SweepAndPrune();
+        PackedPolygon a = BroadPhaseChecks.square(0, 0, 10),
+                b = BroadPhaseChecks.square(5, 5, 10), c = BroadPhaseChecks.square(30, 0, 10);
+        int ha = sap.add(a), hb = sap.add(b), hc = sap.add(c);
+        sap.update();
+        PairList pairs = new PairList();
+        sap.getPairs(pairs);
+        assertEquals(1, pairs.size());
+        assertEquals(Math.min(ha, hb), pairs.getFirst(0));
+        assertEquals(Math.max(ha, hb), pairs.getSecond(0));
+        // Touching boxes overlap
+        c.traslate(-15, 0);
+        sap.update();
+        sap.getPairs(pairs);
+        assertEquals(2, pairs.size());
+        b.traslate(0, 20);
+        sap.update();
+        sap.getPairs(pairs);
+        assertEquals(0, pairs.size());
+        b.traslate(0, -20);
+        sap.remove(hc);
+        sap.update();
+        sap.getPairs(pairs);
+        assertEquals(1, pairs.size());
+        assertEquals(2, sap.size());
+    }
+
+    /**
+     * The pairs must match a brute force check while polygons move, are
+     * added and removed.
+     */
+    @Test
+    public void testCoherence() {
+        System.out.println("coherence");
+        BroadPhaseChecks.checkCoherence(new SweepAndPrune(), new Random(17));
+    }
+}
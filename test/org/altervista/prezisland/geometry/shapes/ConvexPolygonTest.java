@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class ConvexPolygonTest {
+
+    public ConvexPolygonTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of the metadata of class ConvexPolygon.
+     */
+    @Test
+    public void testMetadata() {
+        System.out.println("metadata");
+        double[] coords = {80, 70, 50, 100, 20, 60, 0, -20, 50, -20};
+        ConvexPolygon p = new ConvexPolygon(coords);
+        // The source array is copied
+        coords[0] = 1000;
+        assertEquals(5, p.getPointsNumber());
+        assertEquals(0, p.getStartIndex());
+        assertEquals(0, p.getX(0), 0);
+        assertEquals(-20, p.getY(0), 0);
+        assertEquals(80, p.getX(2), 0);
+        assertEquals(3, p.getMaxYIndex());
+        assertEquals(100, p.getY(p.getMaxYIndex()), 0);
+        assertEquals(0, p.getMinX(), 0);
+        assertEquals(-20, p.getMinY(), 0);
+        assertEquals(80, p.getMaxX(), 0);
+        assertEquals(100, p.getMaxY(), 0);
+        assertEquals(30, p.getEdgeTable().getEdgeX(1), 0);
+        assertEquals(90, p.getEdgeTable().getEdgeY(1), 0);
+        assertSame(p.getEdgeTable(), p.getEdgeTable());
+        PackedPolygon copy = p.toPackedPolygon();
+        copy.traslate(10, 10);
+        assertEquals(0, p.getX(0), 0);
+    }
+
+    /**
+     * Test of the validation of class ConvexPolygon.
+     */
+    @Test
+    public void testValidation() {
+        System.out.println("validation");
+        // Collinear vertices are allowed
+        assertEquals(5, new ConvexPolygon(0, 0, 50, 0, 100, 0, 100, 100, 0, 100)
+                .getPointsNumber());
+        double[][] invalid = {
+            // Clockwise
+            {0, 0, 0, 100, 100, 100, 100, 0},
+            // Concave
+            {0, 0, 100, 0, 50, 20, 100, 100, 0, 100},
+            // Winds around twice
+            {0, 0, 10, 0, 10, 10, -10, 10, -10, -10, 20, -10, 20, 20, 0, 20},
+            // Repeated vertex
+            {0, 0, 100, 0, 100, 0, 0, 100},
+            // Degenerate
+            {0, 0, 50, 0, 100, 0},
+            {0, 0, 100, 0}};
+        for (double[] coords : invalid) {
+            try {
+                new ConvexPolygon(coords);
+                fail("Invalid polygon accepted");
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+}
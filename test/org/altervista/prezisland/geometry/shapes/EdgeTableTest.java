@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class EdgeTableTest {
+
+    public EdgeTableTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of the vertex order of class EdgeTable.
+     */
+    @Test
+    public void testVertexOrder() {
+        System.out.println("vertexOrder");
+        EdgeTable t = new EdgeTable(new PackedPolygon(new double[]{80, 70, 50, 100, 20, 60,
+            0, -20, 50, -20}));
+        assertEquals(5, t.getPointsNumber());
+        // Starts from the reference point
+        assertEquals(0, t.getX(0), 0);
+        assertEquals(-20, t.getY(0), 0);
+        assertEquals(50, t.getEdgeX(0), 0);
+        assertEquals(0, t.getEdgeY(0), 0);
+        assertEquals(20, t.getX(4), 0);
+        assertEquals(-20, t.getEdgeX(4), 0);
+        assertEquals(-80, t.getEdgeY(4), 0);
+    }
+
+    /**
+     * Test of getExtremeIndex method, of class EdgeTable.
+     */
+    @Test
+    public void testGetExtremeIndex() {
+        System.out.println("getExtremeIndex");
+        EdgeTable square = new EdgeTable(new PackedPolygon(new double[]{100, 100, 0, 100,
+            0, 0, 100, 0}));
+        assertEquals(2, square.getExtremeIndex(1, 1));
+        assertEquals(3, square.getExtremeIndex(-1, 1));
+        assertEquals(0, square.getExtremeIndex(-1, -1));
+        assertEquals(1, square.getExtremeIndex(1, -1));
+        Random rnd = new Random(23);
+        for (int k = 0; k < 100; k++) {
+            int n = 3 + rnd.nextInt(30);
+            double[] angles = new double[n];
+            for (int i = 0; i < n; i++) {
+                angles[i] = rnd.nextDouble() * 2 * Math.PI;
+            }
+            Arrays.sort(angles);
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                coords[2 * i] = 10 * Math.cos(angles[i]);
+                coords[2 * i + 1] = 10 * Math.sin(angles[i]);
+            }
+            EdgeTable t = new EdgeTable(new PackedPolygon(coords, n));
+            for (int q = 0; q < 20; q++) {
+                double dx = rnd.nextGaussian(), dy = rnd.nextGaussian();
+                double max = -Double.MAX_VALUE;
+                for (int i = 0; i < n; i++) {
+                    max = Math.max(max, t.getX(i) * dx + t.getY(i) * dy);
+                }
+                int i = t.getExtremeIndex(dx, dy);
+                assertEquals(max, t.getX(i) * dx + t.getY(i) * dy, 1e-9);
+                i = t.getExtremeIndex(dx, dy, rnd.nextInt(n));
+                assertEquals(max, t.getX(i) * dx + t.getY(i) * dy, 1e-9);
+            }
+        }
+    }
+}
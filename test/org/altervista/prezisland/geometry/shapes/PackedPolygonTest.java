@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import java.awt.geom.Point2D;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class PackedPolygonTest {
+
+    public PackedPolygonTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of the cached metadata of class PackedPolygon.
+     */
+    @Test
+    public void testMetadata() {
+        System.out.println("metadata");
+        // Pentagon starting from a vertex which is not the lowest one
+        PackedPolygon p = new PackedPolygon(new double[]{80, 70, 50, 100, 20, 60,
+            0, -20, 50, -20});
+        assertEquals(5, p.getPointsNumber());
+        assertEquals(3, p.getStartIndex());
+        assertEquals(1, p.getMaxYIndex());
+        assertEquals(0, p.getMinX(), 0);
+        assertEquals(-20, p.getMinY(), 0);
+        assertEquals(80, p.getMaxX(), 0);
+        assertEquals(100, p.getMaxY(), 0);
+
+        p.traslate(10, 5);
+        assertEquals(3, p.getStartIndex());
+        assertEquals(10, p.getMinX(), 0);
+        assertEquals(105, p.getMaxY(), 0);
+        assertEquals(90, p.getX(0), 0);
+        assertEquals(75, p.getY(0), 0);
+    }
+
+    /**
+     * Test of conversions to and from class Polygon.
+     */
+    @Test
+    public void testToPolygon() {
+        System.out.println("toPolygon");
+        Polygon p = new Polygon(new Point2D.Double[]{new Point2D.Double(0, 0),
+            new Point2D.Double(50, 0), new Point2D.Double(50, 100), new Point2D.Double(0, 100)});
+        PackedPolygon pp = new PackedPolygon(p);
+        assertEquals(4, pp.getPointsNumber());
+        assertEquals(50, pp.getX(2), 0);
+        assertEquals(100, pp.getY(2), 0);
+        Polygon p2 = pp.toPolygon();
+        assertEquals(p.getPoints(), p2.getPoints());
+    }
+
+    /**
+     * The array passed to the constructor must not be copied.
+     */
+    @Test
+    public void testWrap() {
+        System.out.println("wrap");
+        double[] coords = {0, 0, 10, 0, 10, 10, 99, 99};
+        PackedPolygon p = new PackedPolygon(coords, 3);
+        assertSame(coords, p.getCoords());
+        assertEquals(3, p.getPointsNumber());
+        assertEquals(10, p.getMaxY(), 0);
+    }
+
+}
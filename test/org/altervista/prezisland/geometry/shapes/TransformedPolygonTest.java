@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 EPresident <prez_enquiry@hotmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.altervista.prezisland.geometry.shapes;
+
+import java.awt.geom.Point2D;
+import org.altervista.prezisland.geometry.Line;
+import org.altervista.prezisland.geometry.RigidTransform;
+import org.altervista.prezisland.geometry.algorithms.CollisionDetection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author EPresident <prez_enquiry@hotmail.com>
+ */
+public class TransformedPolygonTest {
+
+    public TransformedPolygonTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    /**
+     * Test of traslate and rotate methods, of class TransformedPolygon.
+     */
+    @Test
+    public void testTransform() {
+        System.out.println("transform");
+        TransformedPolygon p = new TransformedPolygon(new PackedPolygon(new double[]{0, 0,
+            100, 0, 100, 50, 0, 50}));
+        assertEquals(4, p.getPointsNumber());
+        assertEquals(50, p.getCenter().x, 0);
+        assertEquals(25, p.getCenter().y, 0);
+        assertEquals(0, p.getX(0), 0);
+        assertEquals(0, p.getY(0), 0);
+        assertEquals(100, p.getMaxX(), 0);
+        assertEquals(50, p.getMaxY(), 0);
+        p.traslate(10, 20);
+        assertEquals(10, p.getMinX(), 0);
+        assertEquals(20, p.getMinY(), 0);
+        // Quarter turn about the center (60,45)
+        p.rotate(Math.PI / 2);
+        assertEquals(35, p.getMinX(), 1e-9);
+        assertEquals(85, p.getMaxX(), 1e-9);
+        assertEquals(-5, p.getMinY(), 1e-9);
+        assertEquals(95, p.getMaxY(), 1e-9);
+        PackedPolygon world = p.toPackedPolygon();
+        assertEquals(85, world.getX(0), 1e-9);
+        assertEquals(-5, world.getY(0), 1e-9);
+        assertEquals(35, world.getMinX(), 1e-9);
+    }
+
+    /**
+     * Polygons sharing a table move independently.
+     */
+    @Test
+    public void testSharedTable() {
+        System.out.println("sharedTable");
+        TransformedPolygon a = new TransformedPolygon(new PackedPolygon(new double[]{-1, -1,
+            1, -1, 1, 1, -1, 1}));
+        TransformedPolygon b = new TransformedPolygon(a.getTable(), a.getTransform());
+        assertSame(a.getTable(), b.getTable());
+        b.traslate(5, 0);
+        assertEquals(-1, a.getMinX(), 0);
+        assertEquals(4, b.getMinX(), 0);
+        RigidTransform t = new RigidTransform(0, 0, 3);
+        TransformedPolygon c = new TransformedPolygon(a.getTable(), t);
+        t.traslate(100, 100);
+        assertEquals(2, c.getMinY(), 0);
+    }
+
+    /**
+     * Test of getStartIndex and getMaxYIndex methods, of class
+     * TransformedPolygon.
+     */
+    @Test
+    public void testGetStartIndex() {
+        System.out.println("getStartIndex");
+        // Horizontal bottom and top edges at the start, tilted ones later
+        TransformedPolygon p = new TransformedPolygon(new PackedPolygon(new double[]{0, 0,
+            40, 0, 80, 30, 80, 60, 30, 60, -20, 20}));
+        assertEquals(0, p.getStartIndex());
+        assertEquals(3, p.getMaxYIndex(0));
+        for (int step = 0; step < 48; step++) {
+            p.rotate(Math.PI / 24);
+            PackedPolygon world = p.toPackedPolygon();
+            int start = p.getStartIndex();
+            assertEquals(world.getStartIndex(), start);
+            assertEquals(world.getMaxYIndex(), p.getMaxYIndex(start));
+        }
+    }
+
+    /**
+     * The penetration vector of transformed polygons is the same as the one of
+     * their vertices.
+     */
+    @Test
+    public void testPenetrationVector() {
+        System.out.println("penetrationVector");
+        TransformedPolygon a = new TransformedPolygon(new PackedPolygon(new double[]{0, 0,
+            40, 0, 80, 30, 80, 60, 30, 60, -20, 20})),
+                b = new TransformedPolygon(new PackedPolygon(new double[]{30, 10, 90, 40,
+                    20, 70}));
+        Line d = new Line(0, 0, 1, 2);
+        Point2D.Double out = new Point2D.Double(), expected = new Point2D.Double();
+        for (int step = 0; step < 16; step++) {
+            a.rotate(Math.PI / 8);
+            b.rotate(Math.PI / 5);
+            boolean orient = step % 2 == 0;
+            assertEquals(CollisionDetection.getPenetrationVector(a.toPolygon(), b.toPolygon(),
+                    d, orient, expected), CollisionDetection.getPenetrationVector(a, b, d,
+                            orient, out));
+            assertEquals(expected, out);
+        }
+    }
+}